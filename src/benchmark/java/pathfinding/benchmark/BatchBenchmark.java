@@ -0,0 +1,82 @@
+package pathfinding.benchmark;
+
+import pathfinding.MapField;
+import pathfinding.TerrainGrid;
+import pathfinding.algorithms.AStar;
+import pathfinding.algorithms.BatchExecutor;
+import pathfinding.algorithms.BatchReport;
+import pathfinding.algorithms.PathResult;
+import pathfinding.algorithms.QueryOptions;
+
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * Throughput of a batch of random queries on a growing number of workers, in both delivery orders
+ * Fails if a result differs from the one of a plain loop or arrives out of order when it should not
+ *
+ * gradle benchmark -Pbenchmark=BatchBenchmark
+ */
+public class BatchBenchmark {
+
+    public static void main(String[] args) {
+        int size = 250;
+        int queries = 10_000;
+        boolean[] accessible = BenchmarkMaps.defaultAccessible();
+        QueryOptions options = QueryOptions.DEFAULT
+                .withDiagonal(true)
+                .withAccessibleMask(QueryOptions.accessibleMask(MapField.SAND, MapField.FLAT, MapField.FOREST, MapField.MOUNTAIN));
+        int cores = Integer.getInteger("threads", Runtime.getRuntime().availableProcessors());
+        int[] threadCounts = IntStream.concat(IntStream.iterate(1, t -> t < cores, t -> t * 2), IntStream.of(cores)).toArray();
+
+        TerrainGrid map = BenchmarkMaps.generate(size, size, BenchmarkMaps.SEED);
+        AStar aStar = new AStar(map);
+        Random random = new Random(BenchmarkMaps.SEED);
+        int[] starts = new int[queries];
+        int[] goals = new int[queries];
+        for (int i = 0; i < queries; i++) {
+            starts[i] = randomCell(map, accessible, random);
+            goals[i] = randomCell(map, accessible, random);
+        }
+
+        long time = System.nanoTime();
+        double[] expected = new double[queries];
+        for (int i = 0; i < queries; i++) {
+            expected[i] = aStar.findeWeg(starts[i] % size, starts[i] / size, goals[i] % size, goals[i] / size, options).getCost();
+        }
+        long loopNanos = System.nanoTime() - time;
+        System.out.printf("%dx%d, %d queries%n", size, size, queries);
+        System.out.printf("  %-26s %10.0f queries/s%n", "Plain loop", queries * 1e9 / loopNanos);
+
+        for (int threads : threadCounts) {
+            try (BatchExecutor executor = new BatchExecutor(aStar, threads)) {
+                for (BatchExecutor.Order order : BatchExecutor.Order.values()) {
+                    int[] next = {0};
+                    BatchReport report = executor.run(starts, goals, options, order, (result, i) -> {
+                        if (order == BatchExecutor.Order.SUBMISSION && i != next[0]) {
+                            throw new IllegalStateException("Result %s delivered before %s".formatted(i, next[0]));
+                        }
+                        next[0]++;
+                        check(result, expected[i]);
+                    });
+                    System.out.printf("  %-26s %10.0f queries/s, %.2f workers busy%n",
+                            "%d thread%s, %s order".formatted(threads, threads == 1 ? "" : "s", order.name().toLowerCase()),
+                            report.getQueriesPerSecond(), report.getUtilization());
+                }
+            }
+        }
+    }
+
+    private static void check(PathResult result, double expected) {
+        if (result.getCost() != expected) {
+            throw new IllegalStateException("Batch found %s, a plain loop found %s".formatted(result, expected));
+        }
+    }
+
+    private static int randomCell(TerrainGrid map, boolean[] accessible, Random random) {
+        while (true) {
+            int cell = random.nextInt(map.size());
+            if (accessible[map.getOrdinal(cell)]) return cell;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package pathfinding.benchmark;
+
+import library.FastNoiseLite;
+import pathfinding.ByteTerrainGrid;
+import pathfinding.MapField;
+import pathfinding.TerrainGrid;
+
+/**
+ * Generates maps the same way MapPanel#cacheNoise does, without needing the Swing interface
+ */
+public final class BenchmarkMaps {
+
+    public static final int SEED = 1337;
+
+    private BenchmarkMaps() {
+    }
+
+    /**
+     * Noise with the default settings of MapPanel
+     */
+    public static FastNoiseLite noise(int seed) {
+        FastNoiseLite noise = new FastNoiseLite();
+        noise.SetSeed(seed);
+        noise.SetNoiseType(FastNoiseLite.NoiseType.Perlin);
+        noise.SetFrequency(0.025f);
+        noise.SetFractalType(FastNoiseLite.FractalType.PingPong);
+        noise.SetFractalOctaves(11);
+        return noise;
+    }
+
+    public static ByteTerrainGrid generate(int xMax, int yMax, int seed) {
+        FastNoiseLite noise = noise(seed);
+        ByteTerrainGrid map = new ByteTerrainGrid(xMax, yMax);
+        for (int y = 0; y < yMax; y++) {
+            for (int x = 0; x < xMax; x++) {
+                float value = (noise.GetNoise(x / (float) 2, y / (float) 2) + 1.0f) / 2.0f;
+                map.setNoise((xMax * y) + x, value);
+            }
+        }
+        return map;
+    }
+
+    /**
+     * Same fields that are checked by default in the settings panel
+     */
+    public static boolean[] defaultAccessible() {
+        boolean[] accessible = new boolean[MapField.values().length];
+        accessible[MapField.SAND.ordinal()] = true;
+        accessible[MapField.FLAT.ordinal()] = true;
+        accessible[MapField.FOREST.ordinal()] = true;
+        accessible[MapField.MOUNTAIN.ordinal()] = true;
+        return accessible;
+    }
+
+    /**
+     * Picks the first and the last cell of the largest diagonally connected region,
+     * so that the search has to cross most of the accessible map
+     */
+    public static int[] farPair(TerrainGrid map, boolean[] accessible, int xMax, int yMax) {
+        int[] label = new int[map.size()];
+        int[] stack = new int[map.size()];
+        int bestLabel = 0, bestSize = 0, labels = 0;
+
+        for (int i = 0; i < map.size(); i++) {
+            if (label[i] != 0 || !accessible[map.getOrdinal(i)]) continue;
+
+            int size = 0, top = 0;
+            label[i] = ++labels;
+            stack[top++] = i;
+            while (top > 0) {
+                int index = stack[--top];
+                size++;
+                int x = index % xMax, y = index / xMax;
+                for (int dy = -1; dy <= 1; dy++) {
+                    for (int dx = -1; dx <= 1; dx++) {
+                        int nx = x + dx, ny = y + dy;
+                        if (nx < 0 || ny < 0 || nx >= xMax || ny >= yMax) continue;
+                        int n = ny * xMax + nx;
+                        if (label[n] == 0 && accessible[map.getOrdinal(n)]) {
+                            label[n] = labels;
+                            stack[top++] = n;
+                        }
+                    }
+                }
+            }
+            if (size > bestSize) {
+                bestSize = size;
+                bestLabel = labels;
+            }
+        }
+
+        int first = -1, last = -1;
+        for (int i = 0; i < map.size(); i++) {
+            if (label[i] == bestLabel) {
+                if (first == -1) first = i;
+                last = i;
+            }
+        }
+        return new int[]{ first, last };
+    }
+}
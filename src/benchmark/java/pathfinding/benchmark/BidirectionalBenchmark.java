@@ -0,0 +1,122 @@
+package pathfinding.benchmark;
+
+import pathfinding.MapField;
+import pathfinding.TerrainGrid;
+import pathfinding.algorithms.AStar;
+import pathfinding.algorithms.BidirectionalSearch;
+import pathfinding.algorithms.Dijkstra;
+import pathfinding.algorithms.PathResult;
+import pathfinding.algorithms.QueryOptions;
+
+import java.util.Random;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Compares the bidirectional search on one and on two threads against the plain search, for A* and Dijkstra
+ * Fails if they ever disagree on the path cost or the path does not cost what it claims, the bidirectional search
+ * has to find the optimal cost with a heuristics weight as well
+ *
+ * gradle benchmark -Pbenchmark=BidirectionalBenchmark
+ */
+public class BidirectionalBenchmark {
+
+    public static void main(String[] args) {
+        int[] sizes = {250, 500, 1000};
+        int queries = 100;
+        boolean[] accessible = BenchmarkMaps.defaultAccessible();
+        QueryOptions options = QueryOptions.DEFAULT
+                .withDiagonal(true)
+                .withAccessibleMask(QueryOptions.accessibleMask(MapField.SAND, MapField.FLAT, MapField.FOREST, MapField.MOUNTAIN));
+
+        // Backward half of the two-thread search, kept for the whole run
+        ExecutorService backward = Executors.newSingleThreadExecutor();
+        try {
+            run(sizes, queries, accessible, options, backward);
+        } finally {
+            backward.shutdown();
+        }
+    }
+
+    private static void run(int[] sizes, int queries, boolean[] accessible, QueryOptions options, Executor backward) {
+        for (int size : sizes) {
+            TerrainGrid map = BenchmarkMaps.generate(size, size, BenchmarkMaps.SEED);
+            int[][] pairs = pairs(map, accessible, size, queries);
+
+            for (AStar engine : new AStar[]{ new AStar(map), new Dijkstra(map) }) {
+                String name = engine instanceof Dijkstra ? "Dijkstra" : "A*";
+                BidirectionalSearch bidirectional = new BidirectionalSearch(engine);
+                for (int i = 0; i < 2; i++) {
+                    run(engine, bidirectional, map, pairs, size, options, backward);
+                }
+
+                long[][] totals = run(engine, bidirectional, map, pairs, size, options, backward);
+                System.out.printf("%5dx%-5d %s%n", size, size, name);
+                String[] labels = {"Forward", "Bidirectional", "Two threads"};
+                for (int i = 0; i < labels.length; i++) {
+                    System.out.printf("  %-14s %10d expansions %8.2f ms/search%n", labels[i], totals[i][0] / queries, totals[i][1] / 1e6 / queries);
+                }
+            }
+        }
+    }
+
+    /**
+     * Total expansions and nanoseconds of the plain, the bidirectional and the two-thread search
+     */
+    private static long[][] run(AStar engine, BidirectionalSearch bidirectional, TerrainGrid map, int[][] pairs, int size,
+                                QueryOptions options, Executor backward) {
+        long[][] totals = new long[3][2];
+        QueryOptions weighted = options.withHeuristicWeight(2).withTieBreak(true);
+        for (int[] pair : pairs) {
+            int startX = pair[0] % size, startY = pair[0] / size, endX = pair[1] % size, endY = pair[1] / size;
+            PathResult[] results = {
+                    engine.findeWeg(startX, startY, endX, endY, options),
+                    bidirectional.findPath(startX, startY, endX, endY, options),
+                    bidirectional.findPath(startX, startY, endX, endY, options, backward),
+                    bidirectional.findPath(startX, startY, endX, endY, weighted),
+                    bidirectional.findPath(startX, startY, endX, endY, weighted, backward)
+            };
+            for (int i = 0; i < results.length; i++) {
+                if (results[i].getCost() != results[0].getCost() || pathCost(map, size, results[i]) != results[i].getCost()) {
+                    throw new IllegalStateException("Searches disagree on path cost: " + results[0] + " vs " + results[i]);
+                }
+                // The weighted searches are only checked
+                if (i >= totals.length) continue;
+                totals[i][0] += results[i].getExpansions();
+                totals[i][1] += results[i].getNanos();
+            }
+        }
+        return totals;
+    }
+
+    private static double pathCost(TerrainGrid map, int size, PathResult result) {
+        if (!result.isFound()) return Double.POSITIVE_INFINITY;
+
+        double cost = 0;
+        for (int i = 1; i < result.getPathLength(); i++) {
+            int from = result.getPathIndex(i - 1);
+            int to = result.getPathIndex(i);
+            boolean diagonal = from % size != to % size && from / size != to / size;
+            cost += map.getField(to).getWeight() + (diagonal ? 0.5 : 0);
+        }
+        return cost;
+    }
+
+    private static int[][] pairs(TerrainGrid map, boolean[] accessible, int size, int count) {
+        Random random = new Random(BenchmarkMaps.SEED);
+        int[][] pairs = new int[count][];
+        pairs[0] = BenchmarkMaps.farPair(map, accessible, size, size);
+        for (int i = 1; i < count; i++) {
+            pairs[i] = new int[]{ randomCell(map, accessible, random), randomCell(map, accessible, random) };
+        }
+        return pairs;
+    }
+
+    private static int randomCell(TerrainGrid map, boolean[] accessible, Random random) {
+        while (true) {
+            int cell = random.nextInt(map.size());
+            if (accessible[map.getOrdinal(cell)]) return cell;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package pathfinding.benchmark;
+
+import pathfinding.MapField;
+import pathfinding.TerrainGrid;
+import pathfinding.algorithms.AStar;
+import pathfinding.algorithms.BoundedSearch;
+import pathfinding.algorithms.PathResult;
+import pathfinding.algorithms.QueryOptions;
+
+import java.util.Random;
+
+/**
+ * Expansions bounded search saves over plain A* for a few bounds, on random pairs of accessible cells
+ * Fails if a path ever costs more than the bound allows
+ *
+ * gradle benchmark -Pbenchmark=BoundedBenchmark
+ */
+public class BoundedBenchmark {
+
+    public static void main(String[] args) {
+        int[] sizes = {250, 500, 1000};
+        double[] epsilons = {0, 0.05, 0.1, 0.25, 0.5};
+        int queries = 100;
+        boolean[] accessible = BenchmarkMaps.defaultAccessible();
+        QueryOptions options = QueryOptions.DEFAULT
+                .withDiagonal(true)
+                .withAccessibleMask(QueryOptions.accessibleMask(MapField.SAND, MapField.FLAT, MapField.FOREST, MapField.MOUNTAIN));
+
+        for (int size : sizes) {
+            TerrainGrid map = BenchmarkMaps.generate(size, size, BenchmarkMaps.SEED);
+            AStar aStar = new AStar(map);
+            BoundedSearch bounded = new BoundedSearch(aStar);
+
+            Random random = new Random(BenchmarkMaps.SEED);
+            int[][] pairs = new int[queries][];
+            for (int i = 0; i < queries; i++) {
+                pairs[i] = new int[]{ randomCell(map, accessible, random), randomCell(map, accessible, random) };
+            }
+
+            long aStarExpansions = 0, aStarNanos = 0;
+            double[] optimal = new double[queries];
+            for (int i = 0; i < queries; i++) {
+                PathResult result = aStar.findeWeg(pairs[i][0] % size, pairs[i][0] / size, pairs[i][1] % size, pairs[i][1] / size, options);
+                optimal[i] = result.getCost();
+                aStarExpansions += result.getExpansions();
+                aStarNanos += result.getNanos();
+            }
+            System.out.printf("%5dx%-5d A* %10d expansions %8.2f ms/search%n", size, size, aStarExpansions / queries, aStarNanos / 1e6 / queries);
+
+            for (double epsilon : epsilons) {
+                long expansions = 0, nanos = 0;
+                double worst = 1;
+                for (int i = 0; i < queries; i++) {
+                    PathResult result = bounded.findPath(pairs[i][0] % size, pairs[i][0] / size, pairs[i][1] % size, pairs[i][1] / size, options, epsilon);
+                    if (result.getCost() > (1 + epsilon) * optimal[i] || result.isFound() != (optimal[i] != Double.POSITIVE_INFINITY)) {
+                        throw new IllegalStateException("Path breaks the bound of %s: %s, optimal %s".formatted(1 + epsilon, result, optimal[i]));
+                    }
+                    if (result.isFound() && optimal[i] > 0) {
+                        worst = Math.max(worst, result.getCost() / optimal[i]);
+                    }
+                    expansions += result.getExpansions();
+                    nanos += result.getNanos();
+                }
+                System.out.printf("  eps=%-5s %10d expansions %8.2f ms/search  saved %5.1f%%  worst cost ratio %.3f%n",
+                        epsilon, expansions / queries, nanos / 1e6 / queries, 100.0 * (aStarExpansions - expansions) / aStarExpansions, worst);
+            }
+        }
+    }
+
+    private static int randomCell(TerrainGrid map, boolean[] accessible, Random random) {
+        while (true) {
+            int cell = random.nextInt(map.size());
+            if (accessible[map.getOrdinal(cell)]) return cell;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package pathfinding.benchmark;
+
+import pathfinding.MapField;
+import pathfinding.TerrainGrid;
+import pathfinding.algorithms.AStar;
+import pathfinding.algorithms.AnytimeAStar;
+import pathfinding.algorithms.BidirectionalSearch;
+import pathfinding.algorithms.BoundedSearch;
+import pathfinding.algorithms.CancellationToken;
+import pathfinding.algorithms.DStarLite;
+import pathfinding.algorithms.JumpPointSearch;
+import pathfinding.algorithms.PathResult;
+import pathfinding.algorithms.QueryOptions;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+/**
+ * Latency percentiles of random queries without a budget, with a budget that is never reached,
+ * which only adds the bookkeeping for partial paths, and with a time budget that cuts off the tail
+ * Fails if a search that finished within its budget found a different cost
+ * The other algorithms are checked first, a small expansion budget and a cancelled token have to stop them with
+ * a valid partial path from the start, and a budget that is never reached must not change their result
+ *
+ * gradle benchmark -Pbenchmark=BudgetBenchmark
+ */
+public class BudgetBenchmark {
+
+    public static void main(String[] args) {
+        int size = 1000;
+        int queries = 300;
+        long timeBudget = 5_000_000;
+        boolean[] accessible = BenchmarkMaps.defaultAccessible();
+        QueryOptions options = QueryOptions.DEFAULT
+                .withDiagonal(true)
+                .withAccessibleMask(QueryOptions.accessibleMask(MapField.SAND, MapField.FLAT, MapField.FOREST, MapField.MOUNTAIN));
+
+        TerrainGrid map = BenchmarkMaps.generate(size, size, BenchmarkMaps.SEED);
+        AStar aStar = new AStar(map);
+        Random random = new Random(BenchmarkMaps.SEED);
+        int[][] pairs = new int[queries][];
+        for (int i = 0; i < queries; i++) {
+            pairs[i] = new int[]{ randomCell(map, accessible, random), randomCell(map, accessible, random) };
+        }
+        // Backward half of the two-thread bidirectional search
+        ExecutorService backward = Executors.newSingleThreadExecutor();
+        try {
+            checkAlgorithms(map, aStar, Arrays.copyOf(pairs, 20), size, options, backward);
+        } finally {
+            backward.shutdown();
+        }
+
+        QueryOptions[] budgets = {
+                options,
+                options.withMaxExpansions(Integer.MAX_VALUE - 1),
+                options.withMaxNanos(timeBudget)
+        };
+        String[] labels = {"No budget", "Unreached budget", "%d ms budget".formatted(timeBudget / 1_000_000)};
+        double[] expected = new double[queries];
+        for (int round = 0; round < 2; round++) {
+            for (int b = 0; b < budgets.length; b++) {
+                long[] nanos = new long[queries];
+                int partial = 0;
+                for (int i = 0; i < queries; i++) {
+                    int[] pair = pairs[i];
+                    PathResult result = aStar.findeWeg(pair[0] % size, pair[0] / size, pair[1] % size, pair[1] / size, budgets[b]);
+                    nanos[i] = result.getNanos();
+                    if (b == 0) {
+                        expected[i] = result.getCost();
+                    } else if (result.isPartial()) {
+                        partial++;
+                    } else if (result.getCost() != expected[i]) {
+                        throw new IllegalStateException("Budget changed a finished search: %s, expected %s".formatted(result, expected[i]));
+                    }
+                }
+                if (round == 0) continue;
+
+                Arrays.sort(nanos);
+                System.out.printf("%-18s p50 %7.2f ms  p99 %7.2f ms  max %7.2f ms  mean %7.2f ms  %d partial%n", labels[b],
+                        nanos[queries / 2] / 1e6, nanos[queries * 99 / 100] / 1e6, nanos[queries - 1] / 1e6,
+                        Arrays.stream(nanos).average().orElse(0) / 1e6, partial);
+            }
+        }
+    }
+
+    private static void checkAlgorithms(TerrainGrid map, AStar aStar, int[][] pairs, int size, QueryOptions options, Executor backward) {
+        JumpPointSearch jumpPoints = new JumpPointSearch(aStar);
+        BoundedSearch bounded = new BoundedSearch(aStar);
+        AnytimeAStar anytime = new AnytimeAStar(aStar);
+        BidirectionalSearch bidirectional = new BidirectionalSearch(aStar);
+        CancellationToken cancelled = new CancellationToken();
+        cancelled.cancel();
+
+        for (int[] pair : pairs) {
+            int sx = pair[0] % size, sy = pair[0] / size, ex = pair[1] % size, ey = pair[1] / size;
+            String[] names = {"JPS", "JPS+", "Bounded", "ARA*", "Bidirectional", "Parallel bidirectional", "D* Lite"};
+            List<Function<QueryOptions, PathResult>> searches = List.of(
+                    o -> jumpPoints.findPath(sx, sy, ex, ey, o, false),
+                    o -> jumpPoints.findPath(sx, sy, ex, ey, o, true),
+                    o -> bounded.findPath(sx, sy, ex, ey, o, 0.5),
+                    o -> anytime.findPath(sx, sy, ex, ey, o.withHeuristicWeight(2), Long.MAX_VALUE, solution -> {}).getResult(),
+                    o -> bidirectional.findPath(sx, sy, ex, ey, o),
+                    o -> bidirectional.findPath(sx, sy, ex, ey, o, backward),
+                    o -> new DStarLite(aStar, o).plan(sx, sy, ex, ey)
+            );
+            for (int a = 0; a < searches.size(); a++) {
+                PathResult full = searches.get(a).apply(options);
+                PathResult unreached = searches.get(a).apply(options.withMaxExpansions(Integer.MAX_VALUE - 1));
+                if (unreached.getStatus() != full.getStatus() || unreached.getCost() != full.getCost()) {
+                    throw new IllegalStateException("%s changed with an unreached budget: %s vs %s".formatted(names[a], unreached, full));
+                }
+
+                // Parallel sides only add up their expansions every few dozen, ARA* keeps its first solution
+                int limit = 100;
+                PathResult limited = searches.get(a).apply(options.withMaxExpansions(limit));
+                if (full.getExpansions() > 2 * limit && (limited.getStatus() == PathResult.Status.EXPANSION_LIMIT
+                        ? limited.getExpansions() > 2 * limit : limited.getExpansions() > limit)) {
+                    throw new IllegalStateException("%s ignored the expansion budget: %s".formatted(names[a], limited));
+                }
+                PathResult stopped = searches.get(a).apply(options.withCancellationToken(cancelled));
+                if (full.getExpansions() > 1 && stopped.getStatus() != PathResult.Status.CANCELLED) {
+                    throw new IllegalStateException("%s ignored the cancelled token: %s".formatted(names[a], stopped));
+                }
+                for (PathResult result : new PathResult[]{ limited, stopped }) {
+                    if (result.isPartial() && (result.getPathIndex(0) != pair[0] || pathCost(map, size, options, result) != result.getCost())) {
+                        throw new IllegalStateException("%s returned an invalid partial path: %s".formatted(names[a], result));
+                    }
+                }
+            }
+        }
+        System.out.printf("Budgets of %d queries stop JPS, bounded search, ARA*, bidirectional search and D* Lite%n", pairs.length);
+    }
+
+    /**
+     * Cost of walking the cells of the path, fails if two cells in a row are no neighbours or a cell cannot be entered
+     */
+    private static double pathCost(TerrainGrid map, int size, QueryOptions options, PathResult result) {
+        double cost = 0;
+        for (int i = 1; i < result.getPathLength(); i++) {
+            int from = result.getPathIndex(i - 1);
+            int to = result.getPathIndex(i);
+            int dx = Math.abs(to % size - from % size), dy = Math.abs(to / size - from / size);
+            boolean diagonal = dx == 1 && dy == 1;
+            if (Math.max(dx, dy) != 1 || diagonal && !options.isDiagonal() || !options.isAccessible(map.getField(to))) {
+                throw new IllegalStateException("Partial path steps from cell %s to %s: %s".formatted(from, to, result));
+            }
+            cost += map.getField(to).getWeight() + (diagonal ? 0.5 : 0);
+        }
+        return cost;
+    }
+
+    private static int randomCell(TerrainGrid map, boolean[] accessible, Random random) {
+        while (true) {
+            int cell = random.nextInt(map.size());
+            if (accessible[map.getOrdinal(cell)]) return cell;
+        }
+    }
+}
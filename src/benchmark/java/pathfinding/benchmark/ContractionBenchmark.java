@@ -0,0 +1,108 @@
+package pathfinding.benchmark;
+
+import pathfinding.MapField;
+import pathfinding.TerrainGrid;
+import pathfinding.algorithms.ContractionHierarchy;
+import pathfinding.algorithms.Dijkstra;
+import pathfinding.algorithms.PathResult;
+import pathfinding.algorithms.QueryOptions;
+
+import java.util.Random;
+
+/**
+ * Compares queries on a contraction hierarchy against Dijkstra on generated noise maps, with and without diagonal movement
+ * Every query runs with both, the benchmark fails if they ever disagree on the path cost or if the unpacked
+ * cells are no valid path of that cost
+ *
+ * gradle benchmark -Pbenchmark=ContractionBenchmark
+ */
+public class ContractionBenchmark {
+
+    public static void main(String[] args) {
+        int[] sizes = {100, 200};
+        int queries = 300;
+        boolean[] accessible = BenchmarkMaps.defaultAccessible();
+        QueryOptions diagonal = QueryOptions.DEFAULT
+                .withDiagonal(true)
+                .withAccessibleMask(QueryOptions.accessibleMask(MapField.SAND, MapField.FLAT, MapField.FOREST, MapField.MOUNTAIN));
+
+        for (int size : sizes) {
+            TerrainGrid map = BenchmarkMaps.generate(size, size, BenchmarkMaps.SEED);
+            Dijkstra dijkstra = new Dijkstra(map);
+            int[][] pairs = pairs(map, accessible, size, queries);
+
+            for (QueryOptions options : new QueryOptions[]{ diagonal, diagonal.withDiagonal(false) }) {
+                long time = System.nanoTime();
+                ContractionHierarchy hierarchy = ContractionHierarchy.build(dijkstra, options);
+                System.out.printf("%5dx%-5d %s, %d shortcuts built in %.1f ms%n", size, size,
+                        options.isDiagonal() ? "diagonal" : "orthogonal", hierarchy.getShortcutCount(), (System.nanoTime() - time) / 1e6);
+
+                long[] totals = new long[4];
+                for (int i = 0; i < 3; i++) {
+                    totals = run(map, dijkstra, hierarchy, pairs, size, options);
+                }
+                System.out.printf("  %-9s %10d expansions %10.3f ms/search%n", "Dijkstra", totals[0] / queries, totals[1] / 1e6 / queries);
+                System.out.printf("  %-9s %10d expansions %10.3f ms/search%n", "CH", totals[2] / queries, totals[3] / 1e6 / queries);
+            }
+        }
+    }
+
+    /**
+     * Expansions and nanoseconds of Dijkstra, then of the hierarchy
+     */
+    private static long[] run(TerrainGrid map, Dijkstra dijkstra, ContractionHierarchy hierarchy, int[][] pairs, int size, QueryOptions options) {
+        long[] totals = new long[4];
+        for (int[] pair : pairs) {
+            int sx = pair[0] % size, sy = pair[0] / size, ex = pair[1] % size, ey = pair[1] / size;
+            PathResult expected = dijkstra.findeWeg(sx, sy, ex, ey, options);
+            PathResult result = hierarchy.findPath(sx, sy, ex, ey);
+            if (result.isFound() != expected.isFound() || result.getCost() != expected.getCost()
+                    || result.isFound() && pathCost(map, size, options, result) != result.getCost()) {
+                throw new IllegalStateException("Contraction hierarchy disagrees with Dijkstra: " + expected + " vs " + result);
+            }
+            totals[0] += expected.getExpansions();
+            totals[1] += expected.getNanos();
+            totals[2] += result.getExpansions();
+            totals[3] += result.getNanos();
+        }
+        return totals;
+    }
+
+    /**
+     * Cost of walking the cells of the path, fails if two cells in a row are no neighbours or a cell cannot be entered
+     */
+    private static double pathCost(TerrainGrid map, int size, QueryOptions options, PathResult result) {
+        double cost = 0;
+        for (int i = 1; i < result.getPathLength(); i++) {
+            int from = result.getPathIndex(i - 1);
+            int to = result.getPathIndex(i);
+            int dx = Math.abs(to % size - from % size), dy = Math.abs(to / size - from / size);
+            boolean diagonal = dx == 1 && dy == 1;
+            if (Math.max(dx, dy) != 1 || diagonal && !options.isDiagonal() || !options.isAccessible(map.getField(to))) {
+                throw new IllegalStateException("Unpacked path steps from cell %s to %s: %s".formatted(from, to, result));
+            }
+            cost += map.getField(to).getWeight() + (diagonal ? 0.5 : 0);
+        }
+        return cost;
+    }
+
+    /**
+     * The far pair of the largest region followed by random pairs of accessible cells
+     */
+    private static int[][] pairs(TerrainGrid map, boolean[] accessible, int size, int count) {
+        Random random = new Random(BenchmarkMaps.SEED);
+        int[][] pairs = new int[count][];
+        pairs[0] = BenchmarkMaps.farPair(map, accessible, size, size);
+        for (int i = 1; i < count; i++) {
+            pairs[i] = new int[]{ randomCell(map, accessible, random), randomCell(map, accessible, random) };
+        }
+        return pairs;
+    }
+
+    private static int randomCell(TerrainGrid map, boolean[] accessible, Random random) {
+        while (true) {
+            int cell = random.nextInt(map.size());
+            if (accessible[map.getOrdinal(cell)]) return cell;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package pathfinding.benchmark;
+
+import pathfinding.MapField;
+import pathfinding.TerrainGrid;
+import pathfinding.algorithms.DeltaStepping;
+import pathfinding.algorithms.Dijkstra;
+import pathfinding.algorithms.QueryOptions;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Whole-map path costs from one start with delta-stepping on a growing number of threads,
+ * against Dijkstra with the bucket queue on a single thread
+ * Fails if any cost differs from Dijkstra's
+ * The map sizes can be given as arguments, the default stops at 2000x2000, -Dthreads=n overrides the core count
+ *
+ * gradle benchmark -Pbenchmark=DeltaSteppingBenchmark
+ */
+public class DeltaSteppingBenchmark {
+
+    public static void main(String[] args) {
+        int[] sizes = args.length > 0 ? Arrays.stream(args).mapToInt(Integer::parseInt).toArray() : new int[]{1000, 2000};
+        double[] deltas = {2, 4, 8, 16, 32};
+        int repeats = 3;
+        boolean[] accessible = BenchmarkMaps.defaultAccessible();
+        QueryOptions options = QueryOptions.DEFAULT
+                .withDiagonal(true)
+                .withAccessibleMask(QueryOptions.accessibleMask(MapField.SAND, MapField.FLAT, MapField.FOREST, MapField.MOUNTAIN))
+                .withQueueMode(QueryOptions.QueueMode.BUCKET);
+        int cores = Integer.getInteger("threads", Runtime.getRuntime().availableProcessors());
+        // Powers of two up to the number of cores, and the number of cores itself
+        int[] threadCounts = IntStream.concat(IntStream.iterate(1, t -> t < cores, t -> t * 2), IntStream.of(cores)).toArray();
+        // One pool per thread count for the whole run, so the timings do not include starting threads
+        ForkJoinPool[] pools = Arrays.stream(threadCounts).mapToObj(ForkJoinPool::new).toArray(ForkJoinPool[]::new);
+        try {
+            run(sizes, deltas, repeats, accessible, options, pools);
+        } finally {
+            for (ForkJoinPool pool : pools) {
+                pool.shutdown();
+            }
+        }
+    }
+
+    private static void run(int[] sizes, double[] deltas, int repeats, boolean[] accessible, QueryOptions options, ForkJoinPool[] pools) {
+        for (int size : sizes) {
+            TerrainGrid map = BenchmarkMaps.generate(size, size, BenchmarkMaps.SEED);
+            Dijkstra dijkstra = new Dijkstra(map);
+            int start = BenchmarkMaps.farPair(map, accessible, size, size)[0];
+            int startX = start % size, startY = start / size;
+
+            float[] expected = null;
+            long best = Long.MAX_VALUE;
+            for (int i = 0; i < repeats; i++) {
+                long time = System.nanoTime();
+                expected = dijkstra.distances(startX, startY, options);
+                best = Math.min(best, System.nanoTime() - time);
+            }
+            System.out.printf("%5dx%-5d Dijkstra %36.1f ms%n", size, size, best / 1e6);
+
+            for (double delta : deltas) {
+                for (ForkJoinPool pool : pools) {
+                    int threads = pool.getParallelism();
+                    best = Long.MAX_VALUE;
+                    for (int i = 0; i < repeats; i++) {
+                        long time = System.nanoTime();
+                        float[] distances = DeltaStepping.distances(dijkstra, startX, startY, options, delta, pool);
+                        best = Math.min(best, System.nanoTime() - time);
+                        if (!Arrays.equals(distances, expected)) {
+                            throw new IllegalStateException("Delta-stepping with delta %s on %s threads disagrees with Dijkstra".formatted(delta, threads));
+                        }
+                    }
+                    System.out.printf("  delta %-4s %3d thread%s %27.1f ms%n", delta, threads, threads == 1 ? " " : "s", best / 1e6);
+                }
+            }
+        }
+    }
+}
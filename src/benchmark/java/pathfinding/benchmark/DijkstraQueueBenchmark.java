@@ -0,0 +1,91 @@
+package pathfinding.benchmark;
+
+import pathfinding.ByteTerrainGrid;
+import pathfinding.MapField;
+import pathfinding.TerrainGrid;
+import pathfinding.algorithms.Dijkstra;
+import pathfinding.algorithms.PathResult;
+import pathfinding.algorithms.QueryOptions;
+
+/**
+ * Compares Dijkstra with the heap against the bucket queue on generated noise maps
+ * Also checks that both find paths of the same cost, first on every pair of small maps whose starts
+ * have neighbours of different weights, where a cheaper neighbour is queued after a more expensive one
+ *
+ * gradle benchmark -Pbenchmark=DijkstraQueueBenchmark
+ */
+public class DijkstraQueueBenchmark {
+
+    public static void main(String[] args) {
+        int[] sizes = {250, 500, 1000, 2000};
+        boolean[] accessible = BenchmarkMaps.defaultAccessible();
+        QueryOptions options = QueryOptions.DEFAULT
+                .withDiagonal(true)
+                .withAccessibleMask(QueryOptions.accessibleMask(MapField.SAND, MapField.FLAT, MapField.FOREST, MapField.MOUNTAIN));
+
+        ByteTerrainGrid line = new ByteTerrainGrid(3, 1);
+        line.fill(MapField.FLAT);
+        line.setField(2, MapField.FOREST);
+        ByteTerrainGrid mixed = new ByteTerrainGrid(5, 5);
+        MapField[] weights = {MapField.FOREST, MapField.SAND, MapField.MOUNTAIN, MapField.FLAT};
+        for (int i = 0; i < mixed.size(); i++) {
+            mixed.setField(i, weights[(i * 3 + i / 5) % weights.length]);
+        }
+        for (TerrainGrid map : new TerrainGrid[]{ line, mixed }) {
+            checkAllPairs(map, options);
+            checkAllPairs(map, options.withDiagonal(false));
+        }
+
+        for (int size : sizes) {
+            TerrainGrid map = BenchmarkMaps.generate(size, size, BenchmarkMaps.SEED);
+            int[] pair = BenchmarkMaps.farPair(map, accessible, size, size);
+            Dijkstra dijkstra = new Dijkstra(map);
+
+            PathResult heap = run("Heap", size, dijkstra, pair, options.withQueueMode(QueryOptions.QueueMode.HEAP));
+            PathResult bucket = run("Bucket", size, dijkstra, pair, options.withQueueMode(QueryOptions.QueueMode.BUCKET));
+            if (heap.getCost() != bucket.getCost()) {
+                throw new IllegalStateException("Queues disagree on path cost: " + heap + " vs " + bucket);
+            }
+        }
+    }
+
+    /**
+     * Runs every start and goal of the map with both queues and fails on the first different outcome
+     */
+    private static void checkAllPairs(TerrainGrid map, QueryOptions options) {
+        Dijkstra dijkstra = new Dijkstra(map);
+        int width = map.getWidth();
+        for (int start = 0; start < map.size(); start++) {
+            for (int goal = 0; goal < map.size(); goal++) {
+                int startX = start % width, startY = start / width, endX = goal % width, endY = goal / width;
+                PathResult heap = dijkstra.findeWeg(startX, startY, endX, endY, options.withQueueMode(QueryOptions.QueueMode.HEAP));
+                PathResult bucket = dijkstra.findeWeg(startX, startY, endX, endY, options.withQueueMode(QueryOptions.QueueMode.BUCKET));
+                if (heap.getStatus() != bucket.getStatus() || heap.getCost() != bucket.getCost()) {
+                    throw new IllegalStateException("Queues disagree on path cost: " + heap + " vs " + bucket);
+                }
+            }
+        }
+    }
+
+    private static PathResult run(String name, int size, Dijkstra dijkstra, int[] pair, QueryOptions options) {
+        int startX = pair[0] % size, startY = pair[0] / size;
+        int endX = pair[1] % size, endY = pair[1] / size;
+
+        PathResult result = null;
+        for (int i = 0; i < 5; i++) {
+            result = dijkstra.findeWeg(startX, startY, endX, endY, options);
+        }
+
+        int runs = 10;
+        long expansions = 0;
+        long time = System.nanoTime();
+        for (int i = 0; i < runs; i++) {
+            expansions += dijkstra.findeWeg(startX, startY, endX, endY, options).getExpansions();
+        }
+        time = System.nanoTime() - time;
+
+        System.out.printf("%-8s %5dx%-5d %12.0f expansions/s %10.2f ms/search  cost %s%n",
+                name, size, size, expansions / (time / 1e9), time / 1e6 / runs, result.getCost());
+        return result;
+    }
+}
@@ -0,0 +1,109 @@
+package pathfinding.benchmark;
+
+import pathfinding.MapField;
+import pathfinding.TerrainGrid;
+import pathfinding.algorithms.AStar;
+import pathfinding.algorithms.Dijkstra;
+import pathfinding.algorithms.PathResult;
+import pathfinding.algorithms.QueryOptions;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Compares double costs against fixed-point int costs for A* and Dijkstra on generated noise maps
+ * Every query runs in both modes, with and without diagonal movement and with the landmark heuristics,
+ * the benchmark fails if the two modes ever disagree on whether there is a path or on its cost
+ *
+ * gradle benchmark -Pbenchmark=FixedPointBenchmark
+ */
+public class FixedPointBenchmark {
+
+    public static void main(String[] args) {
+        int[] sizes = {250, 500, 1000};
+        int queries = 200;
+        boolean[] accessible = BenchmarkMaps.defaultAccessible();
+        QueryOptions diagonal = QueryOptions.DEFAULT
+                .withDiagonal(true)
+                .withAccessibleMask(QueryOptions.accessibleMask(MapField.SAND, MapField.FLAT, MapField.FOREST, MapField.MOUNTAIN));
+
+        for (int size : sizes) {
+            TerrainGrid map = BenchmarkMaps.generate(size, size, BenchmarkMaps.SEED);
+            AStar aStar = new AStar(map);
+            Dijkstra dijkstra = new Dijkstra(map);
+            int[][] pairs = pairs(map, accessible, size, queries);
+
+            check(aStar, pairs, size, diagonal);
+            check(aStar, pairs, size, diagonal.withDiagonal(false));
+            check(aStar, pairs, size, diagonal.withHeuristicMode(QueryOptions.HeuristicMode.LANDMARKS));
+            check(dijkstra, pairs, size, diagonal.withDiagonal(false));
+
+            for (int i = 0; i < 2; i++) {
+                run(aStar, pairs, size, diagonal);
+                run(aStar, pairs, size, diagonal.withCostMode(QueryOptions.CostMode.FIXED_POINT));
+            }
+            report("A* double", size, queries, run(aStar, pairs, size, diagonal));
+            report("A* fixed", size, queries, run(aStar, pairs, size, diagonal.withCostMode(QueryOptions.CostMode.FIXED_POINT)));
+
+            // Dijkstra drains most of the map, fewer queries are enough
+            int[][] few = Arrays.copyOf(pairs, queries / 10);
+            run(dijkstra, few, size, diagonal);
+            run(dijkstra, few, size, diagonal.withCostMode(QueryOptions.CostMode.FIXED_POINT));
+            report("Dijkstra double", size, few.length, run(dijkstra, few, size, diagonal));
+            report("Dijkstra fixed", size, few.length, run(dijkstra, few, size, diagonal.withCostMode(QueryOptions.CostMode.FIXED_POINT)));
+        }
+    }
+
+    private static void report(String name, int size, int queries, long[] totals) {
+        System.out.printf("%-16s %5dx%-5d %10d expansions %12.0f expansions/s %10.3f ms/search%n", name, size, size,
+                totals[0] / queries, totals[0] / (totals[1] / 1e9), totals[1] / 1e6 / queries);
+    }
+
+    /**
+     * Total expansions and nanoseconds
+     */
+    private static long[] run(AStar engine, int[][] pairs, int size, QueryOptions options) {
+        long expansions = 0;
+        long nanos = 0;
+        for (int[] pair : pairs) {
+            PathResult result = engine.findeWeg(pair[0] % size, pair[0] / size, pair[1] % size, pair[1] / size, options);
+            expansions += result.getExpansions();
+            nanos += result.getNanos();
+        }
+        return new long[]{ expansions, nanos };
+    }
+
+    /**
+     * Runs every pair in both cost modes and fails on the first different outcome
+     */
+    private static void check(AStar engine, int[][] pairs, int size, QueryOptions options) {
+        for (int[] pair : pairs) {
+            PathResult reference = engine.findeWeg(pair[0] % size, pair[0] / size, pair[1] % size, pair[1] / size, options);
+            PathResult fixed = engine.findeWeg(pair[0] % size, pair[0] / size, pair[1] % size, pair[1] / size,
+                    options.withCostMode(QueryOptions.CostMode.FIXED_POINT));
+            if (reference.getStatus() != fixed.getStatus() || reference.getCost() != fixed.getCost()) {
+                throw new IllegalStateException("Cost modes disagree: " + reference + " vs " + fixed);
+            }
+        }
+    }
+
+    /**
+     * The far pair of the largest region followed by random pairs of accessible cells
+     */
+    private static int[][] pairs(TerrainGrid map, boolean[] accessible, int size, int count) {
+        Random random = new Random(BenchmarkMaps.SEED);
+        int[][] pairs = new int[count][];
+        pairs[0] = BenchmarkMaps.farPair(map, accessible, size, size);
+        for (int i = 1; i < count; i++) {
+            pairs[i] = new int[]{ randomCell(map, accessible, random), randomCell(map, accessible, random) };
+        }
+        return pairs;
+    }
+
+    private static int randomCell(TerrainGrid map, boolean[] accessible, Random random) {
+        while (true) {
+            int cell = random.nextInt(map.size());
+            if (accessible[map.getOrdinal(cell)]) return cell;
+        }
+    }
+}
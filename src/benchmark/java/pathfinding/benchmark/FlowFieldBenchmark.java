@@ -0,0 +1,121 @@
+package pathfinding.benchmark;
+
+import pathfinding.ByteTerrainGrid;
+import pathfinding.MapField;
+import pathfinding.TerrainGrid;
+import pathfinding.algorithms.AStar;
+import pathfinding.algorithms.FlowField;
+import pathfinding.algorithms.FlowFieldCache;
+import pathfinding.algorithms.PathResult;
+import pathfinding.algorithms.QueryOptions;
+
+import java.util.Random;
+
+/**
+ * Sends many agents from random cells to one shared goal, once with an A* search per agent
+ * and once following a single flow field, which is then asked for again through the cache
+ * Fails if an agent's path cost differs from the one A* finds, or if the cache returns a field from before a change of the map
+ *
+ * gradle benchmark -Pbenchmark=FlowFieldBenchmark
+ */
+public class FlowFieldBenchmark {
+
+    public static void main(String[] args) {
+        int[] sizes = {250, 500, 1000};
+        int agents = 500;
+        boolean[] accessible = BenchmarkMaps.defaultAccessible();
+        QueryOptions options = QueryOptions.DEFAULT
+                .withDiagonal(true)
+                .withAccessibleMask(QueryOptions.accessibleMask(MapField.SAND, MapField.FLAT, MapField.FOREST, MapField.MOUNTAIN))
+                .withQueueMode(QueryOptions.QueueMode.BUCKET);
+
+        checkWall(options);
+        for (int size : sizes) {
+            TerrainGrid map = BenchmarkMaps.generate(size, size, BenchmarkMaps.SEED);
+            AStar aStar = new AStar(map);
+            FlowFieldCache cache = new FlowFieldCache(aStar);
+            int goal = BenchmarkMaps.farPair(map, accessible, size, size)[1];
+            int goalX = goal % size, goalY = goal / size;
+
+            Random random = new Random(BenchmarkMaps.SEED);
+            int[] starts = new int[agents];
+            for (int i = 0; i < agents; i++) {
+                starts[i] = randomCell(map, accessible, random);
+            }
+
+            QueryOptions heap = options.withQueueMode(QueryOptions.QueueMode.HEAP);
+            long aStarNanos = 0, aStarExpansions = 0;
+            double[] expected = new double[agents];
+            for (int i = 0; i < agents; i++) {
+                PathResult result = aStar.findeWeg(starts[i] % size, starts[i] / size, goalX, goalY, heap);
+                expected[i] = result.getCost();
+                aStarNanos += result.getNanos();
+                aStarExpansions += result.getExpansions();
+            }
+
+            long time = System.nanoTime();
+            FlowField field = cache.get(goalX, goalY, options);
+            long steps = 0;
+            for (int i = 0; i < agents; i++) {
+                // Walks the agent step by step, the way a game loop would
+                int cell = starts[i];
+                while (cell != -1 && cell != field.getGoal()) {
+                    cell = field.next(cell);
+                    steps++;
+                }
+            }
+            long fieldNanos = System.nanoTime() - time;
+
+            for (int i = 0; i < agents; i++) {
+                PathResult path = field.getPath(starts[i] % size, starts[i] / size);
+                if (path.getCost() != expected[i] || field.getCost(starts[i]) != expected[i]) {
+                    throw new IllegalStateException("Flow field cost %s from %s, A* found %s".formatted(path.getCost(), starts[i], expected[i]));
+                }
+            }
+
+            time = System.nanoTime();
+            FlowField cached = cache.get(goalX, goalY, options);
+            long cachedNanos = System.nanoTime() - time;
+            if (cached != field) {
+                throw new IllegalStateException("Cache built the same field twice");
+            }
+
+            System.out.printf("%5dx%-5d %d agents%n", size, size, agents);
+            System.out.printf("  %-22s %10d expansions %10.1f ms%n", "A* per agent", aStarExpansions, aStarNanos / 1e6);
+            System.out.printf("  %-22s %10d expansions %10.1f ms (build %.1f ms, %d steps walked)%n", "Flow field",
+                    field.getExpansions(), fieldNanos / 1e6, field.getNanos() / 1e6, steps);
+            System.out.printf("  %-22s %10.3f ms%n", "Cached field", cachedNanos / 1e6);
+        }
+    }
+
+    /**
+     * A field of a plain map is cached, then a wall of mountains is put between the corner and the goal,
+     * the cache has to build the field again
+     */
+    private static void checkWall(QueryOptions options) {
+        ByteTerrainGrid map = new ByteTerrainGrid(32, 8);
+        map.fill(MapField.FLAT);
+        AStar aStar = new AStar(map);
+        FlowFieldCache cache = new FlowFieldCache(aStar);
+        cache.get(31, 0, options);
+
+        int[] wall = new int[7];
+        for (int y = 0; y < wall.length; y++) {
+            wall[y] = y * 32 + 16;
+            map.setField(wall[y], MapField.MOUNTAIN);
+        }
+        aStar.fieldsChanged(wall);
+        double expected = aStar.findeWeg(0, 0, 31, 0, options.withQueueMode(QueryOptions.QueueMode.HEAP)).getCost();
+        double cost = cache.get(31, 0, options).getCost(0);
+        if (cost != expected) {
+            throw new IllegalStateException("Cached flow field kept the cost %s after the map changed, A* found %s".formatted(cost, expected));
+        }
+    }
+
+    private static int randomCell(TerrainGrid map, boolean[] accessible, Random random) {
+        while (true) {
+            int cell = random.nextInt(map.size());
+            if (accessible[map.getOrdinal(cell)]) return cell;
+        }
+    }
+}
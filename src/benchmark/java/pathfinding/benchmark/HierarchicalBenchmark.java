@@ -0,0 +1,180 @@
+package pathfinding.benchmark;
+
+import pathfinding.ByteTerrainGrid;
+import pathfinding.MapField;
+import pathfinding.TerrainGrid;
+import pathfinding.algorithms.AStar;
+import pathfinding.algorithms.ClusterGraph;
+import pathfinding.algorithms.HierarchicalAStar;
+import pathfinding.algorithms.HierarchicalPath;
+import pathfinding.algorithms.PathResult;
+import pathfinding.algorithms.QueryOptions;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Compares hierarchical pathfinding (HPA*) against A* on generated noise maps, before and after patches of the map
+ * are changed through AStar#fieldsChanged
+ * Every query runs with both, the benchmark fails if they disagree on whether there is a path, if HPA* reports a cost
+ * below the optimal one, or if the refined cells are no valid path of exactly the reported cost
+ *
+ * gradle benchmark -Pbenchmark=HierarchicalBenchmark
+ */
+public class HierarchicalBenchmark {
+
+    public static void main(String[] args) {
+        int[] sizes = {250, 500, 1000};
+        int queries = 200;
+        int patches = 500;
+        boolean[] accessible = BenchmarkMaps.defaultAccessible();
+        QueryOptions options = QueryOptions.DEFAULT
+                .withDiagonal(true)
+                .withAccessibleMask(QueryOptions.accessibleMask(MapField.SAND, MapField.FLAT, MapField.FOREST, MapField.MOUNTAIN));
+
+        checkWall(options);
+        for (int size : sizes) {
+            ByteTerrainGrid map = BenchmarkMaps.generate(size, size, BenchmarkMaps.SEED);
+            AStar aStar = new AStar(map);
+            HierarchicalAStar hierarchical = new HierarchicalAStar(aStar);
+            compare("Noise", map, aStar, hierarchical, accessible, size, queries, options);
+
+            Random random = new Random(BenchmarkMaps.SEED);
+            int[] changed = new int[patches * 9];
+            int count = 0;
+            for (int i = 0; i < patches; i++) {
+                count = changePatch(map, size, random.nextInt(map.size()), random, changed, count);
+            }
+            aStar.fieldsChanged(Arrays.copyOf(changed, count));
+            compare("Edited", map, aStar, hierarchical, accessible, size, queries, options);
+        }
+    }
+
+    private static void compare(String name, TerrainGrid map, AStar aStar, HierarchicalAStar hierarchical,
+                                boolean[] accessible, int size, int queries, QueryOptions options) {
+        long time = System.nanoTime();
+        ClusterGraph graph = hierarchical.getGraph(options);
+        System.out.printf("%-6s %5dx%-5d cluster graph of %d nodes and %d edges built in %.1f ms%n", name, size, size,
+                graph.getNodeCount(), graph.getEdgeCount(), (System.nanoTime() - time) / 1e6);
+
+        int[][] pairs = pairs(map, accessible, size, queries);
+        for (int i = 0; i < 2; i++) {
+            run(map, aStar, hierarchical, pairs, size, options);
+        }
+        double[] totals = run(map, aStar, hierarchical, pairs, size, options);
+        System.out.printf("  %-5s %10.0f expansions %10.3f ms/search%n", "A*", totals[0] / queries, totals[1] / 1e6 / queries);
+        System.out.printf("  %-5s %10.0f expansions %10.3f ms/search, refined %.3f ms/search%n", "HPA*",
+                totals[2] / queries, totals[3] / 1e6 / queries, totals[4] / 1e6 / queries);
+        System.out.printf("  cost above optimal %.2f%% on average, %.2f%% at most%n", totals[5] / totals[6] * 100, totals[7] * 100);
+    }
+
+    /**
+     * Expansions and nanoseconds of A*, then expansions, nanoseconds and refine nanoseconds of HPA*,
+     * then the summed extra and optimal costs and the largest relative extra cost
+     */
+    private static double[] run(TerrainGrid map, AStar aStar, HierarchicalAStar hierarchical, int[][] pairs, int size, QueryOptions options) {
+        double[] totals = new double[8];
+        for (int[] pair : pairs) {
+            int sx = pair[0] % size, sy = pair[0] / size, ex = pair[1] % size, ey = pair[1] / size;
+            PathResult optimal = aStar.findeWeg(sx, sy, ex, ey, options);
+            HierarchicalPath path = hierarchical.findPath(sx, sy, ex, ey, options);
+            long time = System.nanoTime();
+            PathResult refined = path.refine();
+            long refineNanos = System.nanoTime() - time;
+
+            if (path.isFound() != optimal.isFound()) {
+                throw new IllegalStateException("HPA* disagrees with A* on whether there is a path: " + optimal + " vs " + refined);
+            }
+            if (path.isFound()) {
+                if (path.getCost() < optimal.getCost()) {
+                    throw new IllegalStateException("HPA* reports a cost below optimal: " + optimal + " vs " + refined);
+                }
+                if (refined.getCost() != path.getCost() || pathCost(map, size, options, refined) != path.getCost()) {
+                    throw new IllegalStateException("Refined path does not have the reported cost " + path.getCost() + ": " + refined);
+                }
+                double extra = path.getCost() - optimal.getCost();
+                totals[5] += extra;
+                totals[6] += optimal.getCost();
+                if (optimal.getCost() > 0) totals[7] = Math.max(totals[7], extra / optimal.getCost());
+            }
+            totals[0] += optimal.getExpansions();
+            totals[1] += optimal.getNanos();
+            totals[2] += path.getExpansions();
+            totals[3] += path.getNanos();
+            totals[4] += refineNanos;
+        }
+        return totals;
+    }
+
+    /**
+     * Cost of walking the cells of the path, fails if two cells in a row are no neighbours or a cell cannot be entered
+     */
+    private static double pathCost(TerrainGrid map, int size, QueryOptions options, PathResult result) {
+        double cost = 0;
+        for (int i = 1; i < result.getPathLength(); i++) {
+            int from = result.getPathIndex(i - 1);
+            int to = result.getPathIndex(i);
+            int dx = Math.abs(to % size - from % size), dy = Math.abs(to / size - from / size);
+            boolean diagonal = dx == 1 && dy == 1;
+            if (Math.max(dx, dy) != 1 || diagonal && !options.isDiagonal() || !options.isAccessible(map.getField(to))) {
+                throw new IllegalStateException("Refined path steps from cell %s to %s: %s".formatted(from, to, result));
+            }
+            cost += map.getField(to).getWeight() + (diagonal ? 0.5 : 0);
+        }
+        return cost;
+    }
+
+    /**
+     * A plain map is searched once, then a wall of mountains is put through its middle, the graph must not keep the old costs
+     */
+    private static void checkWall(QueryOptions options) {
+        ByteTerrainGrid map = new ByteTerrainGrid(32, 8);
+        map.fill(MapField.FLAT);
+        AStar aStar = new AStar(map);
+        HierarchicalAStar hierarchical = new HierarchicalAStar(aStar);
+        hierarchical.findPath(0, 0, 31, 0, options);
+
+        int[] wall = new int[7];
+        for (int y = 0; y < wall.length; y++) {
+            wall[y] = y * 32 + 16;
+            map.setField(wall[y], MapField.MOUNTAIN);
+        }
+        aStar.fieldsChanged(wall);
+        run(map, aStar, hierarchical, new int[][]{ {0, 31} }, 32, options);
+    }
+
+    /**
+     * Turns a 3x3 patch around the cell into a random field type, the changed cells are appended to the array
+     */
+    private static int changePatch(ByteTerrainGrid map, int size, int cell, Random random, int[] changed, int count) {
+        MapField field = MapField.values()[random.nextInt(MapField.values().length)];
+        for (int y = cell / size - 1; y <= cell / size + 1; y++) {
+            for (int x = cell % size - 1; x <= cell % size + 1; x++) {
+                if (x < 0 || y < 0 || x >= size || y >= size) continue;
+                map.setField(y * size + x, field);
+                changed[count++] = y * size + x;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * The far pair of the largest region followed by random pairs of accessible cells
+     */
+    private static int[][] pairs(TerrainGrid map, boolean[] accessible, int size, int count) {
+        Random random = new Random(BenchmarkMaps.SEED);
+        int[][] pairs = new int[count][];
+        pairs[0] = BenchmarkMaps.farPair(map, accessible, size, size);
+        for (int i = 1; i < count; i++) {
+            pairs[i] = new int[]{ randomCell(map, accessible, random), randomCell(map, accessible, random) };
+        }
+        return pairs;
+    }
+
+    private static int randomCell(TerrainGrid map, boolean[] accessible, Random random) {
+        while (true) {
+            int cell = random.nextInt(map.size());
+            if (accessible[map.getOrdinal(cell)]) return cell;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package pathfinding.benchmark;
+
+import pathfinding.ByteTerrainGrid;
+import pathfinding.MapField;
+import pathfinding.TerrainGrid;
+import pathfinding.algorithms.AStar;
+import pathfinding.algorithms.JumpPointSearch;
+import pathfinding.algorithms.PathResult;
+import pathfinding.algorithms.QueryOptions;
+
+import java.util.Random;
+
+/**
+ * Compares A* against jump point search walking its straight runs and looking them up in the jump table (JPS+)
+ * Runs on generated noise maps and on a map of plain FLAT fields, with and without diagonal movement
+ * Every query runs with all three, the benchmark fails if they ever disagree on the path cost
+ *
+ * gradle benchmark -Pbenchmark=JumpPointBenchmark
+ */
+public class JumpPointBenchmark {
+
+    public static void main(String[] args) {
+        int[] sizes = {250, 500, 1000};
+        int queries = 200;
+        boolean[] accessible = BenchmarkMaps.defaultAccessible();
+        QueryOptions diagonal = QueryOptions.DEFAULT
+                .withDiagonal(true)
+                .withAccessibleMask(QueryOptions.accessibleMask(MapField.SAND, MapField.FLAT, MapField.FOREST, MapField.MOUNTAIN));
+
+        for (int size : sizes) {
+            TerrainGrid noise = BenchmarkMaps.generate(size, size, BenchmarkMaps.SEED);
+            ByteTerrainGrid flat = new ByteTerrainGrid(size, size);
+            flat.fill(MapField.FLAT);
+
+            for (QueryOptions options : new QueryOptions[]{ diagonal, diagonal.withDiagonal(false) }) {
+                compare("Noise", noise, accessible, size, queries, options);
+                compare("Flat", flat, accessible, size, queries, options);
+            }
+        }
+    }
+
+    private static void compare(String name, TerrainGrid map, boolean[] accessible, int size, int queries, QueryOptions options) {
+        AStar aStar = new AStar(map);
+        JumpPointSearch jps = new JumpPointSearch(aStar);
+        int[][] pairs = pairs(map, accessible, size, queries);
+
+        long time = System.nanoTime();
+        aStar.getJumpTable(options);
+        System.out.printf("%s %dx%d %s, jump table built in %.1f ms%n", name, size, size,
+                options.isDiagonal() ? "diagonal" : "orthogonal", (System.nanoTime() - time) / 1e6);
+
+        long[][] totals = new long[3][];
+        for (int i = 0; i < 3; i++) {
+            totals[0] = run(pairs, size, (sx, sy, ex, ey) -> aStar.findeWeg(sx, sy, ex, ey, options), null, options);
+            totals[1] = run(pairs, size, (sx, sy, ex, ey) -> jps.findPath(sx, sy, ex, ey, options, false), aStar, options);
+            totals[2] = run(pairs, size, (sx, sy, ex, ey) -> jps.findPath(sx, sy, ex, ey, options, true), aStar, options);
+        }
+        String[] names = {"A*", "JPS", "JPS+"};
+        for (int i = 0; i < 3; i++) {
+            System.out.printf("  %-5s %10d expansions %10.3f ms/search%n", names[i], totals[i][0] / queries, totals[i][1] / 1e6 / queries);
+        }
+    }
+
+    /**
+     * Total expansions and nanoseconds, checks every path cost against A* of the reference engine unless it is null
+     */
+    private static long[] run(int[][] pairs, int size, Search search, AStar reference, QueryOptions options) {
+        long expansions = 0;
+        long nanos = 0;
+        for (int[] pair : pairs) {
+            int sx = pair[0] % size, sy = pair[0] / size, ex = pair[1] % size, ey = pair[1] / size;
+            PathResult result = search.find(sx, sy, ex, ey);
+            if (reference != null) {
+                PathResult expected = reference.findeWeg(sx, sy, ex, ey, options);
+                if (result.getCost() != expected.getCost() || result.getPathLength() == 0 != (expected.getPathLength() == 0)) {
+                    throw new IllegalStateException("Jump point search disagrees with A*: " + expected + " vs " + result);
+                }
+            }
+            expansions += result.getExpansions();
+            nanos += result.getNanos();
+        }
+        return new long[]{ expansions, nanos };
+    }
+
+    private interface Search {
+        PathResult find(int startX, int startY, int endX, int endY);
+    }
+
+    /**
+     * The far pair of the largest region followed by random pairs of accessible cells
+     */
+    private static int[][] pairs(TerrainGrid map, boolean[] accessible, int size, int count) {
+        Random random = new Random(BenchmarkMaps.SEED);
+        int[][] pairs = new int[count][];
+        pairs[0] = BenchmarkMaps.farPair(map, accessible, size, size);
+        for (int i = 1; i < count; i++) {
+            pairs[i] = new int[]{ randomCell(map, accessible, random), randomCell(map, accessible, random) };
+        }
+        return pairs;
+    }
+
+    private static int randomCell(TerrainGrid map, boolean[] accessible, Random random) {
+        while (true) {
+            int cell = random.nextInt(map.size());
+            if (accessible[map.getOrdinal(cell)]) return cell;
+        }
+    }
+}
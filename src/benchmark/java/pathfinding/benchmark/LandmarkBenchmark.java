@@ -0,0 +1,90 @@
+package pathfinding.benchmark;
+
+import pathfinding.MapField;
+import pathfinding.TerrainGrid;
+import pathfinding.algorithms.AStar;
+import pathfinding.algorithms.Landmarks;
+import pathfinding.algorithms.PathResult;
+import pathfinding.algorithms.QueryOptions;
+
+import java.util.Random;
+
+/**
+ * Compares A* with the plain distance heuristics against the landmark heuristics on generated noise maps
+ * Every query runs with both, the benchmark fails if they ever disagree on the path cost
+ *
+ * gradle benchmark -Pbenchmark=LandmarkBenchmark
+ */
+public class LandmarkBenchmark {
+
+    public static void main(String[] args) {
+        int[] sizes = {250, 500, 1000};
+        int queries = 200;
+        boolean[] accessible = BenchmarkMaps.defaultAccessible();
+        QueryOptions distance = QueryOptions.DEFAULT
+                .withDiagonal(true)
+                .withAccessibleMask(QueryOptions.accessibleMask(MapField.SAND, MapField.FLAT, MapField.FOREST, MapField.MOUNTAIN));
+        QueryOptions landmarks = distance.withHeuristicMode(QueryOptions.HeuristicMode.LANDMARKS);
+
+        for (int size : sizes) {
+            TerrainGrid map = BenchmarkMaps.generate(size, size, BenchmarkMaps.SEED);
+            AStar aStar = new AStar(map);
+
+            long time = System.nanoTime();
+            Landmarks built = aStar.getLandmarks(landmarks);
+            System.out.printf("%5dx%-5d %d landmarks built in %.1f ms%n", size, size, built.getCount(), (System.nanoTime() - time) / 1e6);
+
+            int[][] pairs = pairs(map, accessible, size, queries);
+            for (int i = 0; i < 2; i++) {
+                run(aStar, pairs, size, distance);
+                run(aStar, pairs, size, landmarks);
+            }
+
+            long[] plain = run(aStar, pairs, size, distance);
+            long[] alt = run(aStar, pairs, size, landmarks);
+            System.out.printf("%-10s %12d expansions %10.2f ms/search%n", "Distance", plain[0] / queries, plain[1] / 1e6 / queries);
+            System.out.printf("%-10s %12d expansions %10.2f ms/search%n", "Landmarks", alt[0] / queries, alt[1] / 1e6 / queries);
+        }
+    }
+
+    /**
+     * Total expansions and nanoseconds, checks every path cost against the plain heuristics
+     */
+    private static long[] run(AStar aStar, int[][] pairs, int size, QueryOptions options) {
+        long expansions = 0;
+        long nanos = 0;
+        for (int[] pair : pairs) {
+            PathResult result = aStar.findeWeg(pair[0] % size, pair[0] / size, pair[1] % size, pair[1] / size, options);
+            if (options.getHeuristicMode() == QueryOptions.HeuristicMode.LANDMARKS) {
+                PathResult reference = aStar.findeWeg(pair[0] % size, pair[0] / size, pair[1] % size, pair[1] / size,
+                        options.withHeuristicMode(QueryOptions.HeuristicMode.DISTANCE));
+                if (result.getCost() != reference.getCost()) {
+                    throw new IllegalStateException("Heuristics disagree on path cost: " + reference + " vs " + result);
+                }
+            }
+            expansions += result.getExpansions();
+            nanos += result.getNanos();
+        }
+        return new long[]{ expansions, nanos };
+    }
+
+    /**
+     * The far pair of the largest region followed by random pairs of accessible cells
+     */
+    private static int[][] pairs(TerrainGrid map, boolean[] accessible, int size, int count) {
+        Random random = new Random(BenchmarkMaps.SEED);
+        int[][] pairs = new int[count][];
+        pairs[0] = BenchmarkMaps.farPair(map, accessible, size, size);
+        for (int i = 1; i < count; i++) {
+            pairs[i] = new int[]{ randomCell(map, accessible, random), randomCell(map, accessible, random) };
+        }
+        return pairs;
+    }
+
+    private static int randomCell(TerrainGrid map, boolean[] accessible, Random random) {
+        while (true) {
+            int cell = random.nextInt(map.size());
+            if (accessible[map.getOrdinal(cell)]) return cell;
+        }
+    }
+}
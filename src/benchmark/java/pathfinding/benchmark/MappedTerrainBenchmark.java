@@ -0,0 +1,154 @@
+package pathfinding.benchmark;
+
+import pathfinding.ByteTerrainGrid;
+import pathfinding.MapField;
+import pathfinding.MappedTerrainGrid;
+import pathfinding.TerrainGrid;
+import pathfinding.algorithms.AStar;
+import pathfinding.algorithms.PathResult;
+import pathfinding.algorithms.QueryOptions;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Compares terrain on the heap against terrain generated tile by tile into a memory-mapped file, reading every
+ * cell in index order as the caches of the engine do and searching with A*
+ * The benchmark fails if the reopened file differs from the heap grid in any cell, or if A* on the two ever
+ * disagrees on a path cost. A narrow map with an odd width checks the cell lookup beyond square sizes
+ *
+ * gradle benchmark -Pbenchmark=MappedTerrainBenchmark
+ */
+public class MappedTerrainBenchmark {
+
+    // Keeps the reads of #scan from being optimized away
+    private static int checksum;
+
+    public static void main(String[] args) throws IOException {
+        int[] sizes = {1000, 2000};
+        int queries = 100;
+        boolean[] accessible = BenchmarkMaps.defaultAccessible();
+        QueryOptions options = QueryOptions.DEFAULT
+                .withDiagonal(true)
+                .withAccessibleMask(QueryOptions.accessibleMask(MapField.SAND, MapField.FLAT, MapField.FOREST, MapField.MOUNTAIN));
+
+        checkLookup(1531, 977);
+        for (int size : sizes) {
+            Path file = Files.createTempFile("terrain", ".bin");
+            try {
+                long time = System.nanoTime();
+                ByteTerrainGrid heap = BenchmarkMaps.generate(size, size, BenchmarkMaps.SEED);
+                long heapNanos = System.nanoTime() - time;
+
+                time = System.nanoTime();
+                MappedTerrainGrid.create(file, size, size, BenchmarkMaps.noise(BenchmarkMaps.SEED));
+                long fileNanos = System.nanoTime() - time;
+                MappedTerrainGrid mapped = MappedTerrainGrid.open(file);
+                System.out.printf("%5dx%-5d generated in %.1f ms on the heap, %.1f ms into a file of %d KiB%n", size, size,
+                        heapNanos / 1e6, fileNanos / 1e6, Files.size(file) / 1024);
+
+                for (int i = 0; i < heap.size(); i++) {
+                    if (heap.getOrdinal(i) != mapped.getOrdinal(i) || heap.getNoise(i) != mapped.getNoise(i)) {
+                        throw new IllegalStateException("Terrain file differs from the heap grid at cell " + i);
+                    }
+                }
+
+                long heapScan = Long.MAX_VALUE, fileScan = Long.MAX_VALUE;
+                for (int i = 0; i < 20; i++) {
+                    heapScan = Math.min(heapScan, scan(heap));
+                    fileScan = Math.min(fileScan, scan(mapped));
+                }
+                System.out.printf("  cells read in %.2f ms on the heap, %.2f ms from the file, fastest of 20%n", heapScan / 1e6, fileScan / 1e6);
+
+                int[][] pairs = pairs(heap, accessible, size, queries);
+                AStar onHeap = new AStar(heap);
+                AStar onFile = new AStar(mapped);
+                for (int i = 0; i < 2; i++) {
+                    run(onHeap, null, pairs, size, options);
+                    run(onFile, onHeap, pairs, size, options);
+                }
+                report("Heap", queries, run(onHeap, null, pairs, size, options));
+                report("Mapped", queries, run(onFile, onHeap, pairs, size, options));
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    private static void checkLookup(int width, int height) throws IOException {
+        Path file = Files.createTempFile("terrain", ".bin");
+        try {
+            MappedTerrainGrid.create(file, width, height, BenchmarkMaps.noise(BenchmarkMaps.SEED));
+            MappedTerrainGrid mapped = MappedTerrainGrid.open(file);
+            ByteTerrainGrid heap = BenchmarkMaps.generate(width, height, BenchmarkMaps.SEED);
+            for (int i = 0; i < heap.size(); i++) {
+                if (heap.getOrdinal(i) != mapped.getOrdinal(i) || heap.getNoise(i) != mapped.getNoise(i)) {
+                    throw new IllegalStateException("Terrain file of %sx%s differs from the heap grid at cell %s".formatted(width, height, i));
+                }
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Nanoseconds to read the field of every cell
+     */
+    private static long scan(TerrainGrid map) {
+        long time = System.nanoTime();
+        int sum = 0;
+        for (int i = 0; i < map.size(); i++) {
+            sum += map.getOrdinal(i);
+        }
+        long nanos = System.nanoTime() - time;
+        checksum += sum;
+        return nanos;
+    }
+
+    private static void report(String name, int queries, long[] totals) {
+        System.out.printf("  %-7s %10d expansions %10.3f ms/search%n", name, totals[0] / queries, totals[1] / 1e6 / queries);
+    }
+
+    /**
+     * Total expansions and nanoseconds, checks every path cost against the reference engine unless it is null
+     */
+    private static long[] run(AStar engine, AStar reference, int[][] pairs, int size, QueryOptions options) {
+        long expansions = 0;
+        long nanos = 0;
+        for (int[] pair : pairs) {
+            int sx = pair[0] % size, sy = pair[0] / size, ex = pair[1] % size, ey = pair[1] / size;
+            PathResult result = engine.findeWeg(sx, sy, ex, ey, options);
+            if (reference != null) {
+                PathResult expected = reference.findeWeg(sx, sy, ex, ey, options);
+                if (result.getStatus() != expected.getStatus() || result.getCost() != expected.getCost()) {
+                    throw new IllegalStateException("Mapped terrain disagrees with the heap: " + expected + " vs " + result);
+                }
+            }
+            expansions += result.getExpansions();
+            nanos += result.getNanos();
+        }
+        return new long[]{ expansions, nanos };
+    }
+
+    /**
+     * The far pair of the largest region followed by random pairs of accessible cells
+     */
+    private static int[][] pairs(TerrainGrid map, boolean[] accessible, int size, int count) {
+        Random random = new Random(BenchmarkMaps.SEED);
+        int[][] pairs = new int[count][];
+        pairs[0] = BenchmarkMaps.farPair(map, accessible, size, size);
+        for (int i = 1; i < count; i++) {
+            pairs[i] = new int[]{ randomCell(map, accessible, random), randomCell(map, accessible, random) };
+        }
+        return pairs;
+    }
+
+    private static int randomCell(TerrainGrid map, boolean[] accessible, Random random) {
+        while (true) {
+            int cell = random.nextInt(map.size());
+            if (accessible[map.getOrdinal(cell)]) return cell;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package pathfinding.benchmark;
+
+import pathfinding.MapField;
+import pathfinding.TerrainGrid;
+import pathfinding.algorithms.AStar;
+import pathfinding.algorithms.DistanceMatrix;
+import pathfinding.algorithms.PathResult;
+import pathfinding.algorithms.QueryOptions;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Compares a distance matrix between random waypoints against one A* search per pair
+ * Fails if any cost differs from the one A* finds
+ *
+ * gradle benchmark -Pbenchmark=MatrixBenchmark
+ */
+public class MatrixBenchmark {
+
+    public static void main(String[] args) {
+        int[] sizes = {250, 500, 1000};
+        int[] counts = {8, 32};
+        boolean[] accessible = BenchmarkMaps.defaultAccessible();
+        QueryOptions options = QueryOptions.DEFAULT
+                .withDiagonal(true)
+                .withAccessibleMask(QueryOptions.accessibleMask(MapField.SAND, MapField.FLAT, MapField.FOREST, MapField.MOUNTAIN));
+        int threads = Runtime.getRuntime().availableProcessors();
+        // Both pools live for the whole run, their workers keep the search contexts of every engine they served
+        ForkJoinPool single = new ForkJoinPool(1);
+        ForkJoinPool parallel = new ForkJoinPool(threads);
+        try {
+            run(sizes, counts, accessible, options, single, parallel);
+        } finally {
+            single.shutdown();
+            parallel.shutdown();
+        }
+    }
+
+    private static void run(int[] sizes, int[] counts, boolean[] accessible, QueryOptions options, ForkJoinPool singlePool, ForkJoinPool parallelPool) {
+        int threads = parallelPool.getParallelism();
+        for (int size : sizes) {
+            TerrainGrid map = BenchmarkMaps.generate(size, size, BenchmarkMaps.SEED);
+            AStar aStar = new AStar(map);
+            Random random = new Random(BenchmarkMaps.SEED);
+
+            for (int count : counts) {
+                int[] points = new int[count];
+                for (int i = 0; i < count; i++) {
+                    points[i] = randomCell(map, accessible, random);
+                }
+
+                long pairNanos = 0, pairExpansions = 0;
+                double[][] expected = new double[count][count];
+                for (int i = 0; i < count; i++) {
+                    for (int j = 0; j < count; j++) {
+                        PathResult result = aStar.findeWeg(points[i] % size, points[i] / size, points[j] % size, points[j] / size, options);
+                        expected[i][j] = result.getCost();
+                        pairNanos += result.getNanos();
+                        pairExpansions += result.getExpansions();
+                    }
+                }
+
+                DistanceMatrix single = DistanceMatrix.compute(aStar, points, points, options, false, singlePool);
+                DistanceMatrix parallel = DistanceMatrix.compute(aStar, points, points, options.withQueueMode(QueryOptions.QueueMode.BUCKET), true, parallelPool);
+                for (DistanceMatrix matrix : new DistanceMatrix[]{ single, parallel }) {
+                    for (int i = 0; i < count; i++) {
+                        for (int j = 0; j < count; j++) {
+                            if (matrix.getCost(i, j) != expected[i][j]) {
+                                throw new IllegalStateException("Matrix cost %s from %s to %s, A* found %s"
+                                        .formatted(matrix.getCost(i, j), points[i], points[j], expected[i][j]));
+                            }
+                        }
+                    }
+                }
+
+                System.out.printf("%5dx%-5d %3d points%n", size, size, count);
+                System.out.printf("  %-26s %12d expansions %10.1f ms%n", "A* per pair", pairExpansions, pairNanos / 1e6);
+                System.out.printf("  %-26s %12d expansions %10.1f ms%n", "Matrix, 1 thread", single.getExpansions(), single.getNanos() / 1e6);
+                System.out.printf("  %-26s %12d expansions %10.1f ms%n", "Matrix, %d threads, bucket".formatted(threads),
+                        parallel.getExpansions(), parallel.getNanos() / 1e6);
+            }
+        }
+    }
+
+    private static int randomCell(TerrainGrid map, boolean[] accessible, Random random) {
+        while (true) {
+            int cell = random.nextInt(map.size());
+            if (accessible[map.getOrdinal(cell)]) return cell;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package pathfinding.benchmark;
+
+import pathfinding.MapField;
+import pathfinding.TerrainGrid;
+import pathfinding.algorithms.OpenList;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+
+/**
+ * Compares expansions per second of the indexed OpenList against the PriorityQueue
+ * with linear contains/remove that AStar used before
+ * Both run the same Dijkstra search with diagonal movement from corner to corner
+ *
+ * gradle benchmark -Pbenchmark=OpenListBenchmark
+ */
+public class OpenListBenchmark {
+
+    private static final int[][] NEIGHBOUR_COORDS = new int[][]{ {1, 0}, {1, 1}, {0, 1}, {-1, 1}, {-1, 0}, {-1, -1}, {0, -1}, {1, -1} };
+
+    public static void main(String[] args) {
+        int[] sizes = {100, 200, 400, 800, 2000};
+        boolean[] accessible = BenchmarkMaps.defaultAccessible();
+
+        for (int size : sizes) {
+            TerrainGrid map = BenchmarkMaps.generate(size, size, BenchmarkMaps.SEED);
+            int[] pair = BenchmarkMaps.farPair(map, accessible, size, size);
+            int start = pair[0], goal = pair[1];
+
+            // The old queue is quadratic, skip it where it would take minutes
+            if (size <= 400) {
+                run("PriorityQueue", size, () -> legacySearch(map, accessible, size, start, goal));
+            }
+            run("OpenList", size, () -> openListSearch(map, accessible, size, start, goal));
+        }
+    }
+
+    private static void run(String name, int size, Search search) {
+        // Warm up
+        for (int i = 0; i < 10; i++) {
+            search.run();
+        }
+
+        int runs = 10;
+        long expansions = 0;
+        long time = System.nanoTime();
+        for (int i = 0; i < runs; i++) {
+            expansions += search.run();
+        }
+        time = System.nanoTime() - time;
+
+        System.out.printf("%-14s %5dx%-5d %12.0f expansions/s %10.2f ms/search%n",
+                name, size, size, expansions / (time / 1e9), time / 1e6 / runs);
+    }
+
+    private static long openListSearch(TerrainGrid map, boolean[] accessible, int size, int start, int goal) {
+        double[] gCost = new double[map.size()];
+        Arrays.fill(gCost, Double.MAX_VALUE);
+        gCost[start] = 0;
+
+        OpenList openList = new OpenList(map.size());
+        openList.add(start, 0);
+
+        long expansions = 0;
+        while (!openList.isEmpty()) {
+            int index = openList.poll();
+            expansions++;
+            if (index == goal) break;
+
+            int x = index % size;
+            int y = index / size;
+            for (int[] xy : NEIGHBOUR_COORDS) {
+                int nx = x + xy[0];
+                int ny = y + xy[1];
+                if (nx < 0 || ny < 0 || nx >= size || ny >= size) continue;
+
+                int neighbour = ny * size + nx;
+                MapField field = map.getField(neighbour);
+                if (!accessible[field.ordinal()]) continue;
+
+                double g = gCost[index] + field.getWeight() + (xy[0] != 0 && xy[1] != 0 ? 0.5 : 0);
+                if (g < gCost[neighbour]) {
+                    gCost[neighbour] = g;
+                    openList.add(neighbour, g);
+                }
+            }
+        }
+        return expansions;
+    }
+
+    private static long legacySearch(TerrainGrid map, boolean[] accessible, int size, int start, int goal) {
+        LegacyNode[] nodes = new LegacyNode[map.size()];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = new LegacyNode(i);
+        }
+        nodes[start].gCost = 0;
+
+        PriorityQueue<LegacyNode> openQueue = new PriorityQueue<>(Comparator.comparingDouble(n -> n.fCost));
+        openQueue.add(nodes[start]);
+
+        long expansions = 0;
+        while (!openQueue.isEmpty()) {
+            LegacyNode node = openQueue.peek();
+            expansions++;
+            if (node.index == goal) break;
+            openQueue.remove(node);
+
+            int x = node.index % size;
+            int y = node.index / size;
+            for (int[] xy : NEIGHBOUR_COORDS) {
+                int nx = x + xy[0];
+                int ny = y + xy[1];
+                if (nx < 0 || ny < 0 || nx >= size || ny >= size) continue;
+
+                LegacyNode neighbour = nodes[ny * size + nx];
+                MapField field = map.getField(neighbour.index);
+                if (!accessible[field.ordinal()]) continue;
+
+                double g = node.gCost + field.getWeight() + (xy[0] != 0 && xy[1] != 0 ? 0.5 : 0);
+                if (g < neighbour.gCost) {
+                    neighbour.gCost = g;
+                    neighbour.fCost = g;
+                    if (!openQueue.contains(neighbour)) {
+                        openQueue.add(neighbour);
+                    }
+                }
+            }
+        }
+        return expansions;
+    }
+
+    private interface Search {
+        long run();
+    }
+
+    private static class LegacyNode {
+        final int index;
+        double gCost = Double.MAX_VALUE, fCost = Double.MAX_VALUE;
+
+        LegacyNode(int index) {
+            this.index = index;
+        }
+    }
+}
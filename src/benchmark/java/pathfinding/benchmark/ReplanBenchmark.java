@@ -0,0 +1,90 @@
+package pathfinding.benchmark;
+
+import pathfinding.ByteTerrainGrid;
+import pathfinding.MapField;
+import pathfinding.algorithms.AStar;
+import pathfinding.algorithms.DStarLite;
+import pathfinding.algorithms.PathResult;
+import pathfinding.algorithms.QueryOptions;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Changes small patches of terrain next to the current path and compares repairing the search with DStarLite
+ * against A* from scratch, the agent moves one step along the path now and then
+ * Fails if both ever disagree on the path cost
+ *
+ * gradle benchmark -Pbenchmark=ReplanBenchmark
+ */
+public class ReplanBenchmark {
+
+    public static void main(String[] args) {
+        int[] sizes = {250, 500, 1000};
+        int changes = 200;
+        boolean[] accessible = BenchmarkMaps.defaultAccessible();
+        QueryOptions options = QueryOptions.DEFAULT
+                .withDiagonal(true)
+                .withAccessibleMask(QueryOptions.accessibleMask(MapField.SAND, MapField.FLAT, MapField.FOREST, MapField.MOUNTAIN));
+
+        for (int size : sizes) {
+            ByteTerrainGrid map = BenchmarkMaps.generate(size, size, BenchmarkMaps.SEED);
+            int[] pair = BenchmarkMaps.farPair(map, accessible, size, size);
+            int start = pair[0];
+            int goal = pair[1];
+
+            AStar aStar = new AStar(map);
+            DStarLite planner = new DStarLite(aStar, options);
+            PathResult result = planner.plan(start % size, start / size, goal % size, goal / size);
+            System.out.printf("%5dx%-5d initial search %d expansions %.2f ms%n", size, size, result.getExpansions(), result.getNanos() / 1e6);
+
+            Random random = new Random(BenchmarkMaps.SEED);
+            long incrementalExpansions = 0, incrementalNanos = 0;
+            long fullExpansions = 0, fullNanos = 0;
+            for (int i = 0; i < changes; i++) {
+                int[] path = result.isFound() ? result.getPathIndices() : new int[]{ start };
+                int[] changed = changePatch(map, size, path[random.nextInt(path.length)], random);
+                planner.updateCells(changed);
+                if (path.length > 2 && random.nextInt(3) == 0) {
+                    start = path[1];
+                }
+
+                result = planner.plan(start % size, start / size, goal % size, goal / size);
+                incrementalExpansions += result.getExpansions();
+                incrementalNanos += result.getNanos();
+
+                aStar.fieldsChanged(changed);
+                aStar.getComponents(options);
+                PathResult full = aStar.findeWeg(start % size, start / size, goal % size, goal / size, options);
+                fullExpansions += full.getExpansions();
+                fullNanos += full.getNanos();
+                if (full.getCost() != result.getCost()) {
+                    throw new IllegalStateException("Planners disagree on path cost: " + full + " vs " + result);
+                }
+            }
+
+            System.out.printf("%-12s %10d expansions %10.3f ms/replan%n", "Incremental", incrementalExpansions / changes, incrementalNanos / 1e6 / changes);
+            System.out.printf("%-12s %10d expansions %10.3f ms/replan%n", "A*", fullExpansions / changes, fullNanos / 1e6 / changes);
+        }
+    }
+
+    /**
+     * Turns a 3x3 patch close to the cell into a random field type and returns the changed cells
+     */
+    private static int[] changePatch(ByteTerrainGrid map, int size, int cell, Random random) {
+        MapField field = MapField.values()[random.nextInt(MapField.values().length)];
+        int centerX = cell % size + random.nextInt(7) - 3;
+        int centerY = cell / size + random.nextInt(7) - 3;
+
+        int[] cells = new int[9];
+        int count = 0;
+        for (int y = centerY - 1; y <= centerY + 1; y++) {
+            for (int x = centerX - 1; x <= centerX + 1; x++) {
+                if (x < 0 || y < 0 || x >= size || y >= size) continue;
+                map.setField(y * size + x, field);
+                cells[count++] = y * size + x;
+            }
+        }
+        return Arrays.copyOf(cells, count);
+    }
+}
@@ -0,0 +1,70 @@
+package pathfinding;
+
+import java.util.Arrays;
+
+/**
+ * Terrain kept in memory as one byte per cell, the ordinal of its field
+ * The raw noise is quantized to a second byte per cell, allocated only once a cell is set from noise
+ */
+public class ByteTerrainGrid implements TerrainGrid {
+
+    private final int width, height;
+    private final byte[] fields;
+    private byte[] noise;
+
+    public ByteTerrainGrid(int width, int height) {
+        if (width < 0 || height < 0) {
+            throw new IllegalArgumentException("Grid of %sx%s cells has a negative size".formatted(width, height));
+        }
+        this.width = width;
+        this.height = height;
+        this.fields = new byte[Math.multiplyExact(width, height)];
+    }
+
+    /**
+     * Sets the cell from a noise value in 0 ~ 1 range, the field comes from the exact value
+     */
+    public void setNoise(int index, float noise) {
+        if (this.noise == null) {
+            this.noise = new byte[this.fields.length];
+        }
+        this.fields[index] = (byte) MapField.fromNoise(noise).ordinal();
+        this.noise[index] = (byte) (int) (noise * 255);
+    }
+
+    /**
+     * Changes the field of a cell, engines reading the grid need AStar#fieldsChanged afterwards
+     */
+    public void setField(int index, MapField field) {
+        this.fields[index] = (byte) field.ordinal();
+    }
+
+    public void fill(MapField field) {
+        Arrays.fill(this.fields, (byte) field.ordinal());
+    }
+
+    @Override
+    public int getWidth() {
+        return this.width;
+    }
+
+    @Override
+    public int getHeight() {
+        return this.height;
+    }
+
+    @Override
+    public int size() {
+        return this.fields.length;
+    }
+
+    @Override
+    public int getOrdinal(int index) {
+        return this.fields[index];
+    }
+
+    @Override
+    public int getNoise(int index) {
+        return this.noise != null ? this.noise[index] & 0xFF : 0;
+    }
+}
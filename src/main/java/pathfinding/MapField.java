@@ -12,6 +12,9 @@ public enum MapField {
     MOUNTAIN(new Color(129, 129, 129)),
     MOUNTAINTOP(new Color(255, 255, 255));
 
+    // MapField#values clones the array on every call
+    private static final MapField[] VALUES = values();
+
     private final Color colour;
     private final Icon icon;
 
@@ -40,8 +43,29 @@ public enum MapField {
         };
     }
 
-    public boolean isAccessible() {
-        return Main.SETTINGS_PANEL.ACCESSIBLE_FIELDS[this.ordinal()];
+    public static MapField fromOrdinal(int ordinal) {
+        return VALUES[ordinal];
+    }
+
+    /**
+     * Converts a noise value in 0 ~ 1 range into a field type
+     */
+    public static MapField fromNoise(float noise) {
+        if (noise < 0.25) {
+            return DEEP_WATER;
+        } else if (noise < 0.31) {
+            return WATER;
+        } else if (noise < 0.35) {
+            return SAND;
+        } else if (noise < 0.65) {
+            return FLAT;
+        } else if (noise < 0.8) {
+            return FOREST;
+        } else if (noise < 0.9) {
+            return MOUNTAIN;
+        } else {
+            return MOUNTAINTOP;
+        }
     }
 
     private class FieldIcon implements Icon {
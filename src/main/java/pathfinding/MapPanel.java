@@ -2,21 +2,59 @@ package pathfinding;
 
 import library.FastNoiseLite;
 import pathfinding.algorithms.AStar;
+import pathfinding.algorithms.AnytimeAStar;
+import pathfinding.algorithms.AsyncSearch;
+import pathfinding.algorithms.AnytimeSolution;
+import pathfinding.algorithms.BidirectionalSearch;
+import pathfinding.algorithms.BoundedSearch;
 import pathfinding.algorithms.Dijkstra;
+import pathfinding.algorithms.JumpPointSearch;
+import pathfinding.algorithms.PathResult;
+import pathfinding.algorithms.QueryOptions;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
 
 public class MapPanel extends JPanel {
 
+    // Time the anytime search gets to improve its first path
+    private static final long ANYTIME_DEADLINE_NANOS = 100_000_000L;
+    // Searches run one after another on their own thread, so the interface keeps painting
+    private static final ExecutorService SEARCH_EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Pathfinding");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Backward half of the two-thread bidirectional search, the search executor is busy with the forward half
+    private static final ExecutorService BACKWARD_EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Pathfinding backward");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     public final FastNoiseLite noise;
     public AStar pathfinding;
+    public PathResult result;
     public int xMax, yMax;
 
     private int startX, startY, endX, endY;
-    private MapField[] noiseArray;
-    private int[] noiseSW;
+    // Fields and raw noise of the map, null until the next paint generates it
+    private ByteTerrainGrid terrain;
+
+    // Search that is still running, null once it is done or was dropped
+    private CompletableFuture<?> search;
+    // Raised whenever a search starts or is dropped, late chunks and results of older searches are ignored
+    private int searchGeneration;
+    // Cells the running search has closed so far, only touched on the event dispatch thread
+    private final List<int[]> streamed = new ArrayList<>();
 
     public int animIndex;
     /**
@@ -29,7 +67,7 @@ public class MapPanel extends JPanel {
 
         @Override
         public void actionPerformed(ActionEvent e) {
-            int size = pathfinding.CHECKED_FIELDS.size() + pathfinding.PATH_FIELDS.size() - 2;
+            int size = result.getExpanded().size() + result.getPathLength() - 2;
 
             if (minSpeed == -1 || maxSpeed == -1) {
                 minSpeed = Math.max((size > 50000) ? (size / 4000) : ((size > 7500) ? (size / 1500) : (size / 750)), 1);
@@ -60,7 +98,7 @@ public class MapPanel extends JPanel {
         this.addMouseListener(new MouseAdapter() {
             @Override
             public void mousePressed(MouseEvent e) {
-                if (pathfinding == null || pathfinding.PATH_FIELDS.isEmpty()) {
+                if (result == null && !isSearching()) {
                     Point p = e.getPoint();
                     int x = p.x / Main.SETTINGS_PANEL.FIELD_SIZE;
                     int y = p.y / Main.SETTINGS_PANEL.FIELD_SIZE;
@@ -79,7 +117,7 @@ public class MapPanel extends JPanel {
         this.addComponentListener(new ComponentAdapter() {
             @Override
             public void componentResized(ComponentEvent e) {
-                MapPanel.this.noiseArray = null;
+                MapPanel.this.terrain = null;
             }
         });
     }
@@ -92,27 +130,27 @@ public class MapPanel extends JPanel {
         }
         this.xMax = this.getWidth() / Main.SETTINGS_PANEL.FIELD_SIZE;
         this.yMax = this.getHeight() / Main.SETTINGS_PANEL.FIELD_SIZE;
-        this.noiseArray = null;
+        this.terrain = null;
+        this.cancelSearch();
         this.animTimer.stop();
         this.animIndex = -1;
         this.startX = -1;
         this.startY = -1;
         this.endX = -1;
         this.endY = -1;
-        if (this.pathfinding != null && (this.xMax != this.pathfinding.xMax || this.yMax != this.pathfinding.yMax)) {
-            this.pathfinding = null;
-        }
+        // The engine is bound to the map that is about to be regenerated
+        this.pathfinding = null;
+        this.result = null;
     }
 
     /**
-     * Caches noise in an Array
+     * Caches noise in a terrain grid
      * Getting the noise value from noise#GetNoise on each paintComponent call would be really inefficient
      */
     public void cacheNoise() {
         this.reset(false);
         MapPanel.this.noise.SetFrequency(Main.SETTINGS_PANEL.NOISE_FREQUENCY);
-        this.noiseArray = new MapField[this.xMax * this.yMax];
-        this.noiseSW = new int[this.yMax * this.xMax];
+        ByteTerrainGrid terrain = new ByteTerrainGrid(this.xMax, this.yMax);
         for (int y = 0; y < this.yMax; y++) {
             for (int x = 0; x < this.xMax; x++) {
                 float noise = this.noise.GetNoise(x / (float) 2, y  / (float) 2); // returns value in -1 ~ 1 range.
@@ -120,31 +158,16 @@ public class MapPanel extends JPanel {
                 noise = (noise + 1.0f) / 2.0f;
 
                 int index = (this.xMax * y) + x;
-                if (noise < 0.25) {
-                    this.noiseArray[index] = MapField.DEEP_WATER;
-                } else if (noise < 0.31) {
-                    this.noiseArray[index] = MapField.WATER;
-                } else if (noise < 0.35) {
-                    this.noiseArray[index] = MapField.SAND;
-                } else if (noise < 0.65) {
-                    this.noiseArray[index] = MapField.FLAT;
-                } else if (noise < 0.8){
-                    this.noiseArray[index] = MapField.FOREST;
-                } else if (noise < 0.9) {
-                    this.noiseArray[index] = MapField.MOUNTAIN;
-                } else {
-                    this.noiseArray[index] = MapField.MOUNTAINTOP;
-                }
-
-                this.noiseSW[index] = (int) (noise * 255);
+                terrain.setNoise(index, noise);
             }
         }
+        this.terrain = terrain;
     }
 
     @Override
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
-        if (this.noiseArray == null)
+        if (this.terrain == null)
             this.cacheNoise();
 
         this.paintNoise(g);
@@ -159,23 +182,35 @@ public class MapPanel extends JPanel {
 
                 int index = (this.xMax * y) + x;
                 if (Main.SETTINGS_PANEL.SEE_RAW_NOISE.isSelected()) {
-                    g.setColor(new Color(noiseSW[index], noiseSW[index], noiseSW[index]));
-                } else g.setColor(this.noiseArray[index].getColour());
+                    int value = this.terrain.getNoise(index);
+                    g.setColor(new Color(value, value, value));
+                } else g.setColor(this.terrain.getField(index).getColour());
                 fillRect(g, x, y);
             }
         }
     }
 
     private void paintPath(Graphics g) {
-        if (pathfinding != null && this.animIndex != -1) {
-            for (int i = 0; i <= this.animIndex && i < pathfinding.CHECKED_FIELDS.size(); i++) {
-                Point node = pathfinding.CHECKED_FIELDS.get(i);
+        if (!this.streamed.isEmpty()) {
+            g.setColor(new Color(175, 100, 255, 175));
+            for (int[] cells : this.streamed) {
+                for (int index : cells) {
+                    fillRect(g, index % this.xMax, index / this.xMax);
+                }
+            }
+        }
+
+        if (result != null && this.animIndex != -1) {
+            List<Point> checked = result.getExpanded();
+            List<Point> path = result.getPath();
+            for (int i = 0; i <= this.animIndex && i < checked.size(); i++) {
+                Point node = checked.get(i);
                 g.setColor(new Color(175, 100, 255, 175));
                 fillRect(g, node.x, node.y);
             }
 
-            for (int i = 0; i <= this.animIndex - pathfinding.CHECKED_FIELDS.size() + 1 && i < pathfinding.PATH_FIELDS.size(); i++) {
-                Point node = pathfinding.PATH_FIELDS.get(i);
+            for (int i = 0; i <= this.animIndex - checked.size() + 1 && i < path.size(); i++) {
+                Point node = path.get(i);
                 g.setColor(new Color(255, 255,  0, 175));
                 fillRect(g, node.x, node.y);
             }
@@ -197,19 +232,131 @@ public class MapPanel extends JPanel {
         g.fillRect(x * Main.SETTINGS_PANEL.FIELD_SIZE, y * Main.SETTINGS_PANEL.FIELD_SIZE, Main.SETTINGS_PANEL.FIELD_SIZE, Main.SETTINGS_PANEL.FIELD_SIZE);
     }
 
+    public boolean isSearching() {
+        return this.search != null;
+    }
+
+    /**
+     * Stops the running search, whatever it already streamed disappears
+     */
+    public void cancelSearch() {
+        if (this.search != null) {
+            this.search.cancel(false);
+            this.search = null;
+        }
+        this.searchGeneration++;
+        this.streamed.clear();
+    }
+
+    /**
+     * Starts a search in the background, every algorithm streams its closed cells to the screen while it runs
+     */
     public void pathfinding() {
+        if (this.isSearching()) return;
+
         if (Main.SETTINGS_PANEL.USE_DIJKSTRA) {
             if (pathfinding == null || pathfinding.getClass() != Dijkstra.class) {
-                pathfinding = new Dijkstra(xMax, yMax);
+                pathfinding = new Dijkstra(this.terrain);
             }
         } else if (pathfinding == null || pathfinding.getClass() != AStar.class) {
-            pathfinding = new AStar(xMax, yMax);
+            pathfinding = new AStar(this.terrain);
         }
 
         if (startX != -1 && startY != -1 && endX != -1 && endY != -1) {
-            pathfinding.findeWeg(this.startX, this.startY, this.endX, this.endY, this.noiseArray);
-            this.animIndex = -1;
-            this.animTimer.start();
+            // Everything the search needs is read here, the background thread never touches the interface
+            AStar engine = this.pathfinding;
+            int startX = this.startX, startY = this.startY, endX = this.endX, endY = this.endY;
+            QueryOptions options = Main.SETTINGS_PANEL.getQueryOptions();
+            String algorithm = Main.SETTINGS_PANEL.USE_DIJKSTRA ? "Dijkstra" : "A*";
+            int generation = ++this.searchGeneration;
+
+            Function<QueryOptions, Search> run;
+            if (!Main.SETTINGS_PANEL.USE_DIJKSTRA && Main.SETTINGS_PANEL.ANYTIME.isSelected()) {
+                run = query -> {
+                    AnytimeSolution solution = new AnytimeAStar(engine).findPath(startX, startY, endX, endY,
+                            query, System.nanoTime() + ANYTIME_DEADLINE_NANOS, improved -> SwingUtilities.invokeLater(() -> {
+                                if (this.searchGeneration == generation) {
+                                    Main.SETTINGS_PANEL.log("ARA* bound %.3f, path cost %s"
+                                            .formatted(improved.getBound(), improved.getResult().getCost()));
+                                }
+                            }));
+                    return new Search(solution.getResult(), "ARA* (bound %.3f)".formatted(solution.getBound()));
+                };
+            } else if (!Main.SETTINGS_PANEL.USE_DIJKSTRA && Main.SETTINGS_PANEL.BOUNDED.isSelected()) {
+                run = query -> {
+                    double epsilon = Math.max(query.getHeuristicWeight() - 1, 0);
+                    PathResult result = new BoundedSearch(engine).findPath(startX, startY, endX, endY, query, epsilon);
+                    return new Search(result, "Bounded A* (bound %.3f)".formatted(1 + epsilon));
+                };
+            } else if (Main.SETTINGS_PANEL.JUMP_POINTS.isSelected()) {
+                run = query -> new Search(new JumpPointSearch(engine).findPath(startX, startY, endX, endY, query, true), "JPS+ " + algorithm);
+            } else if (Main.SETTINGS_PANEL.BIDIRECTIONAL.isSelected() || Main.SETTINGS_PANEL.TWO_THREADS.isSelected()) {
+                boolean parallel = Main.SETTINGS_PANEL.TWO_THREADS.isSelected();
+                run = query -> new Search(new BidirectionalSearch(engine).findPath(startX, startY, endX, endY, query,
+                        parallel ? BACKWARD_EXECUTOR : null),
+                        "Bidirectional %s%s".formatted(algorithm, parallel ? " (two threads)" : ""));
+            } else {
+                run = query -> new Search(engine.findeWeg(startX, startY, endX, endY, query), algorithm);
+            }
+
+            // Cancelling the future cancels the token every search looks at, so the next one does not queue behind it
+            CompletableFuture<Search> search = new AsyncSearch(engine, SEARCH_EXECUTOR).submit(options,
+                    cells -> SwingUtilities.invokeLater(() -> {
+                        if (this.searchGeneration == generation) this.streamed.add(cells);
+                    }), run);
+            this.search = search;
+            search.whenComplete((result, e) -> SwingUtilities.invokeLater(() -> this.finishSearch(generation, result, e)));
+        }
+    }
+
+    /**
+     * Shows the outcome of a search, runs on the event dispatch thread
+     */
+    private void finishSearch(int generation, Search search, Throwable e) {
+        // Cleared or replaced in the meantime
+        if (this.searchGeneration != generation) return;
+        this.search = null;
+
+        // Streamed cells are already on screen, only the path is left to animate
+        boolean streamed = !this.streamed.isEmpty();
+        this.streamed.clear();
+        if (e != null) {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            cause.printStackTrace();
+            JOptionPane.showMessageDialog(Main.FRAME, "Search failed: " + cause.getMessage());
+            return;
         }
+
+        PathResult result = search.result();
+        String algorithm = search.algorithm();
+        if (!result.isFound() && !result.isPartial()) {
+            JOptionPane.showMessageDialog(Main.FRAME, "No Path Found!");
+            return;
+        }
+        if (result.isPartial()) {
+            algorithm += " (stopped early: %s)".formatted(result.getStatus());
+        }
+
+        String output = """
+                Algorithm: %s
+                Time taken: %s
+                Ops done: %s
+                Path cost: %s
+                Path length: %s"""
+                .formatted(algorithm, (result.getNanos() / 1000000) + "ms",
+                        result.getExpansions(), result.getCost(), Math.max(result.getPathLength() - 2, 0));
+
+        System.out.println(output);
+        Main.SETTINGS_PANEL.log(output);
+
+        this.result = result;
+        this.animIndex = streamed ? result.getExpanded().size() - 1 : -1;
+        this.animTimer.start();
+    }
+
+    /**
+     * Finished search with the name it is logged under
+     */
+    private record Search(PathResult result, String algorithm) {
     }
 }
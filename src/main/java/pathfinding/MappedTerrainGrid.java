@@ -0,0 +1,167 @@
+package pathfinding;
+
+import library.FastNoiseLite;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Terrain in a memory-mapped file, the fields and noise of the map stay off the heap
+ * Cells are stored in square tiles of one page each, so a search that stays in a region only needs a few pages
+ * of the page cache no matter how wide the map is. Reads go straight to the mapped pages without copying
+ * The file holds a header followed by the field ordinals and the quantized raw noise, one byte per cell each
+ * An AStar on this grid reads the cost of a cell from the mapped fields through a weight per field instead of
+ * copying every cell into a cost grid. Its neighbour masks and search state still take several bytes per cell
+ * on the heap, and cells are int indices like on every TerrainGrid, so searchable maps stay bounded by the heap
+ * and by Integer.MAX_VALUE cells
+ */
+public class MappedTerrainGrid implements TerrainGrid {
+
+    private static final int TILE_SHIFT = 6;
+    /**
+     * Cells along a side of a tile, a tile of 64x64 bytes fills a 4 KiB page
+     */
+    public static final int TILE_SIZE = 1 << TILE_SHIFT;
+    // "TERR", written last so files that were not generated completely cannot be opened
+    private static final int MAGIC = 0x54455252;
+    // Magic, width, height and tile size
+    private static final int HEADER_SIZE = 16;
+
+    private final int width, height;
+    private final int tilesPerRow;
+    // Row of a cell index is (index * rowMultiplier) >>> rowShift, a division by the width without the division
+    private final long rowMultiplier;
+    private final int rowShift;
+    private final MappedByteBuffer fields;
+    private final MappedByteBuffer noise;
+
+    private MappedTerrainGrid(int width, int height, MappedByteBuffer fields, MappedByteBuffer noise) {
+        this.width = width;
+        this.height = height;
+        this.tilesPerRow = tiles(width);
+        // Rounded up reciprocal of the width with 31 bits more than the width has, exact for every non-negative int
+        int widthBits = 32 - Integer.numberOfLeadingZeros(Math.max(width, 1) - 1);
+        this.rowShift = 31 + widthBits;
+        this.rowMultiplier = ((1L << this.rowShift) + Math.max(width, 1) - 1) / Math.max(width, 1);
+        this.fields = fields;
+        this.noise = noise;
+    }
+
+    /**
+     * Generates a map into the file the same way MapPanel#cacheNoise does, one tile after another
+     * Only the tile that is being written has to be in memory, the operating system writes the pages back
+     */
+    public static MappedTerrainGrid create(Path file, int width, int height, FastNoiseLite noise) throws IOException {
+        long cells = paddedCells(width, height);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer fields = channel.map(FileChannel.MapMode.READ_WRITE, HEADER_SIZE, cells);
+            MappedByteBuffer noiseBytes = channel.map(FileChannel.MapMode.READ_WRITE, HEADER_SIZE + cells, cells);
+            MappedTerrainGrid grid = new MappedTerrainGrid(width, height, fields, noiseBytes);
+
+            for (int tileY = 0; tileY < height; tileY += TILE_SIZE) {
+                for (int tileX = 0; tileX < width; tileX += TILE_SIZE) {
+                    for (int y = tileY; y < Math.min(tileY + TILE_SIZE, height); y++) {
+                        for (int x = tileX; x < Math.min(tileX + TILE_SIZE, width); x++) {
+                            // Convert -1 ~ 1 into 0 ~ 1 range
+                            float value = (noise.GetNoise(x / (float) 2, y / (float) 2) + 1.0f) / 2.0f;
+                            int offset = grid.offset(x, y);
+                            fields.put(offset, (byte) MapField.fromNoise(value).ordinal());
+                            noiseBytes.put(offset, (byte) (int) (value * 255));
+                        }
+                    }
+                }
+            }
+            fields.force();
+            noiseBytes.force();
+
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+            header.putInt(4, width).putInt(8, height).putInt(12, TILE_SIZE).putInt(0, MAGIC);
+            header.force();
+            return grid;
+        }
+    }
+
+    /**
+     * Maps a file written by #create, read only
+     */
+    public static MappedTerrainGrid open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = channel.size() >= HEADER_SIZE ? channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE) : null;
+            if (header == null || header.getInt(0) != MAGIC || header.getInt(12) != TILE_SIZE) {
+                throw new IOException("%s is not a terrain file".formatted(file));
+            }
+
+            int width = header.getInt(4);
+            int height = header.getInt(8);
+            long cells = paddedCells(width, height);
+            if (channel.size() < HEADER_SIZE + 2 * cells) {
+                throw new IOException("%s is too short for a map of %sx%s".formatted(file, width, height));
+            }
+            return new MappedTerrainGrid(width, height,
+                    channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, cells),
+                    channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + cells, cells));
+        }
+    }
+
+    /**
+     * Cells of the file including the unused part of the last tile in every row and column
+     */
+    private static long paddedCells(int width, int height) {
+        if (width < 0 || height < 0) {
+            throw new IllegalArgumentException("Grid of %sx%s cells has a negative size".formatted(width, height));
+        }
+        long cells = (long) tiles(width) * tiles(height) << (2 * TILE_SHIFT);
+        // Cells are indexed by int, and a single mapping cannot be larger
+        if ((long) width * height > Integer.MAX_VALUE || cells > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Map of %sx%s is too large for a terrain file".formatted(width, height));
+        }
+        return cells;
+    }
+
+    private static int tiles(int cells) {
+        return (int) ((cells + TILE_SIZE - 1L) >> TILE_SHIFT);
+    }
+
+    /**
+     * Position of the cell in the file, relative to the start of a plane
+     */
+    private int offset(int index) {
+        int y = (int) ((index * this.rowMultiplier) >>> this.rowShift);
+        return this.offset(index - y * this.width, y);
+    }
+
+    private int offset(int x, int y) {
+        int tile = (y >> TILE_SHIFT) * this.tilesPerRow + (x >> TILE_SHIFT);
+        return (tile << (2 * TILE_SHIFT)) | ((y & (TILE_SIZE - 1)) << TILE_SHIFT) | (x & (TILE_SIZE - 1));
+    }
+
+    @Override
+    public int getWidth() {
+        return this.width;
+    }
+
+    @Override
+    public int getHeight() {
+        return this.height;
+    }
+
+    @Override
+    public int getOrdinal(int index) {
+        return this.fields.get(this.offset(index));
+    }
+
+    @Override
+    public int getNoise(int index) {
+        return this.noise.get(this.offset(index)) & 0xFF;
+    }
+
+    @Override
+    public boolean isOffHeap() {
+        return true;
+    }
+}
@@ -1,5 +1,7 @@
 package pathfinding;
 
+import pathfinding.algorithms.QueryOptions;
+
 import javax.swing.*;
 import javax.swing.text.NumberFormatter;
 import java.awt.*;
@@ -7,6 +9,7 @@ import java.awt.event.ItemEvent;
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 public class SettingsPanel extends JPanel {
 
@@ -20,6 +23,13 @@ public class SettingsPanel extends JPanel {
     public boolean DIAGONAL_MOVEMENT = false;
     public JCheckBox TIE_BREAK;
     public JFormattedTextField HEURISTICS_WEIGHT;
+    public JCheckBox BUCKET_QUEUE;
+    public JCheckBox LANDMARKS;
+    public JCheckBox ANYTIME;
+    public JCheckBox BOUNDED;
+    public JCheckBox BIDIRECTIONAL;
+    public JCheckBox TWO_THREADS;
+    public JCheckBox JUMP_POINTS;
 
     public JTextArea LOG;
 
@@ -133,9 +143,9 @@ public class SettingsPanel extends JPanel {
 
             JButton button = new JButton("Find Path");
             button.addActionListener(e -> {
-                if (Main.MAP_PANEL.pathfinding != null && !Main.MAP_PANEL.pathfinding.PATH_FIELDS.isEmpty()) {
-                    if (Main.MAP_PANEL.animIndex < Main.MAP_PANEL.pathfinding.CHECKED_FIELDS.size()) {
-                        Main.MAP_PANEL.animIndex = Main.MAP_PANEL.pathfinding.CHECKED_FIELDS.size();
+                if (Main.MAP_PANEL.result != null) {
+                    if (Main.MAP_PANEL.animIndex < Main.MAP_PANEL.result.getExpanded().size()) {
+                        Main.MAP_PANEL.animIndex = Main.MAP_PANEL.result.getExpanded().size();
                     }
                 } else Main.MAP_PANEL.pathfinding();
             });
@@ -145,10 +155,8 @@ public class SettingsPanel extends JPanel {
 
             button = new JButton("Clear");
             button.addActionListener(e -> {
-                if (Main.MAP_PANEL.pathfinding != null) {
-                    Main.MAP_PANEL.pathfinding.PATH_FIELDS.clear();
-                    Main.MAP_PANEL.pathfinding.CHECKED_FIELDS.clear();
-                }
+                Main.MAP_PANEL.cancelSearch();
+                Main.MAP_PANEL.result = null;
                 Main.MAP_PANEL.animTimer.stop();
                 Main.MAP_PANEL.animIndex = -1;
             });
@@ -170,6 +178,10 @@ public class SettingsPanel extends JPanel {
                 if (e.getStateChange() == ItemEvent.SELECTED) {
                     HEURISTICS_WEIGHT.setVisible(false);
                     TIE_BREAK.setVisible(false);
+                    LANDMARKS.setVisible(false);
+                    ANYTIME.setVisible(false);
+                    BOUNDED.setVisible(false);
+                    BUCKET_QUEUE.setVisible(true);
                     USE_DIJKSTRA = true;
                     SettingsPanel.this.updateUI();
                     SettingsPanel.this.validate();
@@ -185,6 +197,10 @@ public class SettingsPanel extends JPanel {
                 if (e.getStateChange() == ItemEvent.SELECTED) {
                     HEURISTICS_WEIGHT.setVisible(true);
                     TIE_BREAK.setVisible(true);
+                    LANDMARKS.setVisible(true);
+                    ANYTIME.setVisible(true);
+                    BOUNDED.setVisible(true);
+                    BUCKET_QUEUE.setVisible(false);
                     USE_DIJKSTRA = false;
                     SettingsPanel.this.updateUI();
                     SettingsPanel.this.validate();
@@ -205,6 +221,18 @@ public class SettingsPanel extends JPanel {
             });
             panel.add(checkDiagonal, gbc);
 
+            gbc.gridx++;
+
+            BIDIRECTIONAL = new JCheckBox("Bidirectional");
+            BIDIRECTIONAL.setToolTipText("Search from both ends until the frontiers meet. Always finds the optimal path cost, the heuristics weight is not used.");
+            panel.add(BIDIRECTIONAL, gbc);
+
+            gbc.gridx++;
+
+            TWO_THREADS = new JCheckBox("Two threads");
+            TWO_THREADS.setToolTipText("Run the bidirectional search from each end on its own thread.");
+            panel.add(TWO_THREADS, gbc);
+
             return panel;
         }, __gbc);
 
@@ -231,6 +259,39 @@ public class SettingsPanel extends JPanel {
             TIE_BREAK.setVisible(false);
             panel.add(TIE_BREAK, gbc);
 
+            gbc.gridx++;
+
+            LANDMARKS = new JCheckBox("Landmarks");
+            LANDMARKS.setToolTipText("Estimate the remaining cost from distances to precomputed landmarks. The first search on a new map takes longer.");
+            LANDMARKS.setVisible(false);
+            panel.add(LANDMARKS, gbc);
+
+            gbc.gridx++;
+
+            ANYTIME = new JCheckBox("Anytime");
+            ANYTIME.setToolTipText("Start with the heuristics weight and keep lowering it until the path is optimal or the time is up.");
+            ANYTIME.setVisible(false);
+            panel.add(ANYTIME, gbc);
+
+            gbc.gridx++;
+
+            BOUNDED = new JCheckBox("Bounded");
+            BOUNDED.setToolTipText("Find a path costing at most the heuristics weight times the optimal cost, the tie-break is not used.");
+            BOUNDED.setVisible(false);
+            panel.add(BOUNDED, gbc);
+
+            gbc.gridx++;
+
+            BUCKET_QUEUE = new JCheckBox("Bucket Queue");
+            BUCKET_QUEUE.setToolTipText("Use a bucket queue over the field weights instead of a heap. Finds the same path.");
+            panel.add(BUCKET_QUEUE, gbc);
+
+            gbc.gridx++;
+
+            JUMP_POINTS = new JCheckBox("Jump Points");
+            JUMP_POINTS.setToolTipText("Jump across patches of a single field instead of expanding every cell. Finds the optimal path cost with a heuristics weight of 1, a higher weight can find a costlier path like it does for A*.");
+            panel.add(JUMP_POINTS, gbc);
+
             return panel;
         }, __gbc);
 
@@ -294,6 +355,39 @@ public class SettingsPanel extends JPanel {
         this.addComponent(JPanel::new, __gbc);
     }
 
+    /**
+     * Snapshot of the current pathfinding settings, the search itself never reads the interface
+     */
+    public QueryOptions getQueryOptions() {
+        int accessibleMask = 0;
+        for (int i = 0; i < ACCESSIBLE_FIELDS.length; i++) {
+            if (ACCESSIBLE_FIELDS[i]) {
+                accessibleMask |= 1 << i;
+            }
+        }
+
+        return QueryOptions.DEFAULT
+                .withDiagonal(DIAGONAL_MOVEMENT)
+                .withHeuristicWeight(Double.parseDouble(HEURISTICS_WEIGHT.getText()))
+                .withTieBreak(TIE_BREAK.isSelected())
+                .withHeuristicMode(LANDMARKS.isSelected() ? QueryOptions.HeuristicMode.LANDMARKS : QueryOptions.HeuristicMode.DISTANCE)
+                .withAccessibleMask(accessibleMask)
+                .withQueueMode(USE_DIJKSTRA && BUCKET_QUEUE.isSelected() ? QueryOptions.QueueMode.BUCKET : QueryOptions.QueueMode.HEAP)
+                .withRecordExpanded(true);
+    }
+
+    public void log(String output) {
+        if (LOG.getText().lines().count() >= 10) {
+            String string = LOG.getText().lines().skip(6).collect(Collectors.joining("\n"));
+            LOG.setText(string + "\n\n" + output);
+        } else {
+            if (!LOG.getText().isBlank()) {
+                LOG.setText(LOG.getText() + "\n\n");
+            }
+            LOG.setText(LOG.getText() + output);
+        }
+    }
+
     private JPanel fieldTypeCheckbox(MapField field, boolean checked) {
         JPanel panel = new JPanel();
         JLabel label = new JLabel(field.getIcon());
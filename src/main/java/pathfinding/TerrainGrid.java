@@ -0,0 +1,37 @@
+package pathfinding;
+
+/**
+ * Read-only view of the terrain, the field of every cell indexed by y * width + x
+ * Shared by the search engine and the map panel, so neither depends on how the cells are stored
+ */
+public interface TerrainGrid {
+
+    int getWidth();
+
+    int getHeight();
+
+    default int size() {
+        return this.getWidth() * this.getHeight();
+    }
+
+    /**
+     * Ordinal of the MapField of the cell, cheaper than #getField when only masks are tested
+     */
+    int getOrdinal(int index);
+
+    default MapField getField(int index) {
+        return MapField.fromOrdinal(this.getOrdinal(index));
+    }
+
+    /**
+     * Raw noise the cell was generated from in 0 ~ 255 range, 0 if the grid keeps no noise
+     */
+    int getNoise(int index);
+
+    /**
+     * Whether the cells are kept outside of the heap, engines then read them in place instead of copying every cell
+     */
+    default boolean isOffHeap() {
+        return false;
+    }
+}
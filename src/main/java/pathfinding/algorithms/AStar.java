@@ -1,163 +1,444 @@
 package pathfinding.algorithms;
 
 import pathfinding.MapField;
-import pathfinding.Main;
-
-import javax.swing.*;
-import java.awt.*;
-import java.util.*;
-import java.util.List;
-import java.util.stream.Collectors;
-
+import pathfinding.TerrainGrid;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pathfinding engine bound to a single map
+ * Queries only read the map and the given options and keep their state in a SearchContext per thread,
+ * so one instance can serve queries from many threads at once
+ */
 public class AStar {
 
-    private static final int[][] NEIGHBOUR_COORDS = new int[][]{ {1, 0}, {1, 1}, {0, 1}, {-1, 1}, {-1, 0}, {-1, -1}, {0, -1}, {1, -1} };
+    protected static final int[][] NEIGHBOUR_COORDS = new int[][]{ {1, 0}, {1, 1}, {0, 1}, {-1, 1}, {-1, 0}, {-1, -1}, {0, -1}, {1, -1} };
     private static final double DIAGONAL_DISTANCE = Math.sqrt(2) - 2;
-
-    public final List<Point> PATH_FIELDS = new ArrayList<>();
-    public final List<Point> CHECKED_FIELDS = new ArrayList<>();
+    // How many expansions happen between two looks at the clock and the cancellation token
+    private static final int BUDGET_CHECK_INTERVAL = 256;
+    // Closed cells handed to the expansion listener at once
+    protected static final int EXPANSION_CHUNK_SIZE = 512;
+
+    /**
+     * Steps per cost unit of CostMode.FIXED_POINT, weights are multiples of 0.5 and the rest only refines the heuristics
+     */
+    public static final int FIXED_POINT_SCALE = 16;
+    private static final int FIXED_MAX_WEIGHT = (int) (Arrays.stream(MapField.values()).mapToDouble(MapField::getWeight).max().orElse(0) * FIXED_POINT_SCALE);
+    private static final int FIXED_DIAGONAL = FIXED_POINT_SCALE / 2;
 
     public final int xMax, yMax;
-
-    public AStar(int xMax, int yMax) {
-        this.xMax = xMax;
-        this.yMax = yMax;
+    protected final TerrainGrid terrain;
+
+    private final ThreadLocal<SearchContext> contexts;
+    // Built on first use, keyed by accessibility mask and movement type
+    private final Map<Integer, ComponentIndex> components = new ConcurrentHashMap<>();
+    // Keyed by landmark count, accessibility mask and movement type
+    private final Map<Long, Landmarks> landmarks = new ConcurrentHashMap<>();
+    // Keyed by accessibility mask and movement type
+    private final Map<Integer, NeighbourMasks> neighbourMasks = new ConcurrentHashMap<>();
+    // Replaced as a whole, so a change of the map can never be undone by a grid that was built before it
+    private volatile CostGrids costGrids = new CostGrids(Map.of(), null);
+    // Held while cost grids or neighbour masks are built or patched
+    private final Object cacheLock = new Object();
+    // Keyed by accessibility mask
+    private final Map<Integer, JumpTable> jumpTables = new ConcurrentHashMap<>();
+    // Heuristics ask for the landmarks on every call, most queries in a row use the same ones
+    private volatile Landmarks lastLandmarks;
+    // Raised whenever the map changed, caches kept outside of the engine compare it to notice
+    private final AtomicInteger terrainVersion = new AtomicInteger();
+
+    public AStar(TerrainGrid terrain) {
+        this.xMax = terrain.getWidth();
+        this.yMax = terrain.getHeight();
+        this.terrain = terrain;
+        this.contexts = ThreadLocal.withInitial(() -> new SearchContext(terrain.size()));
     }
 
-    public void findeWeg(int startX, int startY, int endX, int endY, MapField[] fieldMap) {
-        Node[] nodeMap = createNodeMap(fieldMap);
+    public PathResult findeWeg(int startX, int startY, int endX, int endY, QueryOptions options) {
+        if (!isPointWithinBounds(startX, startY) || !isPointWithinBounds(endX, endY)) {
+            throw new IllegalArgumentException("Start %s,%s or goal %s,%s is outside of the map".formatted(startX, startY, endX, endY));
+        }
 
+        long startTime = System.nanoTime();
         final int startIndex = calcIndex(startX, startY);
-        nodeMap[startIndex].parentId = -1;
-        nodeMap[startIndex].gCost = 0;
-        nodeMap[startIndex].fCost = heuristics(nodeMap, startX, startY, endX, endY);
-
-        PriorityQueue<Node> openQueue = new PriorityQueue<>(Comparator.comparingDouble(n -> n.fCost));
-        openQueue.add(nodeMap[startIndex]);
-
-        Map<Integer, Node> closedMap = new LinkedHashMap<>();
-
-        long startTime = System.currentTimeMillis();
-        while (!openQueue.isEmpty()) {
-            Node node = openQueue.peek();
-            int index = calcIndex(node.x, node.y);
-
-            if (node.x == endX && node.y == endY) {
-                long timeDiff = System.currentTimeMillis() - startTime;
-                int opsDone = closedMap.size() + 1; // +1, because last node was not added to closedMap
-                double score = node.gCost;
-                CHECKED_FIELDS.addAll(closedMap.values());
-                PATH_FIELDS.addAll(fetchPath(closedMap, node));
-
-                String output = """
-                        Algorithm: %s
-                        Time taken: %s
-                        Ops done: %s
-                        Path cost: %s
-                        Path length: %s"""
-                        .formatted(Main.SETTINGS_PANEL.USE_DIJKSTRA ? "Dijkstra" : "A*", timeDiff + "ms", opsDone, score, PATH_FIELDS.size());
-
-                System.out.println(output);
-
-                if (Main.SETTINGS_PANEL.LOG.getText().lines().count() >= 10) {
-                    String string = Main.SETTINGS_PANEL.LOG.getText().lines().skip(6).collect(Collectors.joining("\n"));
-                    Main.SETTINGS_PANEL.LOG.setText(string + "\n\n" + output);
-                } else {
-                    if (!Main.SETTINGS_PANEL.LOG.getText().isBlank()) {
-                        Main.SETTINGS_PANEL.LOG.setText(Main.SETTINGS_PANEL.LOG.getText() + "\n\n");
-                    }
-                    Main.SETTINGS_PANEL.LOG.setText(Main.SETTINGS_PANEL.LOG.getText() + output);
+        final int endIndex = calcIndex(endX, endY);
+
+        // Goal lies in another region, searching would only drain the start's region
+        if (!getComponents(options).isReachable(startIndex, endIndex)) {
+            return PathResult.noPath(this.xMax, new int[0], 0, System.nanoTime() - startTime);
+        }
+
+        if (options.getCostMode() == QueryOptions.CostMode.FIXED_POINT) {
+            return this.findeWegFixed(startIndex, endIndex, options, startTime);
+        }
+
+        NeighbourMasks neighbours = getNeighbourMasks(options);
+        CostGrid costs = getCostGrid(options);
+        SearchContext context = this.contexts.get();
+        context.reset();
+        context.setNode(startIndex, 0, -1);
+
+        OpenSet openList = openSet(context, options);
+        openList.add(startIndex, heuristics(options, startX, startY, endX, endY));
+
+        // Closest cell to the goal so far, where a partial path leads if the search is stopped early
+        boolean budget = options.hasBudget();
+        int closest = startIndex;
+        double closestDistance = budget ? distance(options, startX, startY, endX, endY) : 0;
+        // Closed cells the listener has already been given
+        ExpansionListener listener = options.getExpansionListener();
+        int streamed = 0;
+
+        while (!openList.isEmpty()) {
+            if (budget) {
+                PathResult.Status stop = exceededBudget(options, context.getExpandedCount(), startTime);
+                if (stop != null) {
+                    streamExpanded(context, listener, streamed);
+                    return new PathResult(stop, this.xMax, fetchPath(context, closest), expanded(context, options),
+                            context.getGCost(closest), context.getExpandedCount(), System.nanoTime() - startTime);
                 }
-                return;
             }
 
-            openQueue.remove(node);
-            closedMap.put(index, node);
+            int index = openList.poll();
+            int nodeX = index % this.xMax;
+            int nodeY = index / this.xMax;
+
+            if (index == endIndex) {
+                streamExpanded(context, listener, streamed);
+                // +1, because last node was not closed
+                return new PathResult(PathResult.Status.FOUND, this.xMax, fetchPath(context, index), expanded(context, options),
+                        context.getGCost(index), context.getExpandedCount() + 1, System.nanoTime() - startTime);
+            }
 
-            for (int[] xy : NEIGHBOUR_COORDS) {
-                boolean f = false;
-                if (xy[0] != 0 && xy[1] != 0) {
-                    if (!Main.SETTINGS_PANEL.DIAGONAL_MOVEMENT) continue;
-                    f = true;
+            context.close(index);
+            if (listener != null && context.getExpandedCount() - streamed >= EXPANSION_CHUNK_SIZE) {
+                streamed = streamExpanded(context, listener, streamed);
+            }
+            if (budget) {
+                double distance = distance(options, nodeX, nodeY, endX, endY);
+                if (distance < closestDistance) {
+                    closest = index;
+                    closestDistance = distance;
                 }
+            }
 
-                int x = node.x + xy[0];
-                int y = node.y + xy[1];
-                if (!isPointWithinBounds(x, y)) continue;
+            double gCost = context.getGCost(index);
+            for (int bits = neighbours.getMask(index); bits != 0; bits &= bits - 1) {
+                int d = Integer.numberOfTrailingZeros(bits);
+                int index_ = index + neighbours.getOffset(d);
+                double tentative_gScore = gCost + costs.getCost(index_) + ((d & 1) != 0 ? 0.5 : 0);
 
-                int index_ = calcIndex(x, y);
-                Node neighbour = nodeMap[index_];
+                if (tentative_gScore < context.getGCost(index_)) {
+                    context.setNode(index_, tentative_gScore, index);
+                    openList.add(index_, tentative_gScore + heuristics(options, nodeX + NEIGHBOUR_COORDS[d][0], nodeY + NEIGHBOUR_COORDS[d][1], endX, endY));
+                }
+            }
+        }
+        streamExpanded(context, listener, streamed);
+        return PathResult.noPath(this.xMax, expanded(context, options), context.getExpandedCount(), System.nanoTime() - startTime);
+    }
 
-                if (neighbour.field.isAccessible()) {
-                    double tentative_gScore = node.gCost + neighbour.field.getWeight() + (f ? 0.5 : 0);
+    /**
+     * Same search as findeWeg with int costs and an int heap, f keys are the exact g plus the heuristics rounded down
+     */
+    private PathResult findeWegFixed(int startIndex, int endIndex, QueryOptions options, long startTime) {
+        if (options.getQueueMode() == QueryOptions.QueueMode.BUCKET) {
+            throw new IllegalArgumentException("Fixed-point costs bring their own int heap, the bucket queue cannot be used with them");
+        }
+        // Costs and keys have to fit an int, with the heuristics at most as large as a path over every cell
+        long maxCost = (long) this.terrain.size() * (FIXED_MAX_WEIGHT + FIXED_DIAGONAL);
+        if (maxCost * (1 + Math.ceil(options.getHeuristicScale())) > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Map of %sx%s is too large for fixed-point costs".formatted(this.xMax, this.yMax));
+        }
+
+        final int endX = endIndex % this.xMax;
+        final int endY = endIndex / this.xMax;
+
+        NeighbourMasks neighbours = getNeighbourMasks(options);
+        CostGrid costs = getCostGrid(options);
+        SearchContext context = this.contexts.get();
+        context.reset();
+        IntOpenList openList = context.intOpenList();
+        context.setFixedNode(startIndex, 0, -1);
+        openList.add(startIndex, this.fixedHeuristics(options, startIndex % this.xMax, startIndex / this.xMax, endX, endY));
+
+        boolean budget = options.hasBudget();
+        int closest = startIndex;
+        double closestDistance = budget ? distance(options, startIndex % this.xMax, startIndex / this.xMax, endX, endY) : 0;
+        ExpansionListener listener = options.getExpansionListener();
+        int streamed = 0;
+
+        while (!openList.isEmpty()) {
+            if (budget) {
+                PathResult.Status stop = exceededBudget(options, context.getExpandedCount(), startTime);
+                if (stop != null) {
+                    streamExpanded(context, listener, streamed);
+                    return new PathResult(stop, this.xMax, fetchPath(context, closest), expanded(context, options),
+                            context.getFixedCost(closest) / (double) FIXED_POINT_SCALE, context.getExpandedCount(), System.nanoTime() - startTime);
+                }
+            }
 
-                    if (tentative_gScore < neighbour.gCost) {
-                        neighbour.parentId = index;
-                        neighbour.gCost = tentative_gScore;
-                        neighbour.fCost = tentative_gScore + heuristics(nodeMap, x, y, endX, endY);
-                        if (!openQueue.contains(neighbour)) {
-                            openQueue.add(neighbour);
-                        }
-                    }
+            int index = openList.poll();
+            int nodeX = index % this.xMax;
+            int nodeY = index / this.xMax;
+
+            if (index == endIndex) {
+                streamExpanded(context, listener, streamed);
+                return new PathResult(PathResult.Status.FOUND, this.xMax, fetchPath(context, index), expanded(context, options),
+                        context.getFixedCost(index) / (double) FIXED_POINT_SCALE, context.getExpandedCount() + 1, System.nanoTime() - startTime);
+            }
+
+            context.close(index);
+            if (listener != null && context.getExpandedCount() - streamed >= EXPANSION_CHUNK_SIZE) {
+                streamed = streamExpanded(context, listener, streamed);
+            }
+            if (budget) {
+                double distance = distance(options, nodeX, nodeY, endX, endY);
+                if (distance < closestDistance) {
+                    closest = index;
+                    closestDistance = distance;
                 }
             }
+
+            int cost = context.getFixedCost(index);
+            for (int bits = neighbours.getMask(index); bits != 0; bits &= bits - 1) {
+                int d = Integer.numberOfTrailingZeros(bits);
+                int neighbour = index + neighbours.getOffset(d);
+                int tentative = cost + (int) (costs.getCost(neighbour) * FIXED_POINT_SCALE) + ((d & 1) != 0 ? FIXED_DIAGONAL : 0);
+                if (tentative < context.getFixedCost(neighbour)) {
+                    context.setFixedNode(neighbour, tentative, index);
+                    openList.add(neighbour, tentative + this.fixedHeuristics(options, nodeX + NEIGHBOUR_COORDS[d][0], nodeY + NEIGHBOUR_COORDS[d][1], endX, endY));
+                }
+            }
+        }
+        streamExpanded(context, listener, streamed);
+        return PathResult.noPath(this.xMax, expanded(context, options), context.getExpandedCount(), System.nanoTime() - startTime);
+    }
+
+    /**
+     * Heuristics in fixed-point steps, rounded down so an admissible and consistent estimate stays one
+     */
+    private int fixedHeuristics(QueryOptions options, int x, int y, int endX, int endY) {
+        return (int) (this.heuristics(options, x, y, endX, endY) * FIXED_POINT_SCALE);
+    }
+
+    protected OpenSet openSet(SearchContext context, QueryOptions options) {
+        if (options.getQueueMode() == QueryOptions.QueueMode.BUCKET) {
+            throw new IllegalArgumentException("The bucket queue needs keys in whole half-steps, only Dijkstra can use it");
         }
-        JOptionPane.showMessageDialog(Main.FRAME, "No Path Found!");
+        return context.openList;
     }
 
-    protected double heuristics(Node[] map, int x, int y, int endX, int endY) {
-        double g = Double.parseDouble(Main.SETTINGS_PANEL.HEURISTICS_WEIGHT.getText());
+    protected double heuristics(QueryOptions options, int x, int y, int endX, int endY) {
+        double heuristics = distance(options, x, y, endX, endY);
+        if (options.getHeuristicMode() == QueryOptions.HeuristicMode.LANDMARKS) {
+            heuristics = Math.max(heuristics, getLandmarks(options).estimate(calcIndex(x, y), calcIndex(endX, endY)));
+        }
+
+        return heuristics * options.getHeuristicScale();
+    }
 
+    /**
+     * Octile or Manhattan distance, the plain estimate without weight or landmarks
+     */
+    protected static double distance(QueryOptions options, int x, int y, int endX, int endY) {
         int dx = Math.abs(x - endX);
         int dy = Math.abs(y - endY);
-        double heuristics;
-        if (Main.SETTINGS_PANEL.DIAGONAL_MOVEMENT) {
-            heuristics = (dx + dy) + DIAGONAL_DISTANCE * Math.min(dx, dy); // Octile
-        } else {
-            heuristics = dx + dy; // Manhattan
+        if (options.isDiagonal()) {
+            return (dx + dy) + DIAGONAL_DISTANCE * Math.min(dx, dy); // Octile
+        }
+        return dx + dy; // Manhattan
+    }
+
+    /**
+     * Status the search has to stop with, null while it is within the budgets of the options
+     * The clock and the token are only looked at every few hundred expansions
+     */
+    protected static PathResult.Status exceededBudget(QueryOptions options, int expansions, long startTime) {
+        if (expansions >= options.getMaxExpansions()) {
+            return PathResult.Status.EXPANSION_LIMIT;
+        }
+        if (expansions % BUDGET_CHECK_INTERVAL == 0) {
+            CancellationToken token = options.getCancellationToken();
+            if (token != null && token.isCancelled()) {
+                return PathResult.Status.CANCELLED;
+            }
+            if (System.nanoTime() - startTime >= options.getMaxNanos()) {
+                return PathResult.Status.TIME_LIMIT;
+            }
         }
+        return null;
+    }
+
+    /**
+     * Connected regions for the accessibility mask and movement type of the options
+     */
+    public ComponentIndex getComponents(QueryOptions options) {
+        int key = (options.getAccessibleMask() << 1) | (options.isDiagonal() ? 1 : 0);
+        return this.components.computeIfAbsent(key, k ->
+                ComponentIndex.build(this.terrain, this.xMax, this.yMax, options.getAccessibleMask(), options.isDiagonal()));
+    }
+
+    /**
+     * Landmark distances for the landmark count, accessibility mask and movement type of the options
+     */
+    public Landmarks getLandmarks(QueryOptions options) {
+        Landmarks last = this.lastLandmarks;
+        if (last != null && last.matches(options)) return last;
+
+        long key = ((long) options.getLandmarkCount() << 32) | ((long) options.getAccessibleMask() << 1) | (options.isDiagonal() ? 1 : 0);
+        last = this.landmarks.computeIfAbsent(key, k -> Landmarks.build(this.terrain, this.xMax, this.yMax, getComponents(options),
+                options.getAccessibleMask(), options.isDiagonal(), options.getLandmarkCount()));
+        this.lastLandmarks = last;
+        return last;
+    }
 
-        heuristics *= g;
-        if (Main.SETTINGS_PANEL.TIE_BREAK.isSelected()) {
-            heuristics *= (1.0 + (1.0 / 500.0));
+    /**
+     * Passable neighbours of every cell for the accessibility mask and movement type of the options
+     */
+    public NeighbourMasks getNeighbourMasks(QueryOptions options) {
+        int key = (options.getAccessibleMask() << 1) | (options.isDiagonal() ? 1 : 0);
+        NeighbourMasks masks = this.neighbourMasks.get(key);
+        if (masks != null) return masks;
+
+        synchronized (this.cacheLock) {
+            return this.neighbourMasks.computeIfAbsent(key, k ->
+                    NeighbourMasks.build(this.terrain, this.xMax, this.yMax, options.getAccessibleMask(), options.isDiagonal()));
         }
+    }
 
-        return heuristics;
+    /**
+     * Cost of entering every cell for the accessibility mask of the options
+     */
+    public CostGrid getCostGrid(QueryOptions options) {
+        int mask = options.getAccessibleMask();
+        CostGrids grids = this.costGrids;
+        if (grids.last() != null && grids.last().getAccessibleMask() == mask) return grids.last();
+        CostGrid grid = grids.byMask().get(mask);
+        if (grid != null) return grid;
+
+        synchronized (this.cacheLock) {
+            grids = this.costGrids;
+            grid = grids.byMask().get(mask);
+            if (grid == null) {
+                grid = grids.last() != null ? grids.last().withAccessibleMask(this.terrain, mask) : CostGrid.build(this.terrain, mask);
+                Map<Integer, CostGrid> byMask = new HashMap<>(grids.byMask());
+                byMask.put(mask, grid);
+                this.costGrids = new CostGrids(Map.copyOf(byMask), grid);
+            }
+            return grid;
+        }
     }
 
-    private int calcIndex(int x, int y) {
+    /**
+     * Straight jumps of JumpPointSearch for the accessibility mask of the options
+     */
+    public JumpTable getJumpTable(QueryOptions options) {
+        return this.jumpTables.computeIfAbsent(options.getAccessibleMask(), mask ->
+                JumpTable.build(this.terrain, this.xMax, this.yMax, mask));
+    }
+
+    /**
+     * Drops the cached regions, landmarks, neighbour masks and jump tables, needed after fields of the map were changed in place
+     */
+    public void clearCaches() {
+        this.terrainVersion.incrementAndGet();
+        synchronized (this.cacheLock) {
+            this.neighbourMasks.clear();
+            this.costGrids = new CostGrids(Map.of(), null);
+        }
+        this.components.clear();
+        this.landmarks.clear();
+        this.jumpTables.clear();
+        this.lastLandmarks = null;
+    }
+
+    /**
+     * Brings the caches up to date after the given cells of the map were changed in place
+     * Cost grids and neighbour masks are patched around the cells, searches that are still running keep reading
+     * the old ones, regions, landmarks and jump tables depend on the whole map and are dropped
+     */
+    public void fieldsChanged(int... cells) {
+        this.terrainVersion.incrementAndGet();
+        synchronized (this.cacheLock) {
+            CostGrids grids = this.costGrids;
+            Map<Integer, CostGrid> byMask = new HashMap<>();
+            grids.byMask().forEach((mask, grid) -> byMask.put(mask, grid.update(this.terrain, cells)));
+            CostGrid last = grids.last() != null ? byMask.get(grids.last().getAccessibleMask()) : null;
+            this.costGrids = new CostGrids(Map.copyOf(byMask), last);
+            this.neighbourMasks.replaceAll((key, masks) -> masks.update(this.terrain, this.xMax, this.yMax, cells));
+        }
+        this.components.clear();
+        this.landmarks.clear();
+        this.jumpTables.clear();
+        this.lastLandmarks = null;
+    }
+
+    /**
+     * Raised by every #fieldsChanged and #clearCaches, anything built from the map with an older version is out of date
+     */
+    public int getTerrainVersion() {
+        return this.terrainVersion.get();
+    }
+
+    public int calcIndex(int x, int y) {
         return (y * this.xMax) + x;
     }
 
-    private boolean isPointWithinBounds(int x, int y) {
+    public boolean isPointWithinBounds(int x, int y) {
         return ((x >= 0 && x < this.xMax) && (y >= 0 && y < this.yMax));
     }
 
-    private ArrayList<Point> fetchPath(Map<Integer, Node> closed, Node node) {
-        ArrayList<Point> lastPath = new ArrayList<>();
+    /**
+     * Search state of the calling thread, reset before use
+     */
+    protected SearchContext context() {
+        return this.contexts.get();
+    }
 
-        Node parentNode = closed.get(node.parentId);
-        while (parentNode.parentId != -1) {
-            lastPath.add(parentNode);
-            parentNode = closed.get(parentNode.parentId);
+    protected static int[] fetchPath(SearchContext context, int index) {
+        int length = 1;
+        for (int parent = context.getParent(index); parent != -1; parent = context.getParent(parent)) {
+            length++;
         }
 
-        Collections.reverse(lastPath);
-        return lastPath;
+        int[] path = new int[length];
+        for (int i = length - 1; i >= 0; i--) {
+            path[i] = index;
+            index = context.getParent(index);
+        }
+        return path;
     }
 
-    private Node[] createNodeMap(MapField[] fieldMap) {
-        Node[] map = new Node[fieldMap.length];
-        for (int x = 0; x < xMax; x++) {
-            for (int y = 0; y < yMax; y++) {
-                int index = calcIndex(x, y);
-                MapField field = fieldMap[index];
-                Node node = new Node(field, x, y, -2);
-                node.gCost = Double.MAX_VALUE;
-                node.fCost = Double.MAX_VALUE;
-                map[index] = node;
-            }
+    /**
+     * Hands the cells closed since the given count to the listener, returns how many have been handed over now
+     */
+    protected static int streamExpanded(SearchContext context, ExpansionListener listener, int from) {
+        int count = context.getExpandedCount();
+        if (listener != null && count > from) {
+            int[] cells = new int[count - from];
+            Arrays.setAll(cells, i -> context.getExpanded(from + i));
+            listener.expanded(cells);
+        }
+        return count;
+    }
+
+    protected static int[] expanded(SearchContext context, QueryOptions options) {
+        if (!options.isRecordExpanded()) {
+            return new int[0];
         }
-        return map;
+        int[] expanded = new int[context.getExpandedCount()];
+        Arrays.setAll(expanded, context::getExpanded);
+        return expanded;
+    }
+
+    /**
+     * Cost grids keyed by accessibility mask and the one built last, grids for a new mask are derived from it
+     */
+    private record CostGrids(Map<Integer, CostGrid> byMask, CostGrid last) {
     }
 }
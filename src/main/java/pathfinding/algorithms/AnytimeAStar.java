@@ -0,0 +1,287 @@
+package pathfinding.algorithms;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Anytime Repairing A* (ARA*) on the map of an engine
+ * The first path comes from a search with the heuristics weight of the options, every following iteration
+ * lowers the weight and continues the previous search instead of starting over: cells whose cost improved
+ * after they were expanded are kept aside and queued again together with the open list of the last iteration
+ * Each solution is published with a bound on how far its cost can be above the optimal one
+ */
+public class AnytimeAStar {
+
+    public static final double DEFAULT_WEIGHT_STEP = 0.5;
+
+    // How many expansions happen between two looks at the clock
+    private static final int DEADLINE_CHECK_INTERVAL = 256;
+
+    private final AStar engine;
+    private final double weightStep;
+    private final ThreadLocal<IterationState> states;
+
+    public AnytimeAStar(AStar engine) {
+        this(engine, DEFAULT_WEIGHT_STEP);
+    }
+
+    public AnytimeAStar(AStar engine, double weightStep) {
+        if (!(weightStep > 0)) {
+            throw new IllegalArgumentException("Weight step must be positive: " + weightStep);
+        }
+        this.engine = engine;
+        this.weightStep = weightStep;
+        this.states = ThreadLocal.withInitial(() -> new IterationState(engine.terrain.size()));
+    }
+
+    /**
+     * Searches with the heuristics weight of the options first and lowers it by the weight step after every
+     * solution, until a solution is proven optimal or the deadline, a System.nanoTime value, has passed
+     * The first iteration always runs to the end, the deadline only cuts off improvements
+     * Every solution is handed to the listener as soon as it is found, the last one is also returned
+     * The budgets of the options end the search like the deadline, but also cut off the first iteration,
+     * which then returns a partial path to the expanded cell closest to the goal
+     */
+    public AnytimeSolution findPath(int startX, int startY, int endX, int endY, QueryOptions options,
+                                    long deadline, Consumer<AnytimeSolution> listener) {
+        if (!this.engine.isPointWithinBounds(startX, startY) || !this.engine.isPointWithinBounds(endX, endY)) {
+            throw new IllegalArgumentException("Start %s,%s or goal %s,%s is outside of the map".formatted(startX, startY, endX, endY));
+        }
+
+        long startTime = System.nanoTime();
+        int start = this.engine.calcIndex(startX, startY);
+        int goal = this.engine.calcIndex(endX, endY);
+        double weight = Math.max(options.getHeuristicWeight(), 1);
+        if (!this.engine.getComponents(options).isReachable(start, goal)) {
+            // Nothing to improve on, a missing path is as exact as it gets
+            return new AnytimeSolution(PathResult.noPath(this.engine.xMax, new int[0], 0, System.nanoTime() - startTime), weight, 1);
+        }
+
+        // Raw estimates, the weight is applied to the keys here
+        QueryOptions estimate = options.withHeuristicWeight(1).withTieBreak(false);
+        SearchContext context = this.engine.context();
+        context.reset();
+        IterationState state = this.states.get();
+        state.next();
+
+        context.setNode(start, 0, -1);
+        context.openList.add(start, weight * this.heuristics(estimate, start, goal));
+        state.stop = null;
+        state.streamed = 0;
+        state.closest = start;
+        state.closestDistance = AStar.distance(options, startX, startY, endX, endY);
+
+        int expansions = 0;
+        AnytimeSolution solution = null;
+        while (true) {
+            int done = this.improvePath(context, state, options, estimate, goal, weight, solution == null ? Long.MAX_VALUE : deadline,
+                    expansions, startTime);
+            if (done < 0) {
+                if (solution != null || state.stop == null) break;
+
+                // Stopped before the first solution, nothing is known about the partial path
+                int[] path = AStar.fetchPath(context, state.closest);
+                PathResult partial = new PathResult(state.stop, this.engine.xMax, path, AStar.expanded(context, options),
+                        this.pathCost(path), expansions - done - 1, System.nanoTime() - startTime);
+                return new AnytimeSolution(partial, weight, weight);
+            }
+            expansions += done;
+
+            double cost = context.getGCost(goal);
+            if (cost == Double.MAX_VALUE) {
+                return new AnytimeSolution(PathResult.noPath(this.engine.xMax, AStar.expanded(context, options), expansions,
+                        System.nanoTime() - startTime), weight, 1);
+            }
+
+            double bound = Math.min(weight, cost / this.lowestEstimate(context, state, estimate, goal));
+            PathResult result = new PathResult(PathResult.Status.FOUND, this.engine.xMax, AStar.fetchPath(context, goal),
+                    AStar.expanded(context, options), cost, expansions, System.nanoTime() - startTime);
+            solution = new AnytimeSolution(result, weight, Math.max(bound, 1));
+            listener.accept(solution);
+            if (solution.isOptimal() || System.nanoTime() >= deadline) break;
+
+            weight = Math.max(weight - this.weightStep, 1);
+            this.requeue(context, state, estimate, goal, weight);
+        }
+        return solution;
+    }
+
+    /**
+     * Expands until no queued key is below the cost of the goal, returns the expansions
+     * or, if the deadline passed or a budget ran out first, -1 minus the expansions made until then
+     */
+    private int improvePath(SearchContext context, IterationState state, QueryOptions options, QueryOptions estimate, int goal,
+                            double weight, long deadline, int previous, long startTime) {
+        OpenList openList = context.openList;
+        boolean budget = options.hasBudget();
+        int goalX = goal % this.engine.xMax;
+        int goalY = goal / this.engine.xMax;
+        ExpansionListener listener = options.getExpansionListener();
+        int expansions = 0;
+        while (!openList.isEmpty() && context.getGCost(goal) > openList.peekKey()) {
+            if (expansions % DEADLINE_CHECK_INTERVAL == 0 && System.nanoTime() >= deadline) {
+                state.streamed = AStar.streamExpanded(context, listener, state.streamed);
+                return -1 - expansions;
+            }
+            if (budget) {
+                state.stop = AStar.exceededBudget(options, previous + expansions, startTime);
+                if (state.stop != null) {
+                    state.streamed = AStar.streamExpanded(context, listener, state.streamed);
+                    return -1 - expansions;
+                }
+            }
+
+            int index = openList.poll();
+            int nodeX = index % this.engine.xMax;
+            int nodeY = index / this.engine.xMax;
+            state.close(index);
+            context.close(index);
+            expansions++;
+            if (listener != null && context.getExpandedCount() - state.streamed >= AStar.EXPANSION_CHUNK_SIZE) {
+                state.streamed = AStar.streamExpanded(context, listener, state.streamed);
+            }
+            if (budget) {
+                double distance = AStar.distance(options, nodeX, nodeY, goalX, goalY);
+                if (distance < state.closestDistance) {
+                    state.closest = index;
+                    state.closestDistance = distance;
+                }
+            }
+
+            for (int[] xy : AStar.NEIGHBOUR_COORDS) {
+                boolean diagonal = xy[0] != 0 && xy[1] != 0;
+                if (diagonal && !estimate.isDiagonal()) continue;
+
+                int x = nodeX + xy[0];
+                int y = nodeY + xy[1];
+                if (!this.engine.isPointWithinBounds(x, y)) continue;
+
+                int neighbour = this.engine.calcIndex(x, y);
+                if (!estimate.isAccessible(this.engine.terrain.getField(neighbour))) continue;
+
+                double g = context.getGCost(index) + this.engine.terrain.getField(neighbour).getWeight() + (diagonal ? 0.5 : 0);
+                if (g < context.getGCost(neighbour)) {
+                    context.setNode(neighbour, g, index);
+                    if (state.isClosed(neighbour)) {
+                        // Expanded already in this iteration, waits for the next one
+                        state.addInconsistent(neighbour);
+                    } else {
+                        openList.add(neighbour, g + weight * this.heuristics(estimate, neighbour, goal));
+                    }
+                }
+            }
+        }
+        state.streamed = AStar.streamExpanded(context, listener, state.streamed);
+        return expansions;
+    }
+
+    /**
+     * Smallest unweighted f cost among the cells that could still improve the path
+     */
+    private double lowestEstimate(SearchContext context, IterationState state, QueryOptions estimate, int goal) {
+        double lowest = Double.MAX_VALUE;
+        OpenList openList = context.openList;
+        for (int i = 0; i < openList.size(); i++) {
+            int cell = openList.cellAt(i);
+            lowest = Math.min(lowest, context.getGCost(cell) + this.heuristics(estimate, cell, goal));
+        }
+        for (int i = 0; i < state.inconsistentCount; i++) {
+            int cell = state.inconsistent[i];
+            lowest = Math.min(lowest, context.getGCost(cell) + this.heuristics(estimate, cell, goal));
+        }
+        return lowest;
+    }
+
+    /**
+     * Starts the next iteration, the open list and the inconsistent cells are queued again with keys of the new weight
+     */
+    private void requeue(SearchContext context, IterationState state, QueryOptions estimate, int goal, double weight) {
+        OpenList openList = context.openList;
+        int count = openList.size() + state.inconsistentCount;
+        int[] cells = state.buffer(count);
+        for (int i = 0; i < openList.size(); i++) {
+            cells[i] = openList.cellAt(i);
+        }
+        System.arraycopy(state.inconsistent, 0, cells, openList.size(), state.inconsistentCount);
+
+        state.next();
+        for (int i = 0; i < count; i++) {
+            openList.add(cells[i], context.getGCost(cells[i]) + weight * this.heuristics(estimate, cells[i], goal));
+        }
+    }
+
+    /**
+     * Cost of walking the cells, the g cost of the last one can be higher when a cell on the way improved after it was expanded
+     */
+    private double pathCost(int[] path) {
+        double cost = 0;
+        for (int i = 1; i < path.length; i++) {
+            boolean diagonal = path[i] % this.engine.xMax != path[i - 1] % this.engine.xMax && path[i] / this.engine.xMax != path[i - 1] / this.engine.xMax;
+            cost += this.engine.terrain.getField(path[i]).getWeight() + (diagonal ? 0.5 : 0);
+        }
+        return cost;
+    }
+
+    private double heuristics(QueryOptions estimate, int index, int goal) {
+        return this.engine.heuristics(estimate, index % this.engine.xMax, index / this.engine.xMax,
+                goal % this.engine.xMax, goal / this.engine.xMax);
+    }
+
+    /**
+     * Closed set and inconsistent cells of the current iteration, stamped so starting an iteration costs nothing
+     */
+    private static class IterationState {
+
+        final int[] closed;
+        final int[] inconsistentStamps;
+        int[] inconsistent = new int[64];
+        int inconsistentCount;
+        int iteration;
+        // Why the last iteration stopped early and the expanded cell closest to the goal, for partial paths
+        PathResult.Status stop;
+        // Closed cells handed to the expansion listener so far
+        int streamed;
+        int closest;
+        double closestDistance;
+        private int[] buffer = new int[64];
+
+        IterationState(int size) {
+            this.closed = new int[size];
+            this.inconsistentStamps = new int[size];
+        }
+
+        void next() {
+            this.inconsistentCount = 0;
+            if (++this.iteration == Integer.MAX_VALUE) {
+                Arrays.fill(this.closed, 0);
+                Arrays.fill(this.inconsistentStamps, 0);
+                this.iteration = 1;
+            }
+        }
+
+        boolean isClosed(int index) {
+            return this.closed[index] == this.iteration;
+        }
+
+        void close(int index) {
+            this.closed[index] = this.iteration;
+        }
+
+        void addInconsistent(int index) {
+            if (this.inconsistentStamps[index] == this.iteration) return;
+
+            this.inconsistentStamps[index] = this.iteration;
+            if (this.inconsistentCount == this.inconsistent.length) {
+                this.inconsistent = Arrays.copyOf(this.inconsistent, this.inconsistentCount * 2);
+            }
+            this.inconsistent[this.inconsistentCount++] = index;
+        }
+
+        int[] buffer(int size) {
+            if (this.buffer.length < size) {
+                this.buffer = new int[Math.max(size, this.buffer.length * 2)];
+            }
+            return this.buffer;
+        }
+    }
+}
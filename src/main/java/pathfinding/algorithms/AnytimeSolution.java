@@ -0,0 +1,45 @@
+package pathfinding.algorithms;
+
+/**
+ * One solution published by AnytimeAStar
+ * The cost of the path is at most bound times the optimal cost, a bound of 1 means the path is optimal
+ */
+public final class AnytimeSolution {
+
+    private final PathResult result;
+    private final double weight;
+    private final double bound;
+
+    AnytimeSolution(PathResult result, double weight, double bound) {
+        this.result = result;
+        this.weight = weight;
+        this.bound = bound;
+    }
+
+    public PathResult getResult() {
+        return this.result;
+    }
+
+    /**
+     * Heuristics weight of the iteration that found the path
+     */
+    public double getWeight() {
+        return this.weight;
+    }
+
+    /**
+     * Suboptimality bound of the path, never larger than the weight
+     */
+    public double getBound() {
+        return this.bound;
+    }
+
+    public boolean isOptimal() {
+        return this.bound <= 1;
+    }
+
+    @Override
+    public String toString() {
+        return "AnytimeSolution{weight=%s, bound=%s, %s}".formatted(this.weight, this.bound, this.result);
+    }
+}
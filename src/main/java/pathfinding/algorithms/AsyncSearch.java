@@ -0,0 +1,67 @@
+package pathfinding.algorithms;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+
+/**
+ * Runs queries of one engine on an executor instead of the calling thread
+ * The returned future completes with the result, cancelling it stops the search at its next look at the
+ * cancellation token. Closed cells can be watched while the search runs through an ExpansionListener
+ */
+public class AsyncSearch {
+
+    private final AStar engine;
+    private final Executor executor;
+
+    public AsyncSearch(AStar engine, Executor executor) {
+        this.engine = engine;
+        this.executor = executor;
+    }
+
+    public AsyncSearch(AStar engine) {
+        this(engine, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Starts the search and returns at once, the listener may be null and is called on the searching thread
+     * Cancelling the future also cancels the token of the options, a new token is made if they have none
+     */
+    public CompletableFuture<PathResult> findPath(int startX, int startY, int endX, int endY, QueryOptions options,
+                                                  ExpansionListener listener) {
+        if (!this.engine.isPointWithinBounds(startX, startY) || !this.engine.isPointWithinBounds(endX, endY)) {
+            throw new IllegalArgumentException("Start %s,%s or goal %s,%s is outside of the map".formatted(startX, startY, endX, endY));
+        }
+        return this.submit(options, listener, query -> this.engine.findeWeg(startX, startY, endX, endY, query));
+    }
+
+    public CompletableFuture<PathResult> findPath(int startX, int startY, int endX, int endY, QueryOptions options) {
+        return this.findPath(startX, startY, endX, endY, options, null);
+    }
+
+    /**
+     * Runs any search on the executor like #findPath, the search is handed the options with the token and listener
+     * set and has to honor them itself, jump point, bounded, anytime and bidirectional search all do
+     */
+    public <T> CompletableFuture<T> submit(QueryOptions options, ExpansionListener listener, Function<QueryOptions, T> search) {
+        CancellationToken token = options.getCancellationToken() != null ? options.getCancellationToken() : new CancellationToken();
+        QueryOptions query = options.withCancellationToken(token).withExpansionListener(listener);
+
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.whenComplete((result, e) -> {
+            if (future.isCancelled()) token.cancel();
+        });
+        this.executor.execute(() -> {
+            // Cancelled before it got a thread
+            if (future.isDone()) return;
+            try {
+                future.complete(search.apply(query));
+            } catch (Throwable e) {
+                // Errors too, a future that never completes would leave the caller waiting for good
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+}
@@ -0,0 +1,146 @@
+package pathfinding.algorithms;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Runs large batches of queries against one engine on a fork/join pool
+ * Queries are handed out in small chunks, every worker keeps its own SearchContext from the engine for the
+ * lifetime of the pool, so no search state is allocated per query. Results are passed to the listener on the
+ * calling thread, either in the order the queries were submitted or as soon as their chunk is done
+ */
+public class BatchExecutor implements AutoCloseable {
+
+    public enum Order {
+        SUBMISSION,
+        COMPLETION
+    }
+
+    // Queries per task, large enough to hide scheduling and small enough to keep all workers busy until the end
+    private static final int CHUNK_SIZE = 32;
+
+    private final AStar engine;
+    private final ForkJoinPool pool;
+
+    public BatchExecutor(AStar engine, int parallelism) {
+        this.engine = engine;
+        this.pool = new ForkJoinPool(parallelism);
+    }
+
+    public BatchExecutor(AStar engine) {
+        this(engine, Runtime.getRuntime().availableProcessors());
+    }
+
+    public int getParallelism() {
+        return this.pool.getParallelism();
+    }
+
+    /**
+     * Finds a path for every pair of start and goal cell indices and hands each result to the listener together
+     * with the position of its pair, the listener is only ever called from the calling thread
+     * Returns once every result was delivered, the first exception of a query is rethrown and stops the batch,
+     * errors are rethrown wrapped in a CompletionException
+     */
+    public BatchReport run(int[] starts, int[] goals, QueryOptions options, Order order, ObjIntConsumer<PathResult> listener) {
+        if (starts.length != goals.length) {
+            throw new IllegalArgumentException("Got %s starts but %s goals".formatted(starts.length, goals.length));
+        }
+
+        long startTime = System.nanoTime();
+        int chunks = (starts.length + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        PathResult[][] results = new PathResult[chunks][];
+        BlockingQueue<Integer> done = new LinkedBlockingQueue<>();
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        AtomicBoolean cancelled = new AtomicBoolean();
+
+        for (int c = 0; c < chunks; c++) {
+            int chunk = c;
+            this.pool.execute(() -> {
+                try {
+                    if (!cancelled.get()) {
+                        results[chunk] = this.search(starts, goals, chunk, options);
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e instanceof RuntimeException runtime ? runtime : new CompletionException(e));
+                } finally {
+                    // Taking the chunk from the queue also makes its results visible to the caller, it has to
+                    // arrive even after an error or the caller waits for good
+                    done.add(chunk);
+                }
+            });
+        }
+
+        BatchReport.Builder report = new BatchReport.Builder(this.getParallelism());
+        boolean[] ready = new boolean[chunks];
+        int next = 0;
+        try {
+            for (int received = 0; received < chunks; received++) {
+                int chunk = done.take();
+                if (failure.get() != null) {
+                    throw failure.get();
+                }
+
+                if (order == Order.COMPLETION) {
+                    this.deliver(results, chunk, listener, report);
+                } else {
+                    ready[chunk] = true;
+                    while (next < chunks && ready[next]) {
+                        this.deliver(results, next++, listener, report);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Batch was interrupted");
+        } finally {
+            // Chunks that have not started yet are skipped once anything went wrong
+            cancelled.set(true);
+        }
+        return report.build(System.nanoTime() - startTime);
+    }
+
+    /**
+     * Same as run, but keeps every result and returns them in submission order
+     */
+    public PathResult[] runAll(int[] starts, int[] goals, QueryOptions options) {
+        PathResult[] results = new PathResult[starts.length];
+        this.run(starts, goals, options, Order.COMPLETION, (result, i) -> results[i] = result);
+        return results;
+    }
+
+    private PathResult[] search(int[] starts, int[] goals, int chunk, QueryOptions options) {
+        int from = chunk * CHUNK_SIZE;
+        PathResult[] results = new PathResult[Math.min(CHUNK_SIZE, starts.length - from)];
+        for (int i = 0; i < results.length; i++) {
+            int start = starts[from + i];
+            int goal = goals[from + i];
+            results[i] = this.engine.findeWeg(start % this.engine.xMax, start / this.engine.xMax,
+                    goal % this.engine.xMax, goal / this.engine.xMax, options);
+        }
+        return results;
+    }
+
+    private void deliver(PathResult[][] results, int chunk, ObjIntConsumer<PathResult> listener, BatchReport.Builder report) {
+        PathResult[] chunkResults = results[chunk];
+        // Delivered results are only kept by the listener
+        results[chunk] = null;
+        for (int i = 0; i < chunkResults.length; i++) {
+            report.add(chunkResults[i]);
+            listener.accept(chunkResults[i], chunk * CHUNK_SIZE + i);
+        }
+    }
+
+    /**
+     * Stops the worker threads, batches that are still running are finished first
+     */
+    @Override
+    public void close() {
+        this.pool.shutdown();
+    }
+}
@@ -0,0 +1,101 @@
+package pathfinding.algorithms;
+
+/**
+ * Totals of one batch run by BatchExecutor
+ */
+public final class BatchReport {
+
+    private final int queries;
+    private final int found;
+    private final long expansions;
+    private final long searchNanos;
+    private final long wallNanos;
+    private final int parallelism;
+
+    private BatchReport(int queries, int found, long expansions, long searchNanos, long wallNanos, int parallelism) {
+        this.queries = queries;
+        this.found = found;
+        this.expansions = expansions;
+        this.searchNanos = searchNanos;
+        this.wallNanos = wallNanos;
+        this.parallelism = parallelism;
+    }
+
+    public int getQueries() {
+        return this.queries;
+    }
+
+    /**
+     * Queries that ended with a path
+     */
+    public int getFound() {
+        return this.found;
+    }
+
+    public long getExpansions() {
+        return this.expansions;
+    }
+
+    /**
+     * Time spent inside the searches, summed over all workers
+     */
+    public long getSearchNanos() {
+        return this.searchNanos;
+    }
+
+    /**
+     * Time from submitting the batch until the last result was delivered
+     */
+    public long getWallNanos() {
+        return this.wallNanos;
+    }
+
+    public int getParallelism() {
+        return this.parallelism;
+    }
+
+    public double getQueriesPerSecond() {
+        return this.wallNanos == 0 ? 0 : this.queries * 1e9 / this.wallNanos;
+    }
+
+    /**
+     * Search time divided by wall time, how many workers were busy on average
+     */
+    public double getUtilization() {
+        return this.wallNanos == 0 ? 0 : (double) this.searchNanos / this.wallNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchReport[queries=%s, found=%s, expansions=%s, wall=%.1f ms, throughput=%.0f queries/s, busy workers=%.2f of %s]"
+                .formatted(this.queries, this.found, this.expansions, this.wallNanos / 1e6, this.getQueriesPerSecond(),
+                        this.getUtilization(), this.parallelism);
+    }
+
+    /**
+     * Only used by the thread delivering the results
+     */
+    static class Builder {
+
+        private final int parallelism;
+        private int queries;
+        private int found;
+        private long expansions;
+        private long searchNanos;
+
+        Builder(int parallelism) {
+            this.parallelism = parallelism;
+        }
+
+        void add(PathResult result) {
+            this.queries++;
+            if (result.isFound()) this.found++;
+            this.expansions += result.getExpansions();
+            this.searchNanos += result.getNanos();
+        }
+
+        BatchReport build(long wallNanos) {
+            return new BatchReport(this.queries, this.found, this.expansions, this.searchNanos, wallNanos, this.parallelism);
+        }
+    }
+}
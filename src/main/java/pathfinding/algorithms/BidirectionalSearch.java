@@ -0,0 +1,339 @@
+package pathfinding.algorithms;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Searches from the start and backwards from the goal at once and stops once the frontiers have met on the cheapest path
+ * Both directions are keyed by the average of the engine's estimates, half the estimate to the goal minus half
+ * the estimate from the start. Keys of both sides then live in one consistent scale, so the searches can stop
+ * as soon as the smallest keys of both add up to the cheapest meeting found, with the engine's heuristics
+ * and with Dijkstra's alike. Stepping onto a cell costs its weight, the backward search pays the weight of the
+ * cell it comes from instead of the one it enters
+ * The potentials only stay consistent with the plain estimate, so the heuristics weight and tie-break of the options
+ * are not used and the path found is always optimal
+ * Both directions can also run on their own thread without locks. They share the path costs of the cells they reached,
+ * published with release and read with acquire semantics, and their smallest keys every few expansions. Reading
+ * without a full fence can miss a meeting while both sides touch the same cell at once, which only delays the stop,
+ * the cells reached by both are checked once more after the threads have joined
+ */
+public class BidirectionalSearch {
+
+    private static final VarHandle PUBLISHED = MethodHandles.arrayElementVarHandle(long[].class);
+    // Expansions between two looks at the other thread's smallest key
+    private static final int EXCHANGE_INTERVAL = 32;
+
+    private final AStar engine;
+    private final ThreadLocal<Frontier[]> frontiers;
+
+    public BidirectionalSearch(AStar engine) {
+        this.engine = engine;
+        this.frontiers = ThreadLocal.withInitial(() -> {
+            Frontier forward = new Frontier(true, null);
+            Frontier backward = new Frontier(false, new SearchContext(engine.terrain.size()));
+            forward.other = backward;
+            backward.other = forward;
+            return new Frontier[]{ forward, backward };
+        });
+    }
+
+    /**
+     * Optimal path searched from both ends on the calling thread, the queue mode of the options is ignored
+     */
+    public PathResult findPath(int startX, int startY, int endX, int endY, QueryOptions options) {
+        return this.findPath(startX, startY, endX, endY, options, null);
+    }
+
+    /**
+     * Same as the search on the calling thread, but the backward search runs on the given executor while the
+     * calling thread searches forward. The executor needs a thread to spare, it must not be the one the caller runs on
+     * The expansion listener is then called from both threads
+     * With a null executor both directions run on the calling thread
+     * The expansion budget covers both sides, in parallel they only add up their counts every few expansions.
+     * Stopped by a budget the path runs through the cheapest meeting found so far, without one it leads to the cell
+     * closest to the goal the forward side expanded
+     */
+    public PathResult findPath(int startX, int startY, int endX, int endY, QueryOptions options, Executor executor) {
+        if (!this.engine.isPointWithinBounds(startX, startY) || !this.engine.isPointWithinBounds(endX, endY)) {
+            throw new IllegalArgumentException("Start %s,%s or goal %s,%s is outside of the map".formatted(startX, startY, endX, endY));
+        }
+
+        long startTime = System.nanoTime();
+        int start = this.engine.calcIndex(startX, startY);
+        int goal = this.engine.calcIndex(endX, endY);
+        if (!this.engine.getComponents(options).isReachable(start, goal)) {
+            return PathResult.noPath(this.engine.xMax, new int[0], 0, System.nanoTime() - startTime);
+        }
+        if (start == goal) {
+            return new PathResult(PathResult.Status.FOUND, this.engine.xMax, new int[]{ start }, new int[0], 0, 1, System.nanoTime() - startTime);
+        }
+
+        boolean parallel = executor != null;
+        // Weighted estimates would break the stop condition, see the class description
+        QueryOptions plain = options.withHeuristicWeight(1).withTieBreak(false);
+        Frontier forward = this.frontiers.get()[0];
+        Frontier backward = this.frontiers.get()[1];
+        forward.context = this.engine.context();
+        forward.begin(start, goal, plain, parallel, startTime);
+        backward.begin(goal, start, plain, parallel, startTime);
+
+        PathResult.Status stop = null;
+        if (parallel) {
+            CompletableFuture<Void> future = CompletableFuture.runAsync(backward::run, executor);
+            forward.run();
+            future.join();
+            forward.settleMeeting();
+            stop = forward.stop != null ? forward.stop : backward.stop;
+        } else {
+            boolean budget = options.hasBudget();
+            while (!forward.context.openList.isEmpty() && !backward.context.openList.isEmpty()) {
+                double forwardKey = forward.context.openList.peekKey();
+                double backwardKey = backward.context.openList.peekKey();
+                if (forwardKey + backwardKey >= Math.min(forward.best, backward.best)) break;
+                if (budget) {
+                    stop = AStar.exceededBudget(options, forward.context.getExpandedCount() + backward.context.getExpandedCount(), startTime);
+                    if (stop != null) break;
+                }
+
+                (forwardKey <= backwardKey ? forward : backward).expand();
+            }
+        }
+
+        AStar.streamExpanded(forward.context, options.getExpansionListener(), forward.streamed);
+        AStar.streamExpanded(backward.context, options.getExpansionListener(), backward.streamed);
+        Frontier met = forward.best <= backward.best ? forward : backward;
+        int meeting = met.bestCell;
+        int expansions = forward.context.getExpandedCount() + backward.context.getExpandedCount();
+        if (stop != null && meeting == -1) {
+            return new PathResult(stop, this.engine.xMax, AStar.fetchPath(forward.context, forward.closest), expanded(forward, backward, options),
+                    forward.context.getGCost(forward.closest), expansions, System.nanoTime() - startTime);
+        }
+        if (meeting == -1) {
+            return PathResult.noPath(this.engine.xMax, expanded(forward, backward, options), expansions, System.nanoTime() - startTime);
+        }
+        return new PathResult(stop != null ? stop : PathResult.Status.FOUND, this.engine.xMax, joinPath(forward.context, backward.context, meeting),
+                expanded(forward, backward, options), forward.context.getGCost(meeting) + backward.context.getGCost(meeting),
+                expansions, System.nanoTime() - startTime);
+    }
+
+    /**
+     * Path to the meeting cell from the forward search, then the parents of the backward search, which lead to the goal
+     */
+    private static int[] joinPath(SearchContext forward, SearchContext backward, int meeting) {
+        int[] head = AStar.fetchPath(forward, meeting);
+        int length = head.length;
+        for (int cell = backward.getParent(meeting); cell != -1; cell = backward.getParent(cell)) {
+            length++;
+        }
+
+        int[] path = Arrays.copyOf(head, length);
+        int i = head.length;
+        for (int cell = backward.getParent(meeting); cell != -1; cell = backward.getParent(cell)) {
+            path[i++] = cell;
+        }
+        return path;
+    }
+
+    private static int[] expanded(Frontier forward, Frontier backward, QueryOptions options) {
+        int[] head = AStar.expanded(forward.context, options);
+        int[] tail = AStar.expanded(backward.context, options);
+        int[] expanded = Arrays.copyOf(head, head.length + tail.length);
+        System.arraycopy(tail, 0, expanded, head.length, tail.length);
+        return expanded;
+    }
+
+    /**
+     * One direction of the search, the forward one reuses the engine's context of the calling thread
+     */
+    private final class Frontier implements Runnable {
+
+        private final boolean forward;
+        SearchContext context;
+        Frontier other;
+
+        // Path cost of every reached cell as float bits, stamped with the query in the upper half
+        private final long[] published;
+        private int query;
+
+        private QueryOptions options;
+        private int source, target;
+        private boolean parallel;
+        private long startTime;
+
+        // Expanded cell closest to the target, only tracked with a budget
+        int closest;
+        private double closestDistance;
+        // Why this side ran out of budget, read after the threads have joined
+        PathResult.Status stop;
+        // Closed cells handed to the expansion listener so far
+        int streamed;
+        // Expansions of this side as of the last exchange
+        volatile int exchanged;
+
+        // Smallest key of the open list and cheapest meeting, read by the other side
+        volatile double topKey;
+        volatile double best;
+        // Written before best
+        int bestCell;
+        volatile boolean stopped;
+
+        Frontier(boolean forward, SearchContext context) {
+            this.forward = forward;
+            this.context = context;
+            this.published = new long[BidirectionalSearch.this.engine.terrain.size()];
+        }
+
+        void begin(int source, int target, QueryOptions options, boolean parallel, long startTime) {
+            AStar engine = BidirectionalSearch.this.engine;
+            this.source = source;
+            this.target = target;
+            this.options = options;
+            this.parallel = parallel;
+            this.startTime = startTime;
+            this.best = Double.MAX_VALUE;
+            this.bestCell = -1;
+            this.stopped = false;
+            this.stop = null;
+            this.streamed = 0;
+            this.exchanged = 0;
+            this.closest = source;
+            this.closestDistance = AStar.distance(options, source % engine.xMax, source / engine.xMax,
+                    target % engine.xMax, target / engine.xMax);
+            if (++this.query == Integer.MAX_VALUE) {
+                Arrays.fill(this.published, 0);
+                this.query = 1;
+            }
+
+            this.context.reset();
+            this.context.setNode(source, 0, -1);
+            this.publish(source, 0);
+            double key = this.key(source, 0);
+            this.context.openList.add(source, key);
+            this.topKey = key;
+        }
+
+        @Override
+        public void run() {
+            OpenList openList = this.context.openList;
+            boolean budget = this.options.hasBudget();
+            for (int expansions = 0; !openList.isEmpty(); expansions++) {
+                if (expansions % EXCHANGE_INTERVAL == 0) {
+                    // An outdated key of the other side is lower than its current one, stopping stays safe
+                    double key = openList.peekKey();
+                    this.topKey = key;
+                    this.exchanged = expansions;
+                    if (this.stopped || key + this.other.topKey >= Math.min(this.best, this.other.best)) break;
+                    if (budget && expansions + this.other.exchanged >= this.options.getMaxExpansions()) {
+                        this.stop = PathResult.Status.EXPANSION_LIMIT;
+                        break;
+                    }
+                }
+                if (budget) {
+                    this.stop = AStar.exceededBudget(this.options, expansions, this.startTime);
+                    if (this.stop != null) break;
+                }
+                this.expand();
+            }
+            // Either the meeting is proven cheapest or this side has reached everything it can
+            this.stopped = true;
+            this.other.stopped = true;
+        }
+
+        void expand() {
+            AStar engine = BidirectionalSearch.this.engine;
+            int index = this.context.openList.poll();
+            this.context.close(index);
+            ExpansionListener listener = this.options.getExpansionListener();
+            if (listener != null && this.context.getExpandedCount() - this.streamed >= AStar.EXPANSION_CHUNK_SIZE) {
+                this.streamed = AStar.streamExpanded(this.context, listener, this.streamed);
+            }
+            // Paths through the other end are never the cheapest, the start may not even be accessible
+            if (index == this.target) return;
+
+            int nodeX = index % engine.xMax;
+            int nodeY = index / engine.xMax;
+            if (this.options.hasBudget()) {
+                double distance = AStar.distance(this.options, nodeX, nodeY, this.target % engine.xMax, this.target / engine.xMax);
+                if (distance < this.closestDistance) {
+                    this.closest = index;
+                    this.closestDistance = distance;
+                }
+            }
+            for (int[] xy : AStar.NEIGHBOUR_COORDS) {
+                boolean diagonal = xy[0] != 0 && xy[1] != 0;
+                if (diagonal && !this.options.isDiagonal()) continue;
+
+                int x = nodeX + xy[0];
+                int y = nodeY + xy[1];
+                if (!engine.isPointWithinBounds(x, y)) continue;
+
+                int neighbour = engine.calcIndex(x, y);
+                if (this.context.isClosed(neighbour)) continue;
+                if (!this.options.isAccessible(engine.terrain.getField(neighbour)) && (this.forward || neighbour != this.target)) continue;
+
+                // Backwards the step leads from the neighbour onto this cell
+                double g = this.context.getGCost(index) + engine.terrain.getField(this.forward ? neighbour : index).getWeight() + (diagonal ? 0.5 : 0);
+                if (g < this.context.getGCost(neighbour)) {
+                    this.context.setNode(neighbour, g, index);
+                    this.publish(neighbour, g);
+                    this.context.openList.add(neighbour, this.key(neighbour, g));
+
+                    double otherG = this.other.reached(neighbour);
+                    if (g + otherG < this.best) {
+                        this.bestCell = neighbour;
+                        this.best = g + otherG;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Cheapest meeting among the cells closed by this side and reached by the other one
+         * Only called after both threads have finished
+         */
+        void settleMeeting() {
+            for (int i = 0; i < this.context.getExpandedCount(); i++) {
+                int cell = this.context.getExpanded(i);
+                if (!this.other.context.isVisited(cell)) continue;
+
+                double cost = this.context.getGCost(cell) + this.other.context.getGCost(cell);
+                if (cost < this.best) {
+                    this.bestCell = cell;
+                    this.best = cost;
+                }
+            }
+        }
+
+        /**
+         * Path cost of the cell from this side, published by the other thread while both sides run
+         */
+        double reached(int index) {
+            if (!this.parallel) {
+                return this.context.getGCost(index);
+            }
+            long entry = (long) PUBLISHED.getAcquire(this.published, index);
+            return (int) (entry >>> 32) == this.query ? Float.intBitsToFloat((int) entry) : Double.MAX_VALUE;
+        }
+
+        private void publish(int index, double g) {
+            if (this.parallel) {
+                // Costs are whole half-steps, a float holds them exactly far beyond any map size
+                PUBLISHED.setRelease(this.published, index, ((long) this.query << 32) | (Float.floatToRawIntBits((float) g) & 0xFFFFFFFFL));
+            }
+        }
+
+        private double key(int index, double g) {
+            AStar engine = BidirectionalSearch.this.engine;
+            int start = this.forward ? this.source : this.target;
+            int goal = this.forward ? this.target : this.source;
+            int x = index % engine.xMax;
+            int y = index / engine.xMax;
+            double potential = (engine.heuristics(this.options, x, y, goal % engine.xMax, goal / engine.xMax)
+                    - engine.heuristics(this.options, start % engine.xMax, start / engine.xMax, x, y)) / 2;
+            return this.forward ? g + potential : g - potential;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package pathfinding.algorithms;
+
+import pathfinding.MapField;
+
+import java.util.Arrays;
+
+/**
+ * Dial's bucket queue for Dijkstra
+ * Every field weight and the diagonal surcharge are multiples of 0.5, so keys are stored as whole
+ * half-steps. Dijkstra never queues a key further than the most expensive step away from the current
+ * minimum, so a small ring of buckets is enough and every operation is amortized constant time
+ * Cells in a bucket form a doubly linked list through next/prev, which makes decrease-key an unlink and relink
+ */
+public class BucketQueue implements OpenSet {
+
+    public static final int COST_SCALE = 2;
+
+    static final int MAX_STEP = maxStep();
+
+    private final int[] buckets;
+    private final int bucketMask;
+
+    private final int[] next;
+    private final int[] prev;
+    // Key of every queued cell in half-steps, -1 when it is not queued
+    private final int[] keys;
+
+    private int size;
+    // Key of the last polled cell, the first added key while nothing was polled since the last clear
+    private int cursor;
+    private boolean started;
+
+    public BucketQueue(int capacity) {
+        int count = Integer.highestOneBit(MAX_STEP) << 1;
+        this.buckets = new int[count];
+        this.bucketMask = count - 1;
+        this.next = new int[capacity];
+        this.prev = new int[capacity];
+        this.keys = new int[capacity];
+        Arrays.fill(this.buckets, -1);
+        Arrays.fill(this.keys, -1);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public boolean contains(int index) {
+        return this.keys[index] != -1;
+    }
+
+    /**
+     * The key has to be a multiple of 0.5 and must not be smaller than the last polled key
+     * or further than the most expensive single step away from it
+     */
+    @Override
+    public void add(int index, double key) {
+        int units = (int) (key * COST_SCALE);
+        if (units != key * COST_SCALE) {
+            throw new IllegalArgumentException("Key " + key + " is not a multiple of " + (1.0 / COST_SCALE));
+        }
+        if (!this.started) {
+            this.cursor = units;
+            this.started = true;
+        } else if (units < this.cursor || units > this.cursor + MAX_STEP) {
+            throw new IllegalArgumentException("Key " + key + " is outside of the bucket range");
+        }
+
+        if (this.keys[index] != -1) {
+            if (this.keys[index] == units) return;
+            this.unlink(index);
+        } else {
+            this.size++;
+        }
+        this.keys[index] = units;
+
+        int bucket = units & this.bucketMask;
+        int head = this.buckets[bucket];
+        this.next[index] = head;
+        this.prev[index] = -1;
+        if (head != -1) {
+            this.prev[head] = index;
+        }
+        this.buckets[bucket] = index;
+    }
+
+    @Override
+    public int poll() {
+        int bucket = this.cursor & this.bucketMask;
+        while (this.buckets[bucket] == -1) {
+            bucket = ++this.cursor & this.bucketMask;
+        }
+
+        int index = this.buckets[bucket];
+        this.unlink(index);
+        this.keys[index] = -1;
+        this.size--;
+        return index;
+    }
+
+    /**
+     * Empties the queue, only touches the cells that are still queued
+     */
+    @Override
+    public void clear() {
+        for (int bucket = 0; bucket < this.buckets.length; bucket++) {
+            for (int index = this.buckets[bucket]; index != -1; index = this.next[index]) {
+                this.keys[index] = -1;
+            }
+            this.buckets[bucket] = -1;
+        }
+        this.size = 0;
+        this.started = false;
+    }
+
+    private void unlink(int index) {
+        int prev = this.prev[index];
+        int next = this.next[index];
+        if (prev == -1) {
+            this.buckets[this.keys[index] & this.bucketMask] = next;
+        } else {
+            this.next[prev] = next;
+        }
+        if (next != -1) {
+            this.prev[next] = prev;
+        }
+    }
+
+    /**
+     * Most expensive single step in half-steps, the heaviest field entered diagonally
+     */
+    private static int maxStep() {
+        double max = 0;
+        for (MapField field : MapField.values()) {
+            max = Math.max(max, field.getWeight());
+        }
+        return (int) Math.ceil((max + 0.5) * COST_SCALE);
+    }
+}
@@ -0,0 +1,18 @@
+package pathfinding.algorithms;
+
+/**
+ * Lets another thread stop queries that were started with it, searches look at it every few hundred expansions
+ * One token can be shared by many queries, cancelling it stops all of them
+ */
+public final class CancellationToken {
+
+    private volatile boolean cancelled;
+
+    public void cancel() {
+        this.cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return this.cancelled;
+    }
+}
@@ -0,0 +1,301 @@
+package pathfinding.algorithms;
+
+import pathfinding.TerrainGrid;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Abstract graph of HierarchicalAStar for one map, accessibility mask and movement type
+ * The map is split into square clusters, nodes are the cells on both sides of the entrances
+ * between neighbouring clusters. Inter-edges cross a border in a single step, intra-edges carry
+ * the exact cost of the cheapest path between two nodes that stays inside their cluster
+ */
+public class ClusterGraph {
+
+    // Runs of at least this many border cells get an entrance at both ends instead of one in the middle
+    private static final int LONG_ENTRANCE = 6;
+
+    final TerrainGrid terrain;
+    final int xMax, yMax;
+    final int clusterSize, clustersX, clustersY;
+    final int accessibleMask;
+    final boolean diagonal;
+
+    // Cell of every abstract node
+    final int[] nodeCells;
+    // Abstract nodes of every cluster
+    final int[][] clusterNodes;
+
+    // Outgoing edges of node n are edgeOffsets[n] until edgeOffsets[n + 1]
+    final int[] edgeOffsets;
+    final int[] edgeTargets;
+    final double[] edgeCosts;
+
+    private ClusterGraph(TerrainGrid terrain, int xMax, int yMax, int clusterSize, int accessibleMask, boolean diagonal,
+                         int[] nodeCells, int[][] clusterNodes, int[] edgeOffsets, int[] edgeTargets, double[] edgeCosts) {
+        this.terrain = terrain;
+        this.xMax = xMax;
+        this.yMax = yMax;
+        this.clusterSize = clusterSize;
+        this.clustersX = (xMax + clusterSize - 1) / clusterSize;
+        this.clustersY = (yMax + clusterSize - 1) / clusterSize;
+        this.accessibleMask = accessibleMask;
+        this.diagonal = diagonal;
+        this.nodeCells = nodeCells;
+        this.clusterNodes = clusterNodes;
+        this.edgeOffsets = edgeOffsets;
+        this.edgeTargets = edgeTargets;
+        this.edgeCosts = edgeCosts;
+    }
+
+    /**
+     * Finds the entrances and computes the intra-cluster costs, clusters are processed in parallel
+     */
+    public static ClusterGraph build(TerrainGrid terrain, int xMax, int yMax, int clusterSize, int accessibleMask, boolean diagonal) {
+        Builder builder = new Builder(terrain, xMax, yMax, clusterSize, accessibleMask, diagonal);
+        builder.findEntrances();
+
+        int[] nodeCells = builder.nodeCells();
+        int[][] clusterNodes = builder.clusterNodes(nodeCells);
+
+        // Only the intra-edges are expensive, every cluster searches from each of its nodes
+        ClusterGraph partial = new ClusterGraph(terrain, xMax, yMax, clusterSize, accessibleMask, diagonal,
+                nodeCells, clusterNodes, null, null, null);
+        EdgeList[] intra = IntStream.range(0, clusterNodes.length).parallel()
+                .mapToObj(partial::intraEdges)
+                .toArray(EdgeList[]::new);
+
+        EdgeList edges = builder.interEdges;
+        for (EdgeList list : intra) {
+            edges.addAll(list);
+        }
+
+        // Compress into per-node edge ranges
+        int[] offsets = new int[nodeCells.length + 1];
+        for (int i = 0; i < edges.size; i++) {
+            offsets[edges.from[i] + 1]++;
+        }
+        for (int i = 0; i < nodeCells.length; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+        int[] fill = Arrays.copyOf(offsets, nodeCells.length);
+        int[] targets = new int[edges.size];
+        double[] costs = new double[edges.size];
+        for (int i = 0; i < edges.size; i++) {
+            int slot = fill[edges.from[i]]++;
+            targets[slot] = edges.to[i];
+            costs[slot] = edges.cost[i];
+        }
+
+        return new ClusterGraph(terrain, xMax, yMax, clusterSize, accessibleMask, diagonal,
+                nodeCells, clusterNodes, offsets, targets, costs);
+    }
+
+    public int getNodeCount() {
+        return this.nodeCells.length;
+    }
+
+    public int getEdgeCount() {
+        return this.edgeTargets.length;
+    }
+
+    int clusterOf(int cell) {
+        int x = cell % this.xMax;
+        int y = cell / this.xMax;
+        return (y / this.clusterSize) * this.clustersX + (x / this.clusterSize);
+    }
+
+    boolean isAccessible(int cell) {
+        return (this.accessibleMask & (1 << this.terrain.getOrdinal(cell))) != 0;
+    }
+
+    private EdgeList intraEdges(int cluster) {
+        EdgeList edges = new EdgeList();
+        int[] nodes = this.clusterNodes[cluster];
+        if (nodes.length < 2) return edges;
+
+        ClusterSearch search = new ClusterSearch(this);
+        for (int from : nodes) {
+            search.run(this.nodeCells[from], -1, false);
+            for (int to : nodes) {
+                double cost = search.getCost(this.nodeCells[to]);
+                if (from != to && cost != Double.MAX_VALUE) {
+                    edges.add(from, to, cost);
+                }
+            }
+        }
+        return edges;
+    }
+
+    private static class Builder {
+
+        private final TerrainGrid terrain;
+        private final int xMax, yMax, clusterSize, accessibleMask;
+        private final boolean diagonal;
+
+        private final Map<Integer, Integer> nodeIds = new HashMap<>();
+        private int[] cells = new int[64];
+        private final EdgeList interEdges = new EdgeList();
+
+        Builder(TerrainGrid terrain, int xMax, int yMax, int clusterSize, int accessibleMask, boolean diagonal) {
+            this.terrain = terrain;
+            this.xMax = xMax;
+            this.yMax = yMax;
+            this.clusterSize = clusterSize;
+            this.accessibleMask = accessibleMask;
+            this.diagonal = diagonal;
+        }
+
+        void findEntrances() {
+            // Vertical borders, x is the first column of the right cluster
+            for (int x = this.clusterSize; x < this.xMax; x += this.clusterSize) {
+                for (int y0 = 0; y0 < this.yMax; y0 += this.clusterSize) {
+                    int y1 = Math.min(y0 + this.clusterSize, this.yMax);
+                    this.border(x - 1 + y0 * this.xMax, x + y0 * this.xMax, this.xMax, y1 - y0);
+                }
+                if (this.diagonal) {
+                    for (int y = 0; y < this.yMax; y++) {
+                        this.diagonalCrossing(x - 1, y, x, y - 1);
+                        this.diagonalCrossing(x - 1, y, x, y + 1);
+                    }
+                }
+            }
+            // Horizontal borders, y is the first row of the lower cluster
+            for (int y = this.clusterSize; y < this.yMax; y += this.clusterSize) {
+                for (int x0 = 0; x0 < this.xMax; x0 += this.clusterSize) {
+                    int x1 = Math.min(x0 + this.clusterSize, this.xMax);
+                    this.border(x0 + (y - 1) * this.xMax, x0 + y * this.xMax, 1, x1 - x0);
+                }
+                if (this.diagonal) {
+                    for (int x = 0; x < this.xMax; x++) {
+                        // Crossings over a cluster corner were already added with the vertical borders
+                        if (x + 1 < this.xMax && (x + 1) % this.clusterSize != 0) {
+                            this.diagonalCrossing(x, y - 1, x + 1, y);
+                        }
+                        if (x > 0 && x % this.clusterSize != 0) {
+                            this.diagonalCrossing(x, y - 1, x - 1, y);
+                        }
+                    }
+                }
+            }
+        }
+
+        /**
+         * Walks along one border segment, a and b are the first cells on both sides and step moves along it
+         */
+        private void border(int a, int b, int step, int length) {
+            int runStart = -1;
+            for (int i = 0; i <= length; i++) {
+                boolean open = i < length && this.isAccessible(a + i * step) && this.isAccessible(b + i * step);
+                if (open && runStart == -1) {
+                    runStart = i;
+                } else if (!open && runStart != -1) {
+                    int runLength = i - runStart;
+                    if (runLength >= LONG_ENTRANCE) {
+                        this.transition(a + runStart * step, b + runStart * step, 0);
+                        this.transition(a + (i - 1) * step, b + (i - 1) * step, 0);
+                    } else {
+                        int middle = runStart + runLength / 2;
+                        this.transition(a + middle * step, b + middle * step, 0);
+                    }
+                    runStart = -1;
+                }
+            }
+        }
+
+        /**
+         * A diagonal step between two clusters is only needed when both corner cells are blocked,
+         * otherwise the same crossing is covered by the straight entrances
+         */
+        private void diagonalCrossing(int ax, int ay, int bx, int by) {
+            if (by < 0 || by >= this.yMax || ay < 0 || ay >= this.yMax || bx < 0 || bx >= this.xMax) return;
+
+            int a = ax + ay * this.xMax;
+            int b = bx + by * this.xMax;
+            if (this.isAccessible(a) && this.isAccessible(b)
+                    && !this.isAccessible(bx + ay * this.xMax) && !this.isAccessible(ax + by * this.xMax)) {
+                this.transition(a, b, 0.5);
+            }
+        }
+
+        private void transition(int a, int b, double surcharge) {
+            int nodeA = this.node(a);
+            int nodeB = this.node(b);
+            this.interEdges.add(nodeA, nodeB, this.terrain.getField(b).getWeight() + surcharge);
+            this.interEdges.add(nodeB, nodeA, this.terrain.getField(a).getWeight() + surcharge);
+        }
+
+        private int node(int cell) {
+            Integer id = this.nodeIds.get(cell);
+            if (id != null) return id;
+
+            id = this.nodeIds.size();
+            if (id == this.cells.length) {
+                this.cells = Arrays.copyOf(this.cells, id * 2);
+            }
+            this.cells[id] = cell;
+            this.nodeIds.put(cell, id);
+            return id;
+        }
+
+        int[] nodeCells() {
+            return Arrays.copyOf(this.cells, this.nodeIds.size());
+        }
+
+        int[][] clusterNodes(int[] nodeCells) {
+            int clustersX = (this.xMax + this.clusterSize - 1) / this.clusterSize;
+            int clustersY = (this.yMax + this.clusterSize - 1) / this.clusterSize;
+            int[] counts = new int[clustersX * clustersY];
+            int[] clusterOf = new int[nodeCells.length];
+            for (int i = 0; i < nodeCells.length; i++) {
+                int x = nodeCells[i] % this.xMax;
+                int y = nodeCells[i] / this.xMax;
+                clusterOf[i] = (y / this.clusterSize) * clustersX + (x / this.clusterSize);
+                counts[clusterOf[i]]++;
+            }
+
+            int[][] clusterNodes = new int[counts.length][];
+            for (int i = 0; i < counts.length; i++) {
+                clusterNodes[i] = new int[counts[i]];
+                counts[i] = 0;
+            }
+            for (int i = 0; i < nodeCells.length; i++) {
+                clusterNodes[clusterOf[i]][counts[clusterOf[i]]++] = i;
+            }
+            return clusterNodes;
+        }
+
+        private boolean isAccessible(int cell) {
+            return (this.accessibleMask & (1 << this.terrain.getOrdinal(cell))) != 0;
+        }
+    }
+
+    private static class EdgeList {
+
+        int[] from = new int[16];
+        int[] to = new int[16];
+        double[] cost = new double[16];
+        int size;
+
+        void add(int from, int to, double cost) {
+            if (this.size == this.from.length) {
+                this.from = Arrays.copyOf(this.from, this.size * 2);
+                this.to = Arrays.copyOf(this.to, this.size * 2);
+                this.cost = Arrays.copyOf(this.cost, this.size * 2);
+            }
+            this.from[this.size] = from;
+            this.to[this.size] = to;
+            this.cost[this.size] = cost;
+            this.size++;
+        }
+
+        void addAll(EdgeList other) {
+            for (int i = 0; i < other.size; i++) {
+                this.add(other.from[i], other.to[i], other.cost[i]);
+            }
+        }
+    }
+}
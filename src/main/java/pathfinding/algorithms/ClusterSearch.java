@@ -0,0 +1,109 @@
+package pathfinding.algorithms;
+
+import java.util.Arrays;
+
+/**
+ * Dijkstra that never leaves the cluster of its source cell
+ * Used for the intra-edges of a ClusterGraph, for connecting start and goal to it and for refining segments
+ */
+class ClusterSearch {
+
+    private final ClusterGraph graph;
+    private final double[] gCost;
+    private final int[] parents;
+    private final OpenList openList;
+
+    private int x0, y0, width, height;
+
+    ClusterSearch(ClusterGraph graph) {
+        int size = graph.clusterSize * graph.clusterSize;
+        this.graph = graph;
+        this.gCost = new double[size];
+        this.parents = new int[size];
+        this.openList = new OpenList(size);
+    }
+
+    /**
+     * Searches from the source through its cluster and stops once the target is settled, -1 settles everything
+     * In reverse the costs are those of paths from each cell to the source instead
+     */
+    void run(int source, int target, boolean reverse) {
+        int sourceX = source % this.graph.xMax;
+        int sourceY = source / this.graph.xMax;
+        this.x0 = sourceX - sourceX % this.graph.clusterSize;
+        this.y0 = sourceY - sourceY % this.graph.clusterSize;
+        this.width = Math.min(this.graph.clusterSize, this.graph.xMax - this.x0);
+        this.height = Math.min(this.graph.clusterSize, this.graph.yMax - this.y0);
+
+        Arrays.fill(this.gCost, 0, this.width * this.height, Double.MAX_VALUE);
+        this.openList.clear();
+
+        int sourceLocal = this.local(sourceX, sourceY);
+        this.gCost[sourceLocal] = 0;
+        this.parents[sourceLocal] = -1;
+        this.openList.add(sourceLocal, 0);
+
+        int targetLocal = target == -1 ? -1 : this.local(target % this.graph.xMax, target / this.graph.xMax);
+        while (!this.openList.isEmpty()) {
+            int index = this.openList.poll();
+            if (index == targetLocal) return;
+
+            int x = index % this.width;
+            int y = index / this.width;
+            int cell = (this.y0 + y) * this.graph.xMax + this.x0 + x;
+            for (int[] xy : AStar.NEIGHBOUR_COORDS) {
+                boolean diagonal = xy[0] != 0 && xy[1] != 0;
+                if (diagonal && !this.graph.diagonal) continue;
+
+                int nx = x + xy[0];
+                int ny = y + xy[1];
+                if (nx < 0 || ny < 0 || nx >= this.width || ny >= this.height) continue;
+
+                int neighbour = (this.y0 + ny) * this.graph.xMax + this.x0 + nx;
+                if (!this.graph.isAccessible(neighbour)) continue;
+
+                // A step always costs the weight of the field it enters
+                double step = this.graph.terrain.getField(reverse ? cell : neighbour).getWeight() + (diagonal ? 0.5 : 0);
+                int neighbourLocal = ny * this.width + nx;
+                double g = this.gCost[index] + step;
+                if (g < this.gCost[neighbourLocal]) {
+                    this.gCost[neighbourLocal] = g;
+                    this.parents[neighbourLocal] = index;
+                    this.openList.add(neighbourLocal, g);
+                }
+            }
+        }
+    }
+
+    /**
+     * Cost of the last run to the cell, Double.MAX_VALUE if it was not reached or lies outside the cluster
+     */
+    double getCost(int cell) {
+        int x = cell % this.graph.xMax - this.x0;
+        int y = cell / this.graph.xMax - this.y0;
+        if (x < 0 || y < 0 || x >= this.width || y >= this.height) return Double.MAX_VALUE;
+        return this.gCost[y * this.width + x];
+    }
+
+    /**
+     * Cells from the source of the last forward run to the cell, both included
+     */
+    int[] getPath(int cell) {
+        int index = this.local(cell % this.graph.xMax, cell / this.graph.xMax);
+        int length = 1;
+        for (int parent = this.parents[index]; parent != -1; parent = this.parents[parent]) {
+            length++;
+        }
+
+        int[] path = new int[length];
+        for (int i = length - 1; i >= 0; i--) {
+            path[i] = (this.y0 + index / this.width) * this.graph.xMax + this.x0 + index % this.width;
+            index = this.parents[index];
+        }
+        return path;
+    }
+
+    private int local(int x, int y) {
+        return (y - this.y0) * this.width + (x - this.x0);
+    }
+}
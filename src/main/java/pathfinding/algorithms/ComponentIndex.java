@@ -0,0 +1,94 @@
+package pathfinding.algorithms;
+
+import pathfinding.TerrainGrid;
+
+/**
+ * Connected regions of accessible fields for one accessibility mask and movement type
+ * Two accessible cells can reach each other exactly when they carry the same label,
+ * which lets the engine reject unreachable goals without searching the whole region first
+ */
+public class ComponentIndex {
+
+    private final int xMax, yMax;
+    private final boolean diagonal;
+    // 0 for inaccessible cells, otherwise the 1 based region number
+    private final int[] labels;
+    private final int componentCount;
+
+    private ComponentIndex(int xMax, int yMax, boolean diagonal, int[] labels, int componentCount) {
+        this.xMax = xMax;
+        this.yMax = yMax;
+        this.diagonal = diagonal;
+        this.labels = labels;
+        this.componentCount = componentCount;
+    }
+
+    public static ComponentIndex build(TerrainGrid terrain, int xMax, int yMax, int accessibleMask, boolean diagonal) {
+        int[] labels = new int[terrain.size()];
+        int[] stack = new int[terrain.size()];
+        int count = 0;
+
+        for (int i = 0; i < terrain.size(); i++) {
+            if (labels[i] != 0 || !isAccessible(terrain.getOrdinal(i), accessibleMask)) continue;
+
+            labels[i] = ++count;
+            int top = 0;
+            stack[top++] = i;
+            while (top > 0) {
+                int index = stack[--top];
+                int x = index % xMax;
+                int y = index / xMax;
+                for (int[] xy : AStar.NEIGHBOUR_COORDS) {
+                    if (!diagonal && xy[0] != 0 && xy[1] != 0) continue;
+
+                    int nx = x + xy[0];
+                    int ny = y + xy[1];
+                    if (nx < 0 || ny < 0 || nx >= xMax || ny >= yMax) continue;
+
+                    int neighbour = (ny * xMax) + nx;
+                    if (labels[neighbour] == 0 && isAccessible(terrain.getOrdinal(neighbour), accessibleMask)) {
+                        labels[neighbour] = count;
+                        stack[top++] = neighbour;
+                    }
+                }
+            }
+        }
+        return new ComponentIndex(xMax, yMax, diagonal, labels, count);
+    }
+
+    public int getLabel(int index) {
+        return this.labels[index];
+    }
+
+    public int getComponentCount() {
+        return this.componentCount;
+    }
+
+    /**
+     * Whether a path from start to goal exists
+     * The start itself does not need to be accessible, it only has to border the goal's region
+     */
+    public boolean isReachable(int start, int goal) {
+        if (start == goal) return true;
+
+        int label = this.labels[goal];
+        if (label == 0) return false;
+        if (this.labels[start] != 0) return this.labels[start] == label;
+
+        int x = start % this.xMax;
+        int y = start / this.xMax;
+        for (int[] xy : AStar.NEIGHBOUR_COORDS) {
+            if (!this.diagonal && xy[0] != 0 && xy[1] != 0) continue;
+
+            int nx = x + xy[0];
+            int ny = y + xy[1];
+            if (nx < 0 || ny < 0 || nx >= this.xMax || ny >= this.yMax) continue;
+            if (this.labels[(ny * this.xMax) + nx] == label) return true;
+        }
+        return false;
+    }
+
+    private static boolean isAccessible(int ordinal, int accessibleMask) {
+        return (accessibleMask & (1 << ordinal)) != 0;
+    }
+}
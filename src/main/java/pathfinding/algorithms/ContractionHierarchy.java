@@ -0,0 +1,646 @@
+package pathfinding.algorithms;
+
+import pathfinding.TerrainGrid;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Contraction hierarchy over the cells of a static map, for one accessibility mask and movement type
+ * Preprocessing contracts cells from least to most important and adds shortcut edges that keep every
+ * shortest path intact, queries then run two tiny Dijkstra searches that only ever go upwards in that
+ * order and meet at the most important cell of the path
+ * Costs are kept in whole half-steps, so they stay exact like the rest of the engine
+ */
+public class ContractionHierarchy {
+
+    // Witness searches give up after settling this many cells and keep the shortcut instead
+    private static final int WITNESS_SETTLE_LIMIT = 500;
+    // Priorities only estimate the shortcuts, direct edges as witnesses order the cells nearly as well for a fraction of the work
+    private static final int PRIORITY_SETTLE_LIMIT = 1;
+
+    private final int xMax, yMax;
+    private final QueryOptions options;
+    private final ComponentIndex components;
+    private final int[] rank;
+
+    // Edges to higher ranked cells, used by the forward search
+    private final int[] upOffsets, upTargets, upCosts, upMiddles;
+    // Edges from higher ranked cells, used by the backward search
+    private final int[] downOffsets, downSources, downCosts, downMiddles;
+    private final int shortcutCount;
+
+    private final ThreadLocal<Query> queries;
+
+    private ContractionHierarchy(Builder builder, QueryOptions options, ComponentIndex components) {
+        this.xMax = builder.xMax;
+        this.yMax = builder.yMax;
+        this.options = options;
+        this.components = components;
+        this.rank = builder.rank;
+
+        int n = builder.n;
+        this.upOffsets = new int[n + 1];
+        this.downOffsets = new int[n + 1];
+        for (int v = 0; v < n; v++) {
+            this.upOffsets[v + 1] = this.upOffsets[v] + builder.outCount[v];
+            this.downOffsets[v + 1] = this.downOffsets[v] + builder.inCount[v];
+        }
+        this.upTargets = new int[this.upOffsets[n]];
+        this.upCosts = new int[this.upOffsets[n]];
+        this.upMiddles = new int[this.upOffsets[n]];
+        this.downSources = new int[this.downOffsets[n]];
+        this.downCosts = new int[this.downOffsets[n]];
+        this.downMiddles = new int[this.downOffsets[n]];
+
+        int shortcuts = 0;
+        for (int v = 0; v < n; v++) {
+            int[] out = builder.out[v];
+            for (int i = 0, slot = this.upOffsets[v]; i < builder.outCount[v]; i++, slot++) {
+                this.upTargets[slot] = out[i * 3];
+                this.upCosts[slot] = out[i * 3 + 1];
+                this.upMiddles[slot] = out[i * 3 + 2];
+                if (out[i * 3 + 2] != -1) shortcuts++;
+            }
+            int[] in = builder.in[v];
+            for (int i = 0, slot = this.downOffsets[v]; i < builder.inCount[v]; i++, slot++) {
+                this.downSources[slot] = in[i * 3];
+                this.downCosts[slot] = in[i * 3 + 1];
+                this.downMiddles[slot] = in[i * 3 + 2];
+                if (in[i * 3 + 2] != -1) shortcuts++;
+            }
+        }
+        this.shortcutCount = shortcuts;
+        this.queries = ThreadLocal.withInitial(() -> new Query(n));
+    }
+
+    /**
+     * Contracts the whole map of the engine, witness searches and priority updates run on the given number of threads
+     */
+    public static ContractionHierarchy build(AStar engine, QueryOptions options, int parallelism) {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            Builder builder = new Builder(engine.terrain, engine.xMax, engine.yMax, options, pool);
+            builder.contract();
+            return new ContractionHierarchy(builder, options, engine.getComponents(options));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    public static ContractionHierarchy build(AStar engine, QueryOptions options) {
+        return build(engine, options, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Accessibility mask and movement type the hierarchy was built for, everything else is ignored
+     */
+    public QueryOptions getOptions() {
+        return this.options;
+    }
+
+    public int getShortcutCount() {
+        return this.shortcutCount;
+    }
+
+    public PathResult findPath(int startX, int startY, int endX, int endY) {
+        if (startX < 0 || startY < 0 || startX >= this.xMax || startY >= this.yMax
+                || endX < 0 || endY < 0 || endX >= this.xMax || endY >= this.yMax) {
+            throw new IllegalArgumentException("Start %s,%s or goal %s,%s is outside of the map".formatted(startX, startY, endX, endY));
+        }
+
+        long startTime = System.nanoTime();
+        int start = (startY * this.xMax) + startX;
+        int goal = (endY * this.xMax) + endX;
+        if (start == goal) {
+            return new PathResult(PathResult.Status.FOUND, this.xMax, new int[]{ start }, new int[0], 0, 0, System.nanoTime() - startTime);
+        }
+        if (!this.components.isReachable(start, goal)) {
+            return PathResult.noPath(this.xMax, new int[0], 0, System.nanoTime() - startTime);
+        }
+
+        Query query = this.queries.get();
+        query.reset();
+        query.forward.visit(start, 0, -1);
+        query.backward.visit(goal, 0, -1);
+
+        int best = Integer.MAX_VALUE;
+        int meeting = -1;
+        int expansions = 0;
+        while (true) {
+            // Each direction stops once nothing it could still settle beats the best meeting so far
+            boolean forwardDone = query.forward.openList.isEmpty() || query.forward.openList.peekKey() >= best;
+            boolean backwardDone = query.backward.openList.isEmpty() || query.backward.openList.peekKey() >= best;
+            if (forwardDone && backwardDone) break;
+
+            boolean forward = backwardDone || (!forwardDone && query.forward.openList.peekKey() <= query.backward.openList.peekKey());
+            Direction side = forward ? query.forward : query.backward;
+            Direction other = forward ? query.backward : query.forward;
+
+            int v = side.openList.poll();
+            int dist = side.getDist(v);
+            expansions++;
+
+            int otherDist = other.getDist(v);
+            if (otherDist != Integer.MAX_VALUE && dist + otherDist < best) {
+                best = dist + otherDist;
+                meeting = v;
+            }
+
+            // Stall on demand, a cell reached cheaper over a higher ranked neighbour is not on any shortest path
+            if (this.isStalled(side, v, dist, forward)) continue;
+
+            int[] offsets = forward ? this.upOffsets : this.downOffsets;
+            int[] targets = forward ? this.upTargets : this.downSources;
+            int[] costs = forward ? this.upCosts : this.downCosts;
+            for (int edge = offsets[v]; edge < offsets[v + 1]; edge++) {
+                int next = targets[edge];
+                int nextDist = dist + costs[edge];
+                if (nextDist < side.getDist(next)) {
+                    side.visit(next, nextDist, v);
+                }
+            }
+        }
+
+        if (meeting == -1) {
+            return PathResult.noPath(this.xMax, new int[0], expansions, System.nanoTime() - startTime);
+        }
+        return new PathResult(PathResult.Status.FOUND, this.xMax, this.unpack(query, start, meeting), new int[0],
+                best / (double) Builder.COST_SCALE, expansions, System.nanoTime() - startTime);
+    }
+
+    private boolean isStalled(Direction side, int v, int dist, boolean forward) {
+        int[] offsets = forward ? this.downOffsets : this.upOffsets;
+        int[] cells = forward ? this.downSources : this.upTargets;
+        int[] costs = forward ? this.downCosts : this.upCosts;
+        for (int edge = offsets[v]; edge < offsets[v + 1]; edge++) {
+            int higher = side.getDist(cells[edge]);
+            if (higher != Integer.MAX_VALUE && higher + costs[edge] < dist) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Turns the upward path through the meeting cell back into neighbouring cells by replacing every
+     * shortcut with the two edges it was made of
+     */
+    private int[] unpack(Query query, int start, int meeting) {
+        // Hierarchy path, start to meeting from the forward parents and meeting to goal from the backward ones
+        int length = 0;
+        for (int v = meeting; v != -1; v = query.forward.parents[v]) {
+            length++;
+        }
+        for (int v = query.backward.parents[meeting]; v != -1; v = query.backward.parents[v]) {
+            length++;
+        }
+        int[] nodes = new int[length];
+        int i = 0;
+        for (int v = meeting; v != -1; v = query.forward.parents[v]) {
+            nodes[i++] = v;
+        }
+        reverse(nodes, i);
+        for (int v = query.backward.parents[meeting]; v != -1; v = query.backward.parents[v]) {
+            nodes[i++] = v;
+        }
+
+        int[] path = new int[Math.max(length, 16)];
+        path[0] = start;
+        int size = 1;
+        int[] stack = new int[64];
+        for (int n = 1; n < nodes.length; n++) {
+            int top = 0;
+            stack[top++] = nodes[n - 1];
+            stack[top++] = nodes[n];
+            while (top > 0) {
+                int to = stack[--top];
+                int from = stack[--top];
+                int middle = this.middle(from, to);
+                if (middle == -1) {
+                    if (size == path.length) {
+                        path = Arrays.copyOf(path, size * 2);
+                    }
+                    path[size++] = to;
+                } else {
+                    if (top + 4 > stack.length) {
+                        stack = Arrays.copyOf(stack, stack.length * 2);
+                    }
+                    // Second half goes on the stack first, so the first half comes out first
+                    stack[top++] = middle;
+                    stack[top++] = to;
+                    stack[top++] = from;
+                    stack[top++] = middle;
+                }
+            }
+        }
+        return Arrays.copyOf(path, size);
+    }
+
+    /**
+     * Cell the cheapest edge between two cells was shortcut over, -1 for an original edge
+     */
+    private int middle(int from, int to) {
+        int best = Integer.MAX_VALUE;
+        int middle = -1;
+        if (this.rank[from] < this.rank[to]) {
+            for (int edge = this.upOffsets[from]; edge < this.upOffsets[from + 1]; edge++) {
+                if (this.upTargets[edge] == to && this.upCosts[edge] < best) {
+                    best = this.upCosts[edge];
+                    middle = this.upMiddles[edge];
+                }
+            }
+        } else {
+            for (int edge = this.downOffsets[to]; edge < this.downOffsets[to + 1]; edge++) {
+                if (this.downSources[edge] == from && this.downCosts[edge] < best) {
+                    best = this.downCosts[edge];
+                    middle = this.downMiddles[edge];
+                }
+            }
+        }
+        return middle;
+    }
+
+    private static void reverse(int[] array, int length) {
+        for (int i = 0, j = length - 1; i < j; i++, j--) {
+            int tmp = array[i];
+            array[i] = array[j];
+            array[j] = tmp;
+        }
+    }
+
+    /**
+     * Per thread state of the bidirectional query
+     */
+    private static class Query {
+
+        final Direction forward, backward;
+
+        Query(int n) {
+            this.forward = new Direction(n);
+            this.backward = new Direction(n);
+        }
+
+        void reset() {
+            this.forward.reset();
+            this.backward.reset();
+        }
+    }
+
+    private static class Direction {
+
+        final OpenList openList;
+        final int[] dist;
+        final int[] parents;
+        final int[] stamps;
+        int generation;
+
+        Direction(int n) {
+            this.openList = new OpenList(n);
+            this.dist = new int[n];
+            this.parents = new int[n];
+            this.stamps = new int[n];
+        }
+
+        void reset() {
+            this.openList.clear();
+            if (++this.generation == Integer.MAX_VALUE) {
+                Arrays.fill(this.stamps, 0);
+                this.generation = 1;
+            }
+        }
+
+        int getDist(int v) {
+            return this.stamps[v] == this.generation ? this.dist[v] : Integer.MAX_VALUE;
+        }
+
+        void visit(int v, int dist, int parent) {
+            this.stamps[v] = this.generation;
+            this.dist[v] = dist;
+            this.parents[v] = parent;
+            this.openList.add(v, dist);
+        }
+    }
+
+    /**
+     * Contracts cells in rounds, every round picks an independent set of cells that are less important
+     * than all of their neighbours and contracts them in parallel
+     * Edges are stored as (cell, cost, middle) triples in per cell arrays
+     */
+    private static class Builder {
+
+        static final int COST_SCALE = 2;
+
+        final int xMax, yMax, n;
+        final int[][] out, in;
+        final int[] outCount, inCount;
+        final int[] rank;
+
+        private final boolean[] contracted;
+        private final int[] priority;
+        private final int[] contractedNeighbours;
+        // Longest chain of contracted cells below each cell
+        private final int[] level;
+        private final ForkJoinPool pool;
+        private final ThreadLocal<Witness> witnesses;
+
+        // Remaining neighbours of the cells contracted in the current round
+        private final boolean[] touched;
+        private int[] touchedList = new int[16];
+        private int touchedCount;
+
+        Builder(TerrainGrid terrain, int xMax, int yMax, QueryOptions options, ForkJoinPool pool) {
+            this.xMax = xMax;
+            this.yMax = yMax;
+            this.n = terrain.size();
+            this.out = new int[this.n][];
+            this.in = new int[this.n][];
+            this.outCount = new int[this.n];
+            this.inCount = new int[this.n];
+            this.rank = new int[this.n];
+            this.contracted = new boolean[this.n];
+            this.priority = new int[this.n];
+            this.contractedNeighbours = new int[this.n];
+            this.level = new int[this.n];
+            this.pool = pool;
+            this.witnesses = ThreadLocal.withInitial(() -> new Witness(this.n));
+            this.touched = new boolean[this.n];
+
+            for (int v = 0; v < this.n; v++) {
+                this.out[v] = new int[3 * 8];
+                this.in[v] = new int[3 * 8];
+            }
+
+            // Every step costs the weight of the field it enters, so inaccessible cells only have outgoing edges
+            for (int v = 0; v < this.n; v++) {
+                int x = v % xMax;
+                int y = v / xMax;
+                for (int[] xy : AStar.NEIGHBOUR_COORDS) {
+                    boolean diagonal = xy[0] != 0 && xy[1] != 0;
+                    if (diagonal && !options.isDiagonal()) continue;
+
+                    int nx = x + xy[0];
+                    int ny = y + xy[1];
+                    if (nx < 0 || ny < 0 || nx >= xMax || ny >= yMax) continue;
+
+                    int w = ny * xMax + nx;
+                    if (!options.isAccessible(terrain.getField(w))) continue;
+
+                    int cost = (int) (terrain.getField(w).getWeight() * COST_SCALE) + (diagonal ? 1 : 0);
+                    this.append(v, w, cost, -1);
+                }
+            }
+        }
+
+        void contract() {
+            this.pool.submit(() -> IntStream.range(0, this.n).parallel()
+                    .forEach(v -> this.priority[v] = this.computePriority(v))).join();
+
+            int[] remaining = IntStream.range(0, this.n).toArray();
+            int nextRank = 0;
+            while (remaining.length > 0) {
+                int[] current = remaining;
+                int[] selected = this.pool.submit(() -> IntStream.of(current).parallel()
+                        .filter(this::isLocalMinimum).toArray()).join();
+
+                // Witness searches must not run through any cell of this round
+                for (int v : selected) {
+                    this.contracted[v] = true;
+                }
+                int[][] shortcuts = this.pool.submit(() -> IntStream.of(selected).parallel()
+                        .mapToObj(v -> this.shortcuts(v, true)).toArray(int[][]::new)).join();
+
+                this.touchedCount = 0;
+                for (int i = 0; i < selected.length; i++) {
+                    int v = selected[i];
+                    this.rank[v] = nextRank++;
+
+                    int[] list = shortcuts[i];
+                    for (int s = 1; s < list[0]; s += 3) {
+                        this.addOrImprove(list[s], list[s + 1], list[s + 2], v);
+                    }
+                    this.touch(v, this.out[v], this.outCount[v]);
+                    this.touch(v, this.in[v], this.inCount[v]);
+                }
+
+                // Neighbours drop their edges to contracted cells and get a fresh priority,
+                // compacting has to finish first as the priority runs witness searches over other neighbours
+                int[] neighbours = Arrays.copyOf(this.touchedList, this.touchedCount);
+                this.pool.submit(() -> IntStream.of(neighbours).parallel().forEach(this::compact)).join();
+                this.pool.submit(() -> IntStream.of(neighbours).parallel()
+                        .forEach(u -> this.priority[u] = this.computePriority(u))).join();
+                for (int u : neighbours) {
+                    this.touched[u] = false;
+                }
+
+                remaining = IntStream.of(remaining).filter(v -> !this.contracted[v]).toArray();
+            }
+        }
+
+        /**
+         * Counts the contraction of v for every remaining neighbour, lifts their level above it and collects the ones not seen this round yet
+         */
+        private void touch(int v, int[] edges, int count) {
+            for (int e = 0; e < count; e++) {
+                int u = edges[e * 3];
+                if (this.contracted[u]) continue;
+
+                this.contractedNeighbours[u]++;
+                this.level[u] = Math.max(this.level[u], this.level[v] + 1);
+                if (!this.touched[u]) {
+                    this.touched[u] = true;
+                    if (this.touchedCount == this.touchedList.length) {
+                        this.touchedList = Arrays.copyOf(this.touchedList, this.touchedCount * 2);
+                    }
+                    this.touchedList[this.touchedCount++] = u;
+                }
+            }
+        }
+
+        private int computePriority(int v) {
+            int shortcuts = (this.shortcuts(v, false)[0] - 1) / 3;
+            // Edge difference first, contracted neighbours and level spread the contraction evenly over the map
+            return 4 * (shortcuts - this.outCount[v] - this.inCount[v]) + 2 * this.contractedNeighbours[v] + this.level[v];
+        }
+
+        /**
+         * A cell is picked when it is less important than every neighbour that is still in the graph
+         */
+        private boolean isLocalMinimum(int v) {
+            long key = key(v);
+            for (int e = 0; e < this.outCount[v]; e++) {
+                int u = this.out[v][e * 3];
+                if (!this.contracted[u] && key(u) < key) return false;
+            }
+            for (int e = 0; e < this.inCount[v]; e++) {
+                int u = this.in[v][e * 3];
+                if (!this.contracted[u] && key(u) < key) return false;
+            }
+            return true;
+        }
+
+        private long key(int v) {
+            // Ties are broken by a scrambled cell index, so neighbouring cells do not always lose to the same side
+            return ((long) this.priority[v] << 32) | ((v * 0x9E3779B1) & 0xFFFFFFFFL);
+        }
+
+        /**
+         * Shortcuts contracting v would need, as (from, to, cost) triples behind the used length in slot 0
+         */
+        private int[] shortcuts(int v, boolean contracting) {
+            int[] result = new int[16];
+            int size = 1;
+            Witness witness = this.witnesses.get();
+
+            int maxOut = 0;
+            for (int e = 0; e < this.outCount[v]; e++) {
+                if (!this.contracted[this.out[v][e * 3]]) {
+                    maxOut = Math.max(maxOut, this.out[v][e * 3 + 1]);
+                }
+            }
+
+            for (int i = 0; i < this.inCount[v]; i++) {
+                int u = this.in[v][i * 3];
+                int inCost = this.in[v][i * 3 + 1];
+                if (this.contracted[u]) continue;
+
+                witness.run(this, u, v, inCost + maxOut, this.out[v], this.outCount[v], contracting ? WITNESS_SETTLE_LIMIT : PRIORITY_SETTLE_LIMIT);
+                for (int o = 0; o < this.outCount[v]; o++) {
+                    int w = this.out[v][o * 3];
+                    if (w == u || this.contracted[w]) continue;
+
+                    int cost = inCost + this.out[v][o * 3 + 1];
+                    if (witness.getDist(w) > cost) {
+                        if (size + 3 > result.length) {
+                            result = Arrays.copyOf(result, result.length * 2);
+                        }
+                        result[size++] = u;
+                        result[size++] = w;
+                        result[size++] = cost;
+                    }
+                }
+            }
+            result[0] = size;
+            return contracting ? Arrays.copyOf(result, size) : result;
+        }
+
+        private void addOrImprove(int from, int to, int cost, int middle) {
+            int[] out = this.out[from];
+            for (int e = 0; e < this.outCount[from]; e++) {
+                if (out[e * 3] != to) continue;
+                if (out[e * 3 + 1] <= cost) return;
+
+                out[e * 3 + 1] = cost;
+                out[e * 3 + 2] = middle;
+                int[] in = this.in[to];
+                for (int f = 0; f < this.inCount[to]; f++) {
+                    if (in[f * 3] == from) {
+                        in[f * 3 + 1] = cost;
+                        in[f * 3 + 2] = middle;
+                    }
+                }
+                return;
+            }
+            this.append(from, to, cost, middle);
+        }
+
+        private void append(int from, int to, int cost, int middle) {
+            this.out[from] = push(this.out[from], this.outCount[from]++, to, cost, middle);
+            this.in[to] = push(this.in[to], this.inCount[to]++, from, cost, middle);
+        }
+
+        private static int[] push(int[] edges, int index, int cell, int cost, int middle) {
+            if (index * 3 + 3 > edges.length) {
+                edges = Arrays.copyOf(edges, edges.length * 2);
+            }
+            edges[index * 3] = cell;
+            edges[index * 3 + 1] = cost;
+            edges[index * 3 + 2] = middle;
+            return edges;
+        }
+
+        private void compact(int v) {
+            this.outCount[v] = compact(this.out[v], this.outCount[v]);
+            this.inCount[v] = compact(this.in[v], this.inCount[v]);
+        }
+
+        private int compact(int[] edges, int count) {
+            int kept = 0;
+            for (int e = 0; e < count; e++) {
+                if (this.contracted[edges[e * 3]]) continue;
+                System.arraycopy(edges, e * 3, edges, kept * 3, 3);
+                kept++;
+            }
+            return kept;
+        }
+    }
+
+    /**
+     * Bounded Dijkstra that looks for a path avoiding the cell being contracted
+     */
+    private static class Witness {
+
+        final OpenList openList;
+        final int[] dist;
+        final int[] stamps;
+        final int[] targetStamps;
+        int generation;
+
+        Witness(int n) {
+            this.openList = new OpenList(n);
+            this.dist = new int[n];
+            this.stamps = new int[n];
+            this.targetStamps = new int[n];
+        }
+
+        /**
+         * Stops early once every target, the remaining neighbours behind the avoided cell, is settled
+         */
+        void run(Builder builder, int source, int avoid, int maxCost, int[] targets, int targetCount, int settleLimit) {
+            this.openList.clear();
+            if (++this.generation == Integer.MAX_VALUE) {
+                Arrays.fill(this.stamps, 0);
+                Arrays.fill(this.targetStamps, 0);
+                this.generation = 1;
+            }
+            this.visit(source, 0);
+
+            int open = 0;
+            for (int e = 0; e < targetCount; e++) {
+                int w = targets[e * 3];
+                if (w != source && !builder.contracted[w] && this.targetStamps[w] != this.generation) {
+                    this.targetStamps[w] = this.generation;
+                    open++;
+                }
+            }
+
+            int settled = 0;
+            while (open > 0 && !this.openList.isEmpty() && settled++ < settleLimit) {
+                int v = this.openList.poll();
+                int d = this.dist[v];
+                if (d > maxCost) break;
+                if (this.targetStamps[v] == this.generation) open--;
+
+                int[] out = builder.out[v];
+                for (int e = 0; e < builder.outCount[v]; e++) {
+                    int w = out[e * 3];
+                    if (w == avoid || builder.contracted[w]) continue;
+
+                    int next = d + out[e * 3 + 1];
+                    if (next < this.getDist(w)) {
+                        this.visit(w, next);
+                    }
+                }
+            }
+        }
+
+        int getDist(int v) {
+            return this.stamps[v] == this.generation ? this.dist[v] : Integer.MAX_VALUE;
+        }
+
+        private void visit(int v, int dist) {
+            this.stamps[v] = this.generation;
+            this.dist[v] = dist;
+            this.openList.add(v, dist);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package pathfinding.algorithms;
+
+import pathfinding.MapField;
+import pathfinding.TerrainGrid;
+
+/**
+ * Cost of entering every cell for one accessibility mask, infinite for cells that cannot be entered
+ * Replaces the field lookup and weight switch of the search loops with a single float read per neighbour.
+ * Never changed once built, updates return a copy that shares every tile they did not touch, so any number
+ * of searches can read it at once and searches that are still running keep the grid they started with
+ * For terrain off the heap no cell is copied, costs are read from the terrain through a weight per field instead
+ */
+public final class CostGrid {
+
+    // Cells per tile, an update copies only the tiles of its cells
+    private static final int TILE_SHIFT = 12;
+    private static final int TILE_MASK = (1 << TILE_SHIFT) - 1;
+
+    private final int accessibleMask;
+    private final int size;
+    // Null when the costs are read from the terrain
+    private final float[][] tiles;
+    private final TerrainGrid terrain;
+    // Cost of entering a field by ordinal, only used without tiles
+    private final float[] weights;
+
+    private CostGrid(int accessibleMask, int size, float[][] tiles) {
+        this.accessibleMask = accessibleMask;
+        this.size = size;
+        this.tiles = tiles;
+        this.terrain = null;
+        this.weights = null;
+    }
+
+    private CostGrid(TerrainGrid terrain, int accessibleMask) {
+        this.accessibleMask = accessibleMask;
+        this.size = terrain.size();
+        this.tiles = null;
+        this.terrain = terrain;
+        this.weights = new float[MapField.values().length];
+        for (MapField field : MapField.values()) {
+            this.weights[field.ordinal()] = cost(field, accessibleMask);
+        }
+    }
+
+    public static CostGrid build(TerrainGrid terrain, int accessibleMask) {
+        if (terrain.isOffHeap()) return new CostGrid(terrain, accessibleMask);
+
+        float[][] tiles = new float[(terrain.size() + TILE_MASK) >>> TILE_SHIFT][];
+        for (int t = 0; t < tiles.length; t++) {
+            int first = t << TILE_SHIFT;
+            tiles[t] = new float[Math.min(TILE_MASK + 1, terrain.size() - first)];
+            for (int i = 0; i < tiles[t].length; i++) {
+                tiles[t][i] = cost(terrain.getField(first + i), accessibleMask);
+            }
+        }
+        return new CostGrid(accessibleMask, terrain.size(), tiles);
+    }
+
+    /**
+     * Grid for another mask, only cells whose field changed accessibility are looked at again
+     */
+    public CostGrid withAccessibleMask(TerrainGrid terrain, int accessibleMask) {
+        int flipped = this.accessibleMask ^ accessibleMask;
+        if (flipped == 0) return this;
+        if (this.tiles == null) return new CostGrid(terrain, accessibleMask);
+
+        float[][] tiles = this.tiles.clone();
+        for (int i = 0; i < this.size; i++) {
+            if ((flipped & (1 << terrain.getOrdinal(i))) != 0) {
+                this.writable(tiles, i)[i & TILE_MASK] = cost(terrain.getField(i), accessibleMask);
+            }
+        }
+        return new CostGrid(accessibleMask, this.size, tiles);
+    }
+
+    /**
+     * Grid after the given cells of the map changed, costs the tiles of the cells instead of the whole grid
+     */
+    public CostGrid update(TerrainGrid terrain, int... cells) {
+        // Read from the terrain, a running search sees the change as well
+        if (this.tiles == null) return this;
+
+        float[][] tiles = this.tiles.clone();
+        for (int cell : cells) {
+            this.writable(tiles, cell)[cell & TILE_MASK] = cost(terrain.getField(cell), this.accessibleMask);
+        }
+        return new CostGrid(this.accessibleMask, this.size, tiles);
+    }
+
+    /**
+     * Tile of the cell in the new grid, copied on the first write so this grid stays as it is
+     */
+    private float[] writable(float[][] tiles, int cell) {
+        int tile = cell >>> TILE_SHIFT;
+        if (tiles[tile] == this.tiles[tile]) {
+            tiles[tile] = this.tiles[tile].clone();
+        }
+        return tiles[tile];
+    }
+
+    private static float cost(MapField field, int accessibleMask) {
+        return (accessibleMask & (1 << field.ordinal())) != 0 ? (float) field.getWeight() : Float.POSITIVE_INFINITY;
+    }
+
+    public int getAccessibleMask() {
+        return this.accessibleMask;
+    }
+
+    /**
+     * Weight of the cell, infinite if it cannot be entered
+     */
+    public float getCost(int index) {
+        float[][] tiles = this.tiles;
+        return tiles != null ? tiles[index >>> TILE_SHIFT][index & TILE_MASK] : this.weights[this.terrain.getOrdinal(index)];
+    }
+
+    public boolean isAccessible(int index) {
+        return this.getCost(index) != Float.POSITIVE_INFINITY;
+    }
+
+    public int size() {
+        return this.size;
+    }
+}
@@ -0,0 +1,286 @@
+package pathfinding.algorithms;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Incremental planner (D* Lite) for a single agent on a map that changes between queries
+ * The search runs backwards from the goal and keeps its state between calls, after cells change or the
+ * accessibility mask is swapped only the part of the shortest path tree that depended on them is repaired,
+ * and moving the start along the path only shifts the keys instead of searching again
+ * Not thread safe, every agent needs its own planner
+ * The map array of the engine is read directly, change it in place and report the changed cells afterwards,
+ * the caches of the engine have to be brought up to date separately with AStar#fieldsChanged
+ */
+public class DStarLite {
+
+    private final AStar engine;
+    private final int size;
+    // Plain distance heuristics, landmarks would go stale when the map changes
+    private QueryOptions options;
+
+    // Weight of every cell as it was last seen, infinite when it is inaccessible
+    private final double[] enterCost;
+    private final double[] g;
+    private final double[] rhs;
+    private final DualKeyOpenList openList;
+
+    private int start = -1;
+    private int goal = -1;
+    private double keyModifier;
+    private int expansions;
+
+    public DStarLite(AStar engine, QueryOptions options) {
+        this.engine = engine;
+        this.size = engine.terrain.size();
+        this.options = options
+                .withHeuristicMode(QueryOptions.HeuristicMode.DISTANCE)
+                .withHeuristicWeight(1)
+                .withTieBreak(false);
+        this.enterCost = new double[this.size];
+        this.g = new double[this.size];
+        this.rhs = new double[this.size];
+        this.openList = new DualKeyOpenList(this.size);
+        for (int i = 0; i < this.size; i++) {
+            this.enterCost[i] = this.cost(i);
+        }
+    }
+
+    /**
+     * Shortest path from start to goal, the same goal as the previous call reuses the previous search
+     * Expansions only count the cells this call had to process
+     * The budgets of the options hold for every call, a stopped call returns the start alone and the next call
+     * continues the repair where it stopped
+     */
+    public PathResult plan(int startX, int startY, int goalX, int goalY) {
+        if (!this.engine.isPointWithinBounds(startX, startY) || !this.engine.isPointWithinBounds(goalX, goalY)) {
+            throw new IllegalArgumentException("Start %s,%s or goal %s,%s is outside of the map".formatted(startX, startY, goalX, goalY));
+        }
+
+        long startTime = System.nanoTime();
+        int start = this.engine.calcIndex(startX, startY);
+        int goal = this.engine.calcIndex(goalX, goalY);
+        if (goal != this.goal) {
+            this.start = start;
+            this.initialize(goal);
+        } else if (start != this.start) {
+            // Keys already queued stay valid lower bounds when raised by how far the start moved
+            this.keyModifier += this.heuristics(this.start, start);
+            this.start = start;
+        }
+
+        if (start == goal) {
+            return new PathResult(PathResult.Status.FOUND, this.engine.xMax, new int[]{ start }, new int[0], 0, 0, System.nanoTime() - startTime);
+        }
+
+        this.expansions = 0;
+        PathResult.Status stop = this.computeShortestPath(startTime);
+        if (stop != null) {
+            return new PathResult(stop, this.engine.xMax, new int[]{ start }, new int[0], 0, this.expansions, System.nanoTime() - startTime);
+        }
+        if (this.g[start] == Double.POSITIVE_INFINITY) {
+            return PathResult.noPath(this.engine.xMax, new int[0], this.expansions, System.nanoTime() - startTime);
+        }
+        return new PathResult(PathResult.Status.FOUND, this.engine.xMax, this.path(), new int[0], this.g[start],
+                this.expansions, System.nanoTime() - startTime);
+    }
+
+    /**
+     * Takes the current fields of the given cells from the map, cells that did not change are skipped
+     */
+    public void updateCells(int... cells) {
+        for (int v : cells) {
+            double cost = this.cost(v);
+            double old = this.enterCost[v];
+            if (cost == old) continue;
+
+            this.enterCost[v] = cost;
+            if (this.goal == -1) continue;
+
+            // Only steps onto the cell changed, its own successors stay the same
+            for (int i = 0; i < AStar.NEIGHBOUR_COORDS.length; i++) {
+                int u = this.neighbour(v, i);
+                if (u == -1 || u == this.goal) continue;
+
+                double surcharge = isDiagonal(i) ? 0.5 : 0;
+                double oldStep = old + surcharge;
+                double newStep = cost + surcharge;
+                if (newStep < oldStep) {
+                    this.rhs[u] = Math.min(this.rhs[u], newStep + this.g[v]);
+                } else if (this.rhs[u] == oldStep + this.g[v]) {
+                    this.rhs[u] = this.minSuccessor(u);
+                }
+                this.updateVertex(u);
+            }
+        }
+    }
+
+    /**
+     * Swaps the accessibility mask, the cells whose field changed accessibility are repaired like changed cells
+     */
+    public void setAccessibleMask(int accessibleMask) {
+        if (accessibleMask == this.options.getAccessibleMask()) return;
+
+        this.options = this.options.withAccessibleMask(accessibleMask);
+        this.updateCells(IntStream.range(0, this.size).filter(i -> this.cost(i) != this.enterCost[i]).toArray());
+    }
+
+    private void initialize(int goal) {
+        this.goal = goal;
+        this.keyModifier = 0;
+        this.openList.clear();
+        Arrays.fill(this.g, Double.POSITIVE_INFINITY);
+        Arrays.fill(this.rhs, Double.POSITIVE_INFINITY);
+        this.rhs[goal] = 0;
+        this.openList.add(goal, this.heuristics(this.start, goal), 0);
+    }
+
+    /**
+     * Repairs the search until the start is settled, returns why it stopped early or null
+     * Every expansion leaves the state consistent, so stopping between two of them is safe
+     */
+    private PathResult.Status computeShortestPath(long startTime) {
+        boolean budget = this.options.hasBudget();
+        while (!this.openList.isEmpty()) {
+            // Done once nothing queued could still lower the start and the start itself is settled
+            double startTie = Math.min(this.g[this.start], this.rhs[this.start]);
+            if (!DualKeyOpenList.less(this.openList.peekKey(), this.openList.peekTie(), this.key(this.start), startTie)
+                    && this.rhs[this.start] == this.g[this.start]) break;
+
+            int u = this.openList.peek();
+            double key = this.key(u);
+            double tie = Math.min(this.g[u], this.rhs[u]);
+            if (DualKeyOpenList.less(this.openList.peekKey(), this.openList.peekTie(), key, tie)) {
+                // Queued before the start moved, only needs its key raised
+                this.openList.add(u, key, tie);
+                continue;
+            }
+            if (budget) {
+                PathResult.Status stop = AStar.exceededBudget(this.options, this.expansions, startTime);
+                if (stop != null) return stop;
+            }
+
+            this.expansions++;
+            if (this.g[u] > this.rhs[u]) {
+                this.g[u] = this.rhs[u];
+                this.openList.remove(u);
+                for (int i = 0; i < AStar.NEIGHBOUR_COORDS.length; i++) {
+                    int s = this.predecessor(u, i);
+                    if (s == -1 || s == this.goal) continue;
+
+                    this.rhs[s] = Math.min(this.rhs[s], this.step(u, i) + this.g[u]);
+                    this.updateVertex(s);
+                }
+            } else {
+                double oldG = this.g[u];
+                this.g[u] = Double.POSITIVE_INFINITY;
+                for (int i = 0; i < AStar.NEIGHBOUR_COORDS.length; i++) {
+                    int s = this.predecessor(u, i);
+                    if (s == -1 || s == this.goal) continue;
+
+                    if (this.rhs[s] == this.step(u, i) + oldG) {
+                        this.rhs[s] = this.minSuccessor(s);
+                    }
+                    this.updateVertex(s);
+                }
+                if (u != this.goal) {
+                    this.rhs[u] = this.minSuccessor(u);
+                }
+                this.updateVertex(u);
+            }
+        }
+        return null;
+    }
+
+    private void updateVertex(int u) {
+        if (this.g[u] != this.rhs[u]) {
+            this.openList.add(u, this.key(u), Math.min(this.g[u], this.rhs[u]));
+        } else {
+            this.openList.remove(u);
+        }
+    }
+
+    private double key(int u) {
+        return Math.min(this.g[u], this.rhs[u]) + this.heuristics(this.start, u) + this.keyModifier;
+    }
+
+    /**
+     * Follows the cheapest successor from the start, which the finished search makes a shortest path
+     */
+    private int[] path() {
+        int[] path = new int[16];
+        path[0] = this.start;
+        int length = 1;
+        for (int v = this.start; v != this.goal; ) {
+            int next = -1;
+            double best = Double.POSITIVE_INFINITY;
+            for (int i = 0; i < AStar.NEIGHBOUR_COORDS.length; i++) {
+                int s = this.neighbour(v, i);
+                if (s == -1) continue;
+
+                double cost = this.enterCost[s] + (isDiagonal(i) ? 0.5 : 0) + this.g[s];
+                if (cost < best) {
+                    best = cost;
+                    next = s;
+                }
+            }
+            if (next == -1 || length == this.size) {
+                throw new IllegalStateException("Search state does not lead from the start to the goal");
+            }
+            if (length == path.length) {
+                path = Arrays.copyOf(path, length * 2);
+            }
+            path[length++] = next;
+            v = next;
+        }
+        return Arrays.copyOf(path, length);
+    }
+
+    private double minSuccessor(int s) {
+        double min = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < AStar.NEIGHBOUR_COORDS.length; i++) {
+            int next = this.neighbour(s, i);
+            if (next != -1) {
+                min = Math.min(min, this.enterCost[next] + (isDiagonal(i) ? 0.5 : 0) + this.g[next]);
+            }
+        }
+        return min;
+    }
+
+    /**
+     * Neighbour in direction i that can step onto u, -1 if there is none
+     */
+    private int predecessor(int u, int i) {
+        return this.enterCost[u] == Double.POSITIVE_INFINITY ? -1 : this.neighbour(u, i);
+    }
+
+    /**
+     * Cost of a step onto u from direction i
+     */
+    private double step(int u, int i) {
+        return this.enterCost[u] + (isDiagonal(i) ? 0.5 : 0);
+    }
+
+    private int neighbour(int index, int i) {
+        int[] xy = AStar.NEIGHBOUR_COORDS[i];
+        if (isDiagonal(i) && !this.options.isDiagonal()) return -1;
+
+        int x = index % this.engine.xMax + xy[0];
+        int y = index / this.engine.xMax + xy[1];
+        return this.engine.isPointWithinBounds(x, y) ? this.engine.calcIndex(x, y) : -1;
+    }
+
+    // Odd directions of NEIGHBOUR_COORDS are the diagonal ones
+    private static boolean isDiagonal(int i) {
+        return (i & 1) == 1;
+    }
+
+    private double cost(int index) {
+        return this.options.isAccessible(this.engine.terrain.getField(index)) ? this.engine.terrain.getField(index).getWeight() : Double.POSITIVE_INFINITY;
+    }
+
+    private double heuristics(int from, int to) {
+        return this.engine.heuristics(this.options, from % this.engine.xMax, from / this.engine.xMax,
+                to % this.engine.xMax, to / this.engine.xMax);
+    }
+}
@@ -0,0 +1,274 @@
+package pathfinding.algorithms;
+
+import pathfinding.MapField;
+import pathfinding.TerrainGrid;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Parallel single source path costs to every cell of the map (delta-stepping)
+ * Cells are kept in buckets of delta wide cost ranges. The lowest bucket is emptied in rounds, every round
+ * splits its cells into chunks that relax their light steps, those costing at most delta, in parallel on a
+ * fork/join pool and may refill the same bucket. Once it stays empty the heavy steps of all cells it settled
+ * are relaxed in one more parallel round. Costs are whole half-steps kept in an int array and lowered with
+ * compare-and-set, so the result is exactly what Dijkstra finds
+ */
+public class DeltaStepping {
+
+    // Wider than the most expensive step, every step is light and each bucket settles in a few rounds
+    public static final double DEFAULT_DELTA = 8;
+
+    private static final VarHandle COSTS = MethodHandles.arrayElementVarHandle(int[].class);
+    // Cells per task, smaller rounds run on the calling thread alone
+    private static final int CHUNK_SIZE = 2048;
+
+    private final TerrainGrid terrain;
+    private final int xMax, yMax;
+    private final boolean diagonal;
+    // Half-steps to enter a field by ordinal, -1 if it cannot be entered
+    private final int[] enterCost;
+    private final int delta;
+    private final int ringSize;
+
+    private final int[] costs;
+    // Cost the cell last relaxed its light steps with, rounds skip cells that have not improved since
+    private final int[] relaxed;
+    private final Bucket[] ring;
+
+    private DeltaStepping(AStar engine, QueryOptions options, int delta) {
+        this.terrain = engine.terrain;
+        this.xMax = engine.xMax;
+        this.yMax = engine.yMax;
+        this.diagonal = options.isDiagonal();
+        this.enterCost = new int[MapField.values().length];
+        for (MapField field : MapField.values()) {
+            this.enterCost[field.ordinal()] = options.isAccessible(field) ? (int) (field.getWeight() * BucketQueue.COST_SCALE) : -1;
+        }
+        this.delta = delta;
+        // A step lands at most one bucket plus the most expensive step past the current one
+        this.ringSize = BucketQueue.MAX_STEP / delta + 3;
+
+        this.costs = new int[this.terrain.size()];
+        this.relaxed = new int[this.terrain.size()];
+        Arrays.fill(this.costs, Integer.MAX_VALUE);
+        Arrays.fill(this.relaxed, -1);
+        this.ring = new Bucket[this.ringSize];
+        Arrays.setAll(this.ring, i -> new Bucket());
+    }
+
+    /**
+     * Path cost from the start to every cell of the map, infinite where there is no path
+     * Delta is the width of a bucket in path cost and has to be a positive multiple of 0.5,
+     * the rounds run on the given pool, which is left running for the next call
+     */
+    public static float[] distances(AStar engine, int startX, int startY, QueryOptions options, double delta, ForkJoinPool pool) {
+        if (!engine.isPointWithinBounds(startX, startY)) {
+            throw new IllegalArgumentException("Start %s,%s is outside of the map".formatted(startX, startY));
+        }
+        int units = (int) (delta * BucketQueue.COST_SCALE);
+        if (units < 1 || units != delta * BucketQueue.COST_SCALE) {
+            throw new IllegalArgumentException("Delta must be a positive multiple of " + (1.0 / BucketQueue.COST_SCALE) + ": " + delta);
+        }
+
+        DeltaStepping search = new DeltaStepping(engine, options, units);
+        pool.submit(() -> search.run(engine.calcIndex(startX, startY))).join();
+
+        float[] distances = new float[search.costs.length];
+        for (int i = 0; i < distances.length; i++) {
+            int cost = search.costs[i];
+            distances[i] = cost == Integer.MAX_VALUE ? Float.POSITIVE_INFINITY : cost / (float) BucketQueue.COST_SCALE;
+        }
+        return distances;
+    }
+
+    /**
+     * Runs on the common pool
+     */
+    public static float[] distances(AStar engine, int startX, int startY, QueryOptions options) {
+        return distances(engine, startX, startY, options, DEFAULT_DELTA, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Runs on a thread of the pool, the rounds fork their chunks into the same pool
+     */
+    private void run(int start) {
+        this.costs[start] = 0;
+        this.ring[0].add(new int[]{ start }, 1);
+
+        boolean heavySteps = BucketQueue.MAX_STEP > this.delta;
+        for (int bucket = 0; (bucket = this.nextBucket(bucket)) != -1; bucket++) {
+            Bucket settled = new Bucket();
+            Bucket current = this.ring[bucket % this.ringSize];
+            while (!current.isEmpty()) {
+                int[] cells = current.drain();
+                for (Output output : this.round(cells, current.drainedSize(), bucket, true)) {
+                    this.collect(output);
+                    settled.add(output.settled, output.settledCount);
+                }
+            }
+            if (heavySteps && !settled.isEmpty()) {
+                int[] cells = settled.drain();
+                for (Output output : this.round(cells, settled.drainedSize(), bucket, false)) {
+                    this.collect(output);
+                }
+            }
+        }
+    }
+
+    /**
+     * First non-empty bucket from the given one on, -1 once all are empty
+     */
+    private int nextBucket(int from) {
+        for (int i = 0; i < this.ringSize; i++) {
+            if (!this.ring[(from + i) % this.ringSize].isEmpty()) return from + i;
+        }
+        return -1;
+    }
+
+    private Output[] round(int[] cells, int count, int bucket, boolean light) {
+        if (count <= CHUNK_SIZE) {
+            return new Output[]{ this.relaxChunk(cells, 0, count, bucket, light) };
+        }
+        int chunks = (count + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        return IntStream.range(0, chunks).parallel()
+                .mapToObj(c -> this.relaxChunk(cells, c * CHUNK_SIZE, Math.min(count, (c + 1) * CHUNK_SIZE), bucket, light))
+                .toArray(Output[]::new);
+    }
+
+    /**
+     * Relaxes the light or the heavy steps of a range of cells, improved cells are sorted into buckets of the output
+     */
+    private Output relaxChunk(int[] cells, int from, int to, int bucket, boolean light) {
+        Output output = new Output(this.ringSize);
+        for (int i = from; i < to; i++) {
+            int index = cells[i];
+            int cost = this.costs[index];
+            if (light) {
+                // Stale entry of a cell that has moved on to a lower bucket, or already relaxed with this cost
+                if (cost / this.delta != bucket || this.relaxed[index] == cost) continue;
+                this.relaxed[index] = cost;
+                output.settle(index);
+            }
+
+            int nodeX = index % this.xMax;
+            int nodeY = index / this.xMax;
+            for (int[] xy : AStar.NEIGHBOUR_COORDS) {
+                boolean diagonal = xy[0] != 0 && xy[1] != 0;
+                if (diagonal && !this.diagonal) continue;
+
+                int x = nodeX + xy[0];
+                int y = nodeY + xy[1];
+                if (x < 0 || y < 0 || x >= this.xMax || y >= this.yMax) continue;
+
+                int neighbour = y * this.xMax + x;
+                int step = this.enterCost[this.terrain.getOrdinal(neighbour)];
+                if (step == -1) continue;
+                step += diagonal ? 1 : 0;
+                if ((step <= this.delta) != light) continue;
+
+                int tentative = cost + step;
+                int current = this.costs[neighbour];
+                while (tentative < current) {
+                    if (COSTS.compareAndSet(this.costs, neighbour, current, tentative)) {
+                        output.queue(neighbour, (tentative / this.delta) % this.ringSize);
+                        break;
+                    }
+                    current = (int) COSTS.getVolatile(this.costs, neighbour);
+                }
+            }
+        }
+        return output;
+    }
+
+    private void collect(Output output) {
+        for (int slot = 0; slot < this.ringSize; slot++) {
+            this.ring[slot].add(output.queued[slot], output.queuedCounts[slot]);
+        }
+    }
+
+    /**
+     * Cells of one cost range as the arrays the chunks produced them in
+     */
+    private static class Bucket {
+
+        private int[][] parts = new int[4][];
+        private int[] sizes = new int[4];
+        private int partCount;
+        private int size;
+        private int drainedSize;
+
+        boolean isEmpty() {
+            return this.size == 0;
+        }
+
+        void add(int[] cells, int count) {
+            if (count == 0) return;
+
+            if (this.partCount == this.parts.length) {
+                this.parts = Arrays.copyOf(this.parts, this.partCount * 2);
+                this.sizes = Arrays.copyOf(this.sizes, this.partCount * 2);
+            }
+            this.parts[this.partCount] = cells;
+            this.sizes[this.partCount++] = count;
+            this.size += count;
+        }
+
+        /**
+         * Takes every cell out as one array, drainedSize tells how much of it is filled
+         */
+        int[] drain() {
+            int[] cells = this.partCount == 1 ? this.parts[0] : new int[this.size];
+            if (this.partCount > 1) {
+                for (int i = 0, offset = 0; i < this.partCount; offset += this.sizes[i++]) {
+                    System.arraycopy(this.parts[i], 0, cells, offset, this.sizes[i]);
+                }
+            }
+            this.drainedSize = this.size;
+            Arrays.fill(this.parts, 0, this.partCount, null);
+            this.partCount = 0;
+            this.size = 0;
+            return cells;
+        }
+
+        int drainedSize() {
+            return this.drainedSize;
+        }
+    }
+
+    /**
+     * Cells a chunk improved by ring slot, and the cells it relaxed the light steps of
+     */
+    private static class Output {
+
+        final int[][] queued;
+        final int[] queuedCounts;
+        int[] settled = new int[16];
+        int settledCount;
+
+        Output(int ringSize) {
+            this.queued = new int[ringSize][];
+            this.queuedCounts = new int[ringSize];
+        }
+
+        void queue(int index, int slot) {
+            int[] cells = this.queued[slot];
+            if (cells == null) {
+                cells = this.queued[slot] = new int[16];
+            } else if (this.queuedCounts[slot] == cells.length) {
+                cells = this.queued[slot] = Arrays.copyOf(cells, cells.length * 2);
+            }
+            cells[this.queuedCounts[slot]++] = index;
+        }
+
+        void settle(int index) {
+            if (this.settledCount == this.settled.length) {
+                this.settled = Arrays.copyOf(this.settled, this.settledCount * 2);
+            }
+            this.settled[this.settledCount++] = index;
+        }
+    }
+}
@@ -1,13 +1,68 @@
 package pathfinding.algorithms;
 
+import pathfinding.TerrainGrid;
+
+import java.util.Arrays;
+
 public class Dijkstra extends AStar {
 
-    public Dijkstra(int xMax, int yMax) {
-        super(xMax, yMax);
+    public Dijkstra(TerrainGrid terrain) {
+        super(terrain);
+    }
+
+    /**
+     * Keys are plain path costs, so they can also go into the bucket queue
+     */
+    @Override
+    protected OpenSet openSet(SearchContext context, QueryOptions options) {
+        if (options.getQueueMode() == QueryOptions.QueueMode.BUCKET) {
+            return context.bucketQueue();
+        }
+        return context.openList;
+    }
+
+    /**
+     * Path cost from the start to every cell of the map, infinite where there is no path
+     */
+    public float[] distances(int startX, int startY, QueryOptions options) {
+        if (!isPointWithinBounds(startX, startY)) {
+            throw new IllegalArgumentException("Start %s,%s is outside of the map".formatted(startX, startY));
+        }
+
+        float[] distances = new float[this.terrain.size()];
+        Arrays.fill(distances, Float.POSITIVE_INFINITY);
+        SearchContext context = context();
+        context.reset();
+        OpenSet openList = openSet(context, options);
+        int startIndex = calcIndex(startX, startY);
+        context.setNode(startIndex, 0, -1);
+        openList.add(startIndex, 0);
+
+        NeighbourMasks neighbours = getNeighbourMasks(options);
+        CostGrid costs = getCostGrid(options);
+        while (!openList.isEmpty()) {
+            int index = openList.poll();
+            context.close(index);
+            double gCost = context.getGCost(index);
+            distances[index] = (float) gCost;
+
+            for (int bits = neighbours.getMask(index); bits != 0; bits &= bits - 1) {
+                int d = Integer.numberOfTrailingZeros(bits);
+                int index_ = index + neighbours.getOffset(d);
+                if (context.isClosed(index_)) continue;
+
+                double g = gCost + costs.getCost(index_) + ((d & 1) != 0 ? 0.5 : 0);
+                if (g < context.getGCost(index_)) {
+                    context.setNode(index_, g, index);
+                    openList.add(index_, g);
+                }
+            }
+        }
+        return distances;
     }
 
     @Override
-    protected double heuristics(Node[] map, int x, int y, int endX, int endY) {
+    protected double heuristics(QueryOptions options, int x, int y, int endX, int endY) {
         return 0;
     }
 }
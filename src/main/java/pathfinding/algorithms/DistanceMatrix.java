@@ -0,0 +1,203 @@
+package pathfinding.algorithms;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+/**
+ * Path costs between every source and every target, rows are sources and columns are targets
+ * Each source runs a single Dijkstra that stops once all targets it can reach are settled,
+ * instead of one search per pair. Costs are kept as floats, they are whole half-steps and stay exact
+ */
+public final class DistanceMatrix {
+
+    private final int[] sources;
+    private final int[] targets;
+    private final float[] costs;
+    // Per pair, null unless paths were asked for
+    private final int[][] paths;
+    private final long expansions;
+    private final long nanos;
+
+    private DistanceMatrix(int[] sources, int[] targets, float[] costs, int[][] paths, long expansions, long nanos) {
+        this.sources = sources;
+        this.targets = targets;
+        this.costs = costs;
+        this.paths = paths;
+        this.expansions = expansions;
+        this.nanos = nanos;
+    }
+
+    /**
+     * Sources and targets are cell indices of the engine's map, the same cell may appear more than once
+     * Searches of different sources run on the given pool, the heuristics of the options is not used
+     * Workers keep their SearchContext from the engine as long as they live, so a pool that is kept around
+     * between matrices allocates no search state per call
+     * A matrix has no partial result, options with a budget are rejected
+     */
+    public static DistanceMatrix compute(AStar engine, int[] sources, int[] targets, QueryOptions options, boolean paths, ForkJoinPool pool) {
+        if (options.hasBudget()) {
+            throw new IllegalArgumentException("Distance matrices cannot stop early, the options must not carry a budget");
+        }
+        for (int cell : IntStream.concat(IntStream.of(sources), IntStream.of(targets)).toArray()) {
+            if (cell < 0 || cell >= engine.terrain.size()) {
+                throw new IllegalArgumentException("Cell %s is outside of the map".formatted(cell));
+            }
+        }
+
+        long startTime = System.nanoTime();
+        // Settled cells are looked up among the distinct targets, columns point at their slot
+        int[] distinct = IntStream.of(targets).distinct().sorted().toArray();
+        int[] columns = new int[targets.length];
+        Arrays.setAll(columns, j -> Arrays.binarySearch(distinct, targets[j]));
+
+        float[] costs = new float[sources.length * targets.length];
+        int[][] pathCells = paths ? new int[sources.length * targets.length][] : null;
+        long[] expansions = new long[sources.length];
+        ComponentIndex components = engine.getComponents(options);
+
+        pool.submit(() -> IntStream.range(0, sources.length).parallel().forEach(i -> {
+            float[] row = new float[distinct.length];
+            int[][] rowPaths = paths ? new int[distinct.length][] : null;
+            expansions[i] = searchRow(engine, components, sources[i], distinct, options, row, rowPaths);
+            for (int j = 0; j < targets.length; j++) {
+                costs[i * targets.length + j] = row[columns[j]];
+                if (paths) pathCells[i * targets.length + j] = rowPaths[columns[j]];
+            }
+        })).join();
+        return new DistanceMatrix(sources.clone(), targets.clone(), costs, pathCells, LongStream.of(expansions).sum(), System.nanoTime() - startTime);
+    }
+
+    /**
+     * Runs on the common pool
+     */
+    public static DistanceMatrix compute(AStar engine, int[] sources, int[] targets, QueryOptions options, boolean paths) {
+        return compute(engine, sources, targets, options, paths, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Dijkstra from the source until every reachable target is settled, fills the costs and paths of the distinct targets
+     * Returns the number of expansions
+     */
+    private static int searchRow(AStar engine, ComponentIndex components, int source, int[] targets, QueryOptions options,
+                                 float[] row, int[][] paths) {
+        int remaining = 0;
+        for (int k = 0; k < targets.length; k++) {
+            if (components.isReachable(source, targets[k])) {
+                row[k] = -1;
+                remaining++;
+            } else {
+                row[k] = Float.POSITIVE_INFINITY;
+            }
+        }
+        if (remaining == 0) return 0;
+
+        SearchContext context = engine.context();
+        context.reset();
+        OpenSet openSet = options.getQueueMode() == QueryOptions.QueueMode.BUCKET ? context.bucketQueue() : context.openList;
+        context.setNode(source, 0, -1);
+        openSet.add(source, 0);
+
+        int expansions = 0;
+        while (!openSet.isEmpty()) {
+            int index = openSet.poll();
+            context.close(index);
+            expansions++;
+
+            int k = Arrays.binarySearch(targets, index);
+            if (k >= 0) {
+                row[k] = (float) context.getGCost(index);
+                if (paths != null) paths[k] = AStar.fetchPath(context, index);
+                if (--remaining == 0) break;
+            }
+
+            int nodeX = index % engine.xMax;
+            int nodeY = index / engine.xMax;
+            for (int[] xy : AStar.NEIGHBOUR_COORDS) {
+                boolean diagonal = xy[0] != 0 && xy[1] != 0;
+                if (diagonal && !options.isDiagonal()) continue;
+
+                int x = nodeX + xy[0];
+                int y = nodeY + xy[1];
+                if (!engine.isPointWithinBounds(x, y)) continue;
+
+                int neighbour = engine.calcIndex(x, y);
+                if (context.isClosed(neighbour) || !options.isAccessible(engine.terrain.getField(neighbour))) continue;
+
+                double g = context.getGCost(index) + engine.terrain.getField(neighbour).getWeight() + (diagonal ? 0.5 : 0);
+                if (g < context.getGCost(neighbour)) {
+                    context.setNode(neighbour, g, index);
+                    openSet.add(neighbour, g);
+                }
+            }
+        }
+        return expansions;
+    }
+
+    public int getSourceCount() {
+        return this.sources.length;
+    }
+
+    public int getTargetCount() {
+        return this.targets.length;
+    }
+
+    public int getSource(int i) {
+        return this.sources[i];
+    }
+
+    public int getTarget(int j) {
+        return this.targets[j];
+    }
+
+    /**
+     * Cost from source i to target j, infinite if the target cannot be reached
+     */
+    public double getCost(int i, int j) {
+        return this.costs[i * this.targets.length + j];
+    }
+
+    /**
+     * All costs row by row, sources times targets long
+     */
+    public float[] getCosts() {
+        return this.costs.clone();
+    }
+
+    public double[][] toArray() {
+        double[][] array = new double[this.sources.length][this.targets.length];
+        for (int i = 0; i < this.sources.length; i++) {
+            for (int j = 0; j < this.targets.length; j++) {
+                array[i][j] = this.costs[i * this.targets.length + j];
+            }
+        }
+        return array;
+    }
+
+    public boolean hasPaths() {
+        return this.paths != null;
+    }
+
+    /**
+     * Cells from source i to target j, both included, empty if the target cannot be reached
+     */
+    public int[] getPath(int i, int j) {
+        if (this.paths == null) {
+            throw new IllegalStateException("Paths were not recorded for this matrix");
+        }
+        int[] path = this.paths[i * this.targets.length + j];
+        return path == null ? new int[0] : path.clone();
+    }
+
+    /**
+     * Expansions of all searches together
+     */
+    public long getExpansions() {
+        return this.expansions;
+    }
+
+    public long getNanos() {
+        return this.nanos;
+    }
+}
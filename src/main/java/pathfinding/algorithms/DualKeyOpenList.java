@@ -0,0 +1,142 @@
+package pathfinding.algorithms;
+
+import java.util.Arrays;
+
+/**
+ * Indexed 4-ary min-heap like OpenList, ordered by a primary key and a secondary key between equal primaries
+ * Kept apart from OpenList, so the searches that only need one key do not pay for the second comparison
+ */
+class DualKeyOpenList {
+
+    private static final int ARITY = 4;
+
+    private int[] heap;
+    private double[] keys;
+    private double[] ties;
+    private final int[] positions;
+    private int size;
+
+    DualKeyOpenList(int capacity) {
+        this.heap = new int[16];
+        this.keys = new double[16];
+        this.ties = new double[16];
+        this.positions = new int[capacity];
+        Arrays.fill(this.positions, -1);
+    }
+
+    boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    boolean contains(int index) {
+        return this.positions[index] != -1;
+    }
+
+    /**
+     * Inserts the cell or moves it to the new keys
+     */
+    void add(int index, double key, double tie) {
+        int pos = this.positions[index];
+        if (pos == -1) {
+            if (this.size == this.heap.length) {
+                this.heap = Arrays.copyOf(this.heap, this.size * 2);
+                this.keys = Arrays.copyOf(this.keys, this.size * 2);
+                this.ties = Arrays.copyOf(this.ties, this.size * 2);
+            }
+            this.siftUp(this.size++, index, key, tie);
+        } else if (less(key, tie, this.keys[pos], this.ties[pos])) {
+            this.siftUp(pos, index, key, tie);
+        } else {
+            this.siftDown(pos, index, key, tie);
+        }
+    }
+
+    int peek() {
+        return this.heap[0];
+    }
+
+    double peekKey() {
+        return this.keys[0];
+    }
+
+    double peekTie() {
+        return this.ties[0];
+    }
+
+    int poll() {
+        int index = this.heap[0];
+        this.remove(index);
+        return index;
+    }
+
+    void remove(int index) {
+        int pos = this.positions[index];
+        if (pos == -1) return;
+
+        this.positions[index] = -1;
+        if (--this.size > pos) {
+            int last = this.heap[this.size];
+            double lastKey = this.keys[this.size];
+            double lastTie = this.ties[this.size];
+            if (less(lastKey, lastTie, this.keys[pos], this.ties[pos])) {
+                this.siftUp(pos, last, lastKey, lastTie);
+            } else {
+                this.siftDown(pos, last, lastKey, lastTie);
+            }
+        }
+    }
+
+    /**
+     * Empties the heap, only touches the cells that are still queued
+     */
+    void clear() {
+        for (int i = 0; i < this.size; i++) {
+            this.positions[this.heap[i]] = -1;
+        }
+        this.size = 0;
+    }
+
+    private void siftUp(int pos, int index, double key, double tie) {
+        while (pos > 0) {
+            int parent = (pos - 1) / ARITY;
+            if (!less(key, tie, this.keys[parent], this.ties[parent])) break;
+            this.move(parent, pos);
+            pos = parent;
+        }
+        this.set(index, key, tie, pos);
+    }
+
+    private void siftDown(int pos, int index, double key, double tie) {
+        while (true) {
+            int first = pos * ARITY + 1;
+            if (first >= this.size) break;
+
+            int min = first;
+            int last = Math.min(first + ARITY, this.size);
+            for (int child = first + 1; child < last; child++) {
+                if (less(this.keys[child], this.ties[child], this.keys[min], this.ties[min])) {
+                    min = child;
+                }
+            }
+            if (!less(this.keys[min], this.ties[min], key, tie)) break;
+            this.move(min, pos);
+            pos = min;
+        }
+        this.set(index, key, tie, pos);
+    }
+
+    private void move(int from, int to) {
+        this.set(this.heap[from], this.keys[from], this.ties[from], to);
+    }
+
+    private void set(int index, double key, double tie, int pos) {
+        this.heap[pos] = index;
+        this.keys[pos] = key;
+        this.ties[pos] = tie;
+        this.positions[index] = pos;
+    }
+
+    static boolean less(double key, double tie, double otherKey, double otherTie) {
+        return key < otherKey || (key == otherKey && tie < otherTie);
+    }
+}
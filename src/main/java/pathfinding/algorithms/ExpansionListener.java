@@ -0,0 +1,11 @@
+package pathfinding.algorithms;
+
+/**
+ * Receives the cells a search closes while it is still running, in the order they were closed
+ * Called on the searching thread with chunks of new cells, the search keeps no reference to the arrays
+ */
+@FunctionalInterface
+public interface ExpansionListener {
+
+    void expanded(int[] cells);
+}
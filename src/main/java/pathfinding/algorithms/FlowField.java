@@ -0,0 +1,167 @@
+package pathfinding.algorithms;
+
+import java.util.Arrays;
+
+/**
+ * Path cost from every cell to one goal and the direction of the first step on a cheapest path
+ * Built by a single Dijkstra backwards from the goal, afterwards any number of agents follow the directions
+ * with one array read per step. Directions are indices into AStar#NEIGHBOUR_COORDS stored as bytes
+ * Cells that cannot be entered still get a direction out of them, like the start of a regular search
+ */
+public final class FlowField {
+
+    public static final byte GOAL = 8;
+    public static final byte NONE = -1;
+
+    private final int xMax;
+    private final int goal;
+    private final QueryOptions options;
+    private final float[] costs;
+    private final byte[] directions;
+    private final int expansions;
+    private final long nanos;
+
+    private FlowField(int xMax, int goal, QueryOptions options, float[] costs, byte[] directions, int expansions, long nanos) {
+        this.xMax = xMax;
+        this.goal = goal;
+        this.options = options;
+        this.costs = costs;
+        this.directions = directions;
+        this.expansions = expansions;
+        this.nanos = nanos;
+    }
+
+    /**
+     * Searches backwards from the goal over the whole region it lies in, only the accessibility mask,
+     * movement type and queue mode of the options are used
+     */
+    public static FlowField build(AStar engine, int goalX, int goalY, QueryOptions options) {
+        if (!engine.isPointWithinBounds(goalX, goalY)) {
+            throw new IllegalArgumentException("Goal %s,%s is outside of the map".formatted(goalX, goalY));
+        }
+
+        long startTime = System.nanoTime();
+        int goal = engine.calcIndex(goalX, goalY);
+        float[] costs = new float[engine.terrain.size()];
+        byte[] directions = new byte[engine.terrain.size()];
+        Arrays.fill(costs, Float.POSITIVE_INFINITY);
+        Arrays.fill(directions, NONE);
+        costs[goal] = 0;
+        directions[goal] = GOAL;
+
+        SearchContext context = engine.context();
+        context.reset();
+        OpenSet openSet = options.getQueueMode() == QueryOptions.QueueMode.BUCKET ? context.bucketQueue() : context.openList;
+        // A goal that cannot be entered is only reached by standing on it already
+        if (options.isAccessible(engine.terrain.getField(goal))) {
+            openSet.add(goal, 0);
+        }
+
+        int expansions = 0;
+        while (!openSet.isEmpty()) {
+            int index = openSet.poll();
+            expansions++;
+
+            int nodeX = index % engine.xMax;
+            int nodeY = index / engine.xMax;
+            // Stepping from the neighbour onto this cell costs the weight of this cell
+            double weight = engine.terrain.getField(index).getWeight();
+            for (int d = 0; d < AStar.NEIGHBOUR_COORDS.length; d++) {
+                int[] xy = AStar.NEIGHBOUR_COORDS[d];
+                boolean diagonal = xy[0] != 0 && xy[1] != 0;
+                if (diagonal && !options.isDiagonal()) continue;
+
+                int x = nodeX + xy[0];
+                int y = nodeY + xy[1];
+                if (!engine.isPointWithinBounds(x, y)) continue;
+
+                int neighbour = engine.calcIndex(x, y);
+                double cost = costs[index] + weight + (diagonal ? 0.5 : 0);
+                if (cost < costs[neighbour]) {
+                    costs[neighbour] = (float) cost;
+                    // Opposite offset, from the neighbour back onto this cell
+                    directions[neighbour] = (byte) ((d + 4) & 7);
+                    // Agents may stand on cells they cannot enter, but no path leads through them
+                    if (options.isAccessible(engine.terrain.getField(neighbour))) {
+                        openSet.add(neighbour, cost);
+                    }
+                }
+            }
+        }
+        return new FlowField(engine.xMax, goal, options, costs, directions, expansions, System.nanoTime() - startTime);
+    }
+
+    public int getGoal() {
+        return this.goal;
+    }
+
+    /**
+     * Options the field was built with
+     */
+    public QueryOptions getOptions() {
+        return this.options;
+    }
+
+    /**
+     * Path cost from the cell to the goal, infinite if there is no path
+     */
+    public double getCost(int index) {
+        return this.costs[index];
+    }
+
+    /**
+     * Index into AStar#NEIGHBOUR_COORDS of the first step, GOAL on the goal and NONE without a path
+     */
+    public byte getDirection(int index) {
+        return this.directions[index];
+    }
+
+    /**
+     * Cell to step onto next, the goal stays on itself and -1 means there is no path
+     */
+    public int next(int index) {
+        byte direction = this.directions[index];
+        if (direction == GOAL) return index;
+        if (direction == NONE) return -1;
+
+        int[] xy = AStar.NEIGHBOUR_COORDS[direction];
+        return index + xy[1] * this.xMax + xy[0];
+    }
+
+    /**
+     * Follows the directions from the start to the goal
+     */
+    public PathResult getPath(int startX, int startY) {
+        if (startX < 0 || startY < 0 || startX >= this.xMax || startY >= this.directions.length / this.xMax) {
+            throw new IllegalArgumentException("Start %s,%s is outside of the map".formatted(startX, startY));
+        }
+
+        long startTime = System.nanoTime();
+        int start = startY * this.xMax + startX;
+        if (this.directions[start] == NONE) {
+            return PathResult.noPath(this.xMax, new int[0], 0, System.nanoTime() - startTime);
+        }
+
+        int length = 1;
+        for (int cell = start; cell != this.goal; cell = this.next(cell)) {
+            length++;
+        }
+        int[] path = new int[length];
+        path[0] = start;
+        for (int i = 1; i < length; i++) {
+            path[i] = this.next(path[i - 1]);
+        }
+        return new PathResult(PathResult.Status.FOUND, this.xMax, path, new int[0], this.costs[start], 0, System.nanoTime() - startTime);
+    }
+
+    /**
+     * Cells reached by the search that built the field
+     */
+    public int getExpansions() {
+        return this.expansions;
+    }
+
+    public long getNanos() {
+        return this.nanos;
+    }
+}
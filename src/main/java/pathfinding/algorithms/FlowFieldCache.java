@@ -0,0 +1,101 @@
+package pathfinding.algorithms;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Flow fields of an engine by goal, the least recently used field is dropped once the capacity is exceeded
+ * A field of a large map takes several bytes per cell, the capacity bounds the memory they can hold on to
+ * Fields remember the version of the map they were built from and are built again once it changed
+ */
+public class FlowFieldCache {
+
+    public static final int DEFAULT_CAPACITY = 16;
+
+    private final AStar engine;
+    private final int capacity;
+    // Keyed by goal cell, accessibility mask and movement type, in access order
+    private final LinkedHashMap<Long, Snapshot> fields;
+    private long hits, misses;
+
+    public FlowFieldCache(AStar engine) {
+        this(engine, DEFAULT_CAPACITY);
+    }
+
+    public FlowFieldCache(AStar engine, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be at least 1: " + capacity);
+        }
+        this.engine = engine;
+        this.capacity = capacity;
+        this.fields = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Snapshot> eldest) {
+                return this.size() > FlowFieldCache.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * Cached field for the goal or a new one, the field is built outside of the lock
+     * so threads asking for other goals are not held up
+     * Fields built before the last AStar#fieldsChanged or AStar#clearCaches are not returned
+     */
+    public FlowField get(int goalX, int goalY, QueryOptions options) {
+        if (!this.engine.isPointWithinBounds(goalX, goalY)) {
+            throw new IllegalArgumentException("Goal %s,%s is outside of the map".formatted(goalX, goalY));
+        }
+
+        long key = ((long) this.engine.calcIndex(goalX, goalY) << 32) | ((long) options.getAccessibleMask() << 1) | (options.isDiagonal() ? 1 : 0);
+        // Read before the map, a change during the build leaves the field with the older version
+        int version = this.engine.getTerrainVersion();
+        synchronized (this.fields) {
+            Snapshot snapshot = this.fields.get(key);
+            if (snapshot != null && snapshot.version == version) {
+                this.hits++;
+                return snapshot.field;
+            }
+            this.misses++;
+        }
+
+        FlowField field = FlowField.build(this.engine, goalX, goalY, options);
+        synchronized (this.fields) {
+            // Another thread may have built the same field meanwhile, keep the one already cached unless it is older
+            Snapshot previous = this.fields.get(key);
+            if (previous != null && previous.version >= version) return previous.field;
+
+            this.fields.put(key, new Snapshot(version, field));
+            return field;
+        }
+    }
+
+    public int size() {
+        synchronized (this.fields) {
+            return this.fields.size();
+        }
+    }
+
+    public long getHits() {
+        synchronized (this.fields) {
+            return this.hits;
+        }
+    }
+
+    public long getMisses() {
+        synchronized (this.fields) {
+            return this.misses;
+        }
+    }
+
+    /**
+     * Drops every field to free their memory, changes of the map are noticed without it
+     */
+    public void clear() {
+        synchronized (this.fields) {
+            this.fields.clear();
+        }
+    }
+
+    private record Snapshot(int version, FlowField field) {
+    }
+}
@@ -0,0 +1,215 @@
+package pathfinding.algorithms;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hierarchical pathfinding (HPA*) on top of the map of an engine
+ * Queries search a ClusterGraph instead of the cells, which is built once per accessibility mask, movement type
+ * and version of the map and then shared between all queries and threads
+ * Paths are not guaranteed to be optimal, on noise maps they are usually within ten percent of it,
+ * in exchange long queries only expand a few hundred abstract nodes instead of every cell on the way
+ */
+public class HierarchicalAStar {
+
+    public static final int DEFAULT_CLUSTER_SIZE = 16;
+
+    private final AStar engine;
+    private final int clusterSize;
+    // Keyed by accessibility mask and movement type, together with the terrain version they were built from
+    private final Map<Integer, Snapshot> graphs = new ConcurrentHashMap<>();
+
+    public HierarchicalAStar(AStar engine) {
+        this(engine, DEFAULT_CLUSTER_SIZE);
+    }
+
+    public HierarchicalAStar(AStar engine, int clusterSize) {
+        if (clusterSize < 2) {
+            throw new IllegalArgumentException("Cluster size must be at least 2: " + clusterSize);
+        }
+        this.engine = engine;
+        this.clusterSize = clusterSize;
+    }
+
+    /**
+     * Abstract graph for the accessibility mask and movement type of the options
+     * Built again once AStar#fieldsChanged or AStar#clearCaches reported a change of the map
+     */
+    public ClusterGraph getGraph(QueryOptions options) {
+        int key = (options.getAccessibleMask() << 1) | (options.isDiagonal() ? 1 : 0);
+        // Read before the map, a change during the build leaves the graph with the older version
+        int version = this.engine.getTerrainVersion();
+        Snapshot snapshot = this.graphs.get(key);
+        if (snapshot != null && snapshot.version == version) return snapshot.graph;
+
+        return this.graphs.compute(key, (k, old) -> old != null && old.version >= version ? old
+                : new Snapshot(version, ClusterGraph.build(this.engine.terrain, this.engine.xMax, this.engine.yMax,
+                        this.clusterSize, options.getAccessibleMask(), options.isDiagonal()))).graph;
+    }
+
+    /**
+     * A hierarchical path has no partial result, options with a budget are rejected
+     */
+    public HierarchicalPath findPath(int startX, int startY, int endX, int endY, QueryOptions options) {
+        if (!this.engine.isPointWithinBounds(startX, startY) || !this.engine.isPointWithinBounds(endX, endY)) {
+            throw new IllegalArgumentException("Start %s,%s or goal %s,%s is outside of the map".formatted(startX, startY, endX, endY));
+        }
+        if (options.hasBudget()) {
+            throw new IllegalArgumentException("HPA* cannot stop early, the options must not carry a budget");
+        }
+
+        long startTime = System.nanoTime();
+        int start = this.engine.calcIndex(startX, startY);
+        int goal = this.engine.calcIndex(endX, endY);
+        ClusterGraph graph = this.getGraph(options);
+
+        if (start == goal) {
+            return new HierarchicalPath(graph, new int[]{ start }, 0, 0, System.nanoTime() - startTime);
+        }
+        if (!this.engine.getComponents(options).isReachable(start, goal)) {
+            return new HierarchicalPath(graph, new int[0], Double.POSITIVE_INFINITY, 0, System.nanoTime() - startTime);
+        }
+
+        // Goal and entries are temporary nodes behind the abstract ones
+        int nodeCount = graph.getNodeCount();
+        final int goalNode = nodeCount;
+        final int startNode = nodeCount + 1;
+
+        ClusterSearch search = new ClusterSearch(graph);
+        Entry[] entries = entries(graph, search, start, goal, options);
+
+        // Paths from the nodes of the goal's cluster to the goal
+        double[] goalCosts = new double[nodeCount];
+        Arrays.fill(goalCosts, Double.MAX_VALUE);
+        search.run(goal, -1, true);
+        for (int node : graph.clusterNodes[graph.clusterOf(goal)]) {
+            goalCosts[node] = search.getCost(graph.nodeCells[node]);
+        }
+
+        int size = startNode + entries.length;
+        double[] gCost = new double[size];
+        int[] parents = new int[size];
+        Arrays.fill(gCost, Double.MAX_VALUE);
+        gCost[startNode] = 0;
+        parents[startNode] = -1;
+
+        OpenList openList = new OpenList(size);
+        openList.add(startNode, 0);
+
+        int expansions = 0;
+        while (!openList.isEmpty()) {
+            int node = openList.poll();
+            expansions++;
+            if (node == goalNode) {
+                return new HierarchicalPath(graph, waypoints(graph, parents, entries, goal, goalNode), gCost[goalNode],
+                        expansions, System.nanoTime() - startTime);
+            }
+
+            if (node >= startNode) {
+                Entry entry = entries[node - startNode];
+                for (int i = 0; i < entry.nodes.length; i++) {
+                    this.relax(graph, openList, gCost, parents, entries, node, entry.nodes[i], entry.costs[i], goal, options);
+                }
+                this.relax(graph, openList, gCost, parents, entries, node, goalNode, entry.goalCost, goal, options);
+                if (node == startNode) {
+                    for (int i = 1; i < entries.length; i++) {
+                        this.relax(graph, openList, gCost, parents, entries, node, startNode + i, entries[i].step, goal, options);
+                    }
+                }
+                continue;
+            }
+
+            for (int edge = graph.edgeOffsets[node]; edge < graph.edgeOffsets[node + 1]; edge++) {
+                this.relax(graph, openList, gCost, parents, entries, node, graph.edgeTargets[edge], graph.edgeCosts[edge], goal, options);
+            }
+            this.relax(graph, openList, gCost, parents, entries, node, goalNode, goalCosts[node], goal, options);
+        }
+        return new HierarchicalPath(graph, new int[0], Double.POSITIVE_INFINITY, expansions, System.nanoTime() - startTime);
+    }
+
+    /**
+     * The start connects to the nodes of its cluster and, if start and goal share it, directly to the goal
+     * A start on an inaccessible field is no entrance itself, so its steps into other clusters become extra entries
+     */
+    private static Entry[] entries(ClusterGraph graph, ClusterSearch search, int start, int goal, QueryOptions options) {
+        Entry[] entries = new Entry[]{ entry(graph, search, start, 0, goal) };
+        if (graph.isAccessible(start)) return entries;
+
+        int x = start % graph.xMax;
+        int y = start / graph.xMax;
+        for (int[] xy : AStar.NEIGHBOUR_COORDS) {
+            boolean diagonal = xy[0] != 0 && xy[1] != 0;
+            if (diagonal && !options.isDiagonal()) continue;
+
+            int nx = x + xy[0];
+            int ny = y + xy[1];
+            if (nx < 0 || ny < 0 || nx >= graph.xMax || ny >= graph.yMax) continue;
+
+            int neighbour = ny * graph.xMax + nx;
+            if (graph.isAccessible(neighbour) && graph.clusterOf(neighbour) != graph.clusterOf(start)) {
+                entries = Arrays.copyOf(entries, entries.length + 1);
+                entries[entries.length - 1] = entry(graph, search, neighbour,
+                        graph.terrain.getField(neighbour).getWeight() + (diagonal ? 0.5 : 0), goal);
+            }
+        }
+        return entries;
+    }
+
+    private static Entry entry(ClusterGraph graph, ClusterSearch search, int cell, double step, int goal) {
+        int cluster = graph.clusterOf(cell);
+        int[] nodes = graph.clusterNodes[cluster];
+        double[] costs = new double[nodes.length];
+        search.run(cell, -1, false);
+        for (int i = 0; i < nodes.length; i++) {
+            costs[i] = search.getCost(graph.nodeCells[nodes[i]]);
+        }
+        double goalCost = cluster == graph.clusterOf(goal) ? search.getCost(goal) : Double.MAX_VALUE;
+        return new Entry(cell, step, nodes, costs, goalCost);
+    }
+
+    private void relax(ClusterGraph graph, OpenList openList, double[] gCost, int[] parents, Entry[] entries,
+                       int node, int target, double edgeCost, int goal, QueryOptions options) {
+        if (edgeCost == Double.MAX_VALUE) return;
+
+        double g = gCost[node] + edgeCost;
+        if (g < gCost[target]) {
+            gCost[target] = g;
+            parents[target] = node;
+            int cell = cellOf(graph, entries, goal, target);
+            openList.add(target, g + this.engine.heuristics(options,
+                    cell % graph.xMax, cell / graph.xMax, goal % graph.xMax, goal / graph.xMax));
+        }
+    }
+
+    private static int cellOf(ClusterGraph graph, Entry[] entries, int goal, int node) {
+        int nodeCount = graph.getNodeCount();
+        if (node < nodeCount) return graph.nodeCells[node];
+        if (node == nodeCount) return goal;
+        return entries[node - nodeCount - 1].cell;
+    }
+
+    private static int[] waypoints(ClusterGraph graph, int[] parents, Entry[] entries, int goal, int goalNode) {
+        int length = 0;
+        for (int node = goalNode; node != -1; node = parents[node]) {
+            length++;
+        }
+
+        int[] waypoints = new int[length];
+        int node = goalNode;
+        for (int i = length - 1; i >= 0; i--) {
+            waypoints[i] = cellOf(graph, entries, goal, node);
+            node = parents[node];
+        }
+        return waypoints;
+    }
+
+    private record Snapshot(int version, ClusterGraph graph) {
+    }
+
+    /**
+     * Temporary node the query starts from, with its edges into the abstract graph
+     */
+    private record Entry(int cell, double step, int[] nodes, double[] costs, double goalCost) {
+    }
+}
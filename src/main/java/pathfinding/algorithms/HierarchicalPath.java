@@ -0,0 +1,100 @@
+package pathfinding.algorithms;
+
+/**
+ * Path through the abstract graph of HierarchicalAStar
+ * Holds only the waypoints, segments between them are turned into cells on demand,
+ * so a caller that only follows the first few steps never pays for refining the rest
+ */
+public final class HierarchicalPath {
+
+    private final ClusterGraph graph;
+    private final int[] waypoints;
+    private final double cost;
+    private final int expansions;
+    private final long nanos;
+
+    HierarchicalPath(ClusterGraph graph, int[] waypoints, double cost, int expansions, long nanos) {
+        this.graph = graph;
+        this.waypoints = waypoints;
+        this.cost = cost;
+        this.expansions = expansions;
+        this.nanos = nanos;
+    }
+
+    public boolean isFound() {
+        return this.waypoints.length > 0;
+    }
+
+    /**
+     * Cost of the refined path, infinite if there is none
+     */
+    public double getCost() {
+        return this.cost;
+    }
+
+    /**
+     * Abstract nodes taken out of the open list
+     */
+    public int getExpansions() {
+        return this.expansions;
+    }
+
+    public long getNanos() {
+        return this.nanos;
+    }
+
+    /**
+     * Cells of the waypoints from start to goal, both included
+     */
+    public int[] getWaypoints() {
+        return this.waypoints.clone();
+    }
+
+    public int getSegmentCount() {
+        return Math.max(this.waypoints.length - 1, 0);
+    }
+
+    /**
+     * Cells from waypoint i to waypoint i + 1, both included
+     * Both either lie in the same cluster or are neighbours across a cluster border
+     */
+    public int[] refineSegment(int i) {
+        int from = this.waypoints[i];
+        int to = this.waypoints[i + 1];
+        if (this.graph.clusterOf(from) != this.graph.clusterOf(to)) {
+            return new int[]{ from, to };
+        }
+
+        ClusterSearch search = new ClusterSearch(this.graph);
+        search.run(from, to, false);
+        return search.getPath(to);
+    }
+
+    /**
+     * Refines every segment into the full cell path
+     */
+    public PathResult refine() {
+        if (!this.isFound()) {
+            return PathResult.noPath(this.graph.xMax, new int[0], this.expansions, this.nanos);
+        }
+
+        long startTime = System.nanoTime();
+        int[][] segments = new int[this.getSegmentCount()][];
+        int length = 1;
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = this.refineSegment(i);
+            length += segments[i].length - 1;
+        }
+
+        // First cell of every segment is the last one of the previous
+        int[] path = new int[length];
+        path[0] = this.waypoints[0];
+        int pos = 1;
+        for (int[] segment : segments) {
+            System.arraycopy(segment, 1, path, pos, segment.length - 1);
+            pos += segment.length - 1;
+        }
+        return new PathResult(PathResult.Status.FOUND, this.graph.xMax, path, new int[0], this.cost, this.expansions,
+                this.nanos + System.nanoTime() - startTime);
+    }
+}
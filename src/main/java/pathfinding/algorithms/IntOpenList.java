@@ -0,0 +1,116 @@
+package pathfinding.algorithms;
+
+import java.util.Arrays;
+
+/**
+ * Same indexed 4-ary min-heap as OpenList with int keys, the open list of the fixed-point search
+ * Keys are compared as plain ints, which is exact and half the size of double keys
+ */
+public class IntOpenList {
+
+    private static final int ARITY = 4;
+
+    private int[] heap;
+    private int[] keys;
+    private final int[] positions;
+    private int size;
+
+    public IntOpenList(int capacity) {
+        this.heap = new int[16];
+        this.keys = new int[16];
+        this.positions = new int[capacity];
+        Arrays.fill(this.positions, -1);
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public boolean contains(int index) {
+        return this.positions[index] != -1;
+    }
+
+    public int getKey(int index) {
+        return this.keys[this.positions[index]];
+    }
+
+    /**
+     * Adds the cell or moves it to its new place if it is already queued
+     */
+    public void add(int index, int key) {
+        int pos = this.positions[index];
+        if (pos == -1) {
+            if (this.size == this.heap.length) {
+                this.heap = Arrays.copyOf(this.heap, this.size * 2);
+                this.keys = Arrays.copyOf(this.keys, this.size * 2);
+            }
+            this.siftUp(this.size++, index, key);
+        } else if (key < this.keys[pos]) {
+            this.siftUp(pos, index, key);
+        } else {
+            this.siftDown(pos, index, key);
+        }
+    }
+
+    public int peekKey() {
+        return this.keys[0];
+    }
+
+    public int poll() {
+        int index = this.heap[0];
+        this.positions[index] = -1;
+        if (--this.size > 0) {
+            this.siftDown(0, this.heap[this.size], this.keys[this.size]);
+        }
+        return index;
+    }
+
+    /**
+     * Empties the heap, only touches the cells that are still queued
+     */
+    public void clear() {
+        for (int i = 0; i < this.size; i++) {
+            this.positions[this.heap[i]] = -1;
+        }
+        this.size = 0;
+    }
+
+    private void siftUp(int pos, int index, int key) {
+        while (pos > 0) {
+            int parent = (pos - 1) / ARITY;
+            if (this.keys[parent] <= key) break;
+            this.move(this.heap[parent], this.keys[parent], pos);
+            pos = parent;
+        }
+        this.move(index, key, pos);
+    }
+
+    private void siftDown(int pos, int index, int key) {
+        while (true) {
+            int first = pos * ARITY + 1;
+            if (first >= this.size) break;
+
+            int min = first;
+            int last = Math.min(first + ARITY, this.size);
+            for (int child = first + 1; child < last; child++) {
+                if (this.keys[child] < this.keys[min]) {
+                    min = child;
+                }
+            }
+            if (this.keys[min] >= key) break;
+            this.move(this.heap[min], this.keys[min], pos);
+            pos = min;
+        }
+        this.move(index, key, pos);
+    }
+
+    private void move(int index, int key, int pos) {
+        this.heap[pos] = index;
+        this.keys[pos] = key;
+        this.positions[index] = pos;
+    }
+}
@@ -0,0 +1,242 @@
+package pathfinding.algorithms;
+
+import pathfinding.MapField;
+import pathfinding.TerrainGrid;
+
+/**
+ * Jump point search on the map of an engine, adapted to weighted terrain
+ * Inside a patch of a single field every step costs the same, so of all the symmetric paths through it only one
+ * canonical path is followed: straight runs and diagonal runs that turn straight, skipping every cell in between.
+ * Such a run can only jump over interior cells, whose eight neighbours lie on the map with the same field.
+ * It stops at the first cell that is not interior, which is then expanded in every direction like a plain A* cell,
+ * so the search falls back to A* along the borders between fields and only jumps across the patches
+ * Straight runs either walk cell by cell or look up the precomputed JumpTable of the engine (JPS+)
+ */
+public class JumpPointSearch {
+
+    private final AStar engine;
+
+    public JumpPointSearch(AStar engine) {
+        this.engine = engine;
+    }
+
+    /**
+     * Optimal path like AStar#findeWeg with a heuristics weight of 1, a higher weight and the tie-break trade
+     * path cost for fewer expansions the same way. The queue mode and cost mode of the options are not used
+     * Stopped by a budget the path leads to the jump point closest to the goal
+     * With precomputed set straight runs come from the jump table, built on first use for the accessibility mask
+     */
+    public PathResult findPath(int startX, int startY, int endX, int endY, QueryOptions options, boolean precomputed) {
+        if (!this.engine.isPointWithinBounds(startX, startY) || !this.engine.isPointWithinBounds(endX, endY)) {
+            throw new IllegalArgumentException("Start %s,%s or goal %s,%s is outside of the map".formatted(startX, startY, endX, endY));
+        }
+
+        long startTime = System.nanoTime();
+        int start = this.engine.calcIndex(startX, startY);
+        int goal = this.engine.calcIndex(endX, endY);
+        if (!this.engine.getComponents(options).isReachable(start, goal)) {
+            return PathResult.noPath(this.engine.xMax, new int[0], 0, System.nanoTime() - startTime);
+        }
+
+        Jumps jumps = new Jumps(this.engine, options, goal, precomputed ? this.engine.getJumpTable(options) : null);
+        SearchContext context = this.engine.context();
+        context.reset();
+        OpenList openList = context.openList;
+        context.setNode(start, 0, -1);
+        openList.add(start, this.engine.heuristics(options, startX, startY, endX, endY));
+
+        ExpansionListener listener = options.getExpansionListener();
+        int streamed = 0;
+        boolean budget = options.hasBudget();
+        int closest = start;
+        double closestDistance = budget ? AStar.distance(options, startX, startY, endX, endY) : 0;
+        int expansions = 0;
+        while (!openList.isEmpty()) {
+            if (budget) {
+                PathResult.Status stop = AStar.exceededBudget(options, expansions, startTime);
+                if (stop != null) {
+                    AStar.streamExpanded(context, listener, streamed);
+                    return new PathResult(stop, this.engine.xMax, this.fillPath(AStar.fetchPath(context, closest)),
+                            AStar.expanded(context, options), context.getGCost(closest), expansions, System.nanoTime() - startTime);
+                }
+            }
+
+            int index = openList.poll();
+            if (index == goal) {
+                AStar.streamExpanded(context, listener, streamed);
+                return new PathResult(PathResult.Status.FOUND, this.engine.xMax, this.fillPath(AStar.fetchPath(context, goal)),
+                        AStar.expanded(context, options), context.getGCost(goal), expansions + 1, System.nanoTime() - startTime);
+            }
+
+            context.close(index);
+            expansions++;
+            if (listener != null && context.getExpandedCount() - streamed >= AStar.EXPANSION_CHUNK_SIZE) {
+                streamed = AStar.streamExpanded(context, listener, streamed);
+            }
+            if (budget) {
+                double distance = AStar.distance(options, index % this.engine.xMax, index / this.engine.xMax, endX, endY);
+                if (distance < closestDistance) {
+                    closest = index;
+                    closestDistance = distance;
+                }
+            }
+
+            int parent = context.getParent(index);
+            if (parent == -1 || !jumps.isInterior(index)) {
+                for (int[] xy : AStar.NEIGHBOUR_COORDS) {
+                    if (xy[0] != 0 && xy[1] != 0 && !options.isDiagonal()) continue;
+                    this.relax(context, jumps, options, index, xy[0], xy[1], endX, endY);
+                }
+                continue;
+            }
+
+            // Only the canonical continuations, every other neighbour is reached at the same cost another way
+            int dx = Integer.signum(index % this.engine.xMax - parent % this.engine.xMax);
+            int dy = Integer.signum(index / this.engine.xMax - parent / this.engine.xMax);
+            this.relax(context, jumps, options, index, dx, dy, endX, endY);
+            if (dx != 0 && dy != 0) {
+                this.relax(context, jumps, options, index, dx, 0, endX, endY);
+                this.relax(context, jumps, options, index, 0, dy, endX, endY);
+            } else if (!options.isDiagonal() && dx != 0) {
+                this.relax(context, jumps, options, index, 0, 1, endX, endY);
+                this.relax(context, jumps, options, index, 0, -1, endX, endY);
+            }
+        }
+        AStar.streamExpanded(context, listener, streamed);
+        return PathResult.noPath(this.engine.xMax, AStar.expanded(context, options), expansions, System.nanoTime() - startTime);
+    }
+
+    public PathResult findPath(int startX, int startY, int endX, int endY, QueryOptions options) {
+        return this.findPath(startX, startY, endX, endY, options, false);
+    }
+
+    private void relax(SearchContext context, Jumps jumps, QueryOptions options, int index, int dx, int dy, int endX, int endY) {
+        int target = jumps.jump(index, dx, dy);
+        if (target == -1 || context.isClosed(target)) return;
+
+        double g = context.getGCost(index) + this.runCost(index, target, dx, dy);
+        if (g < context.getGCost(target)) {
+            context.setNode(target, g, index);
+            int x = target % this.engine.xMax;
+            int y = target / this.engine.xMax;
+            context.openList.add(target, g + this.engine.heuristics(options, x, y, endX, endY));
+        }
+    }
+
+    /**
+     * Cost of a run, every cell before the last one was interior and has the field of the first step
+     */
+    private double runCost(int from, int to, int dx, int dy) {
+        int xMax = this.engine.xMax;
+        int steps = Math.max(Math.abs(to % xMax - from % xMax), Math.abs(to / xMax - from / xMax));
+        MapField first = this.engine.terrain.getField(from + dy * xMax + dx);
+        double cost = (steps - 1) * first.getWeight() + this.engine.terrain.getField(to).getWeight();
+        return dx != 0 && dy != 0 ? cost + steps * 0.5 : cost;
+    }
+
+    /**
+     * Puts the skipped cells back between the jump points
+     */
+    private int[] fillPath(int[] jumpPoints) {
+        int xMax = this.engine.xMax;
+        int length = 1;
+        for (int i = 1; i < jumpPoints.length; i++) {
+            length += Math.max(Math.abs(jumpPoints[i] % xMax - jumpPoints[i - 1] % xMax), Math.abs(jumpPoints[i] / xMax - jumpPoints[i - 1] / xMax));
+        }
+
+        int[] path = new int[length];
+        int cell = jumpPoints[0];
+        path[0] = cell;
+        for (int i = 1, p = 1; i < jumpPoints.length; i++) {
+            int step = Integer.signum(jumpPoints[i] / xMax - cell / xMax) * xMax + Integer.signum(jumpPoints[i] % xMax - cell % xMax);
+            while (cell != jumpPoints[i]) {
+                cell += step;
+                path[p++] = cell;
+            }
+        }
+        return path;
+    }
+
+    /**
+     * Runs of one query, walked cell by cell or taken from the jump table
+     */
+    private static class Jumps {
+
+        private final TerrainGrid terrain;
+        private final int xMax, yMax;
+        private final int accessibleMask;
+        private final boolean diagonal;
+        private final int goal;
+        private final int goalX, goalY;
+        // Null when straight runs are walked
+        private final JumpTable table;
+
+        Jumps(AStar engine, QueryOptions options, int goal, JumpTable table) {
+            this.terrain = engine.terrain;
+            this.xMax = engine.xMax;
+            this.yMax = engine.yMax;
+            this.accessibleMask = options.getAccessibleMask();
+            this.diagonal = options.isDiagonal();
+            this.goal = goal;
+            this.goalX = goal % engine.xMax;
+            this.goalY = goal / engine.xMax;
+            this.table = table;
+        }
+
+        boolean isInterior(int index) {
+            return this.table != null ? this.table.isInterior(index)
+                    : JumpTable.isInterior(this.terrain, this.xMax, this.yMax, this.accessibleMask, index);
+        }
+
+        /**
+         * Next jump point from the cell in the direction, -1 if the run ends at a blocked cell
+         * Diagonal runs, and horizontal runs without diagonal movement, stop where one of their turns finds a jump point
+         */
+        int jump(int from, int dx, int dy) {
+            boolean turns = dx != 0 && (dy != 0 || !this.diagonal);
+            if (!turns) return this.straight(from, dx, dy);
+
+            int x = from % this.xMax;
+            int y = from / this.xMax;
+            while (true) {
+                x += dx;
+                y += dy;
+                if (x < 0 || y < 0 || x >= this.xMax || y >= this.yMax) return -1;
+
+                int index = y * this.xMax + x;
+                if ((this.accessibleMask & (1 << this.terrain.getOrdinal(index))) == 0) return -1;
+                if (index == this.goal || !this.isInterior(index)) return index;
+
+                if (dy != 0) {
+                    if (this.straight(index, dx, 0) != -1 || this.straight(index, 0, dy) != -1) return index;
+                } else if (this.straight(index, 0, 1) != -1 || this.straight(index, 0, -1) != -1) {
+                    return index;
+                }
+            }
+        }
+
+        private int straight(int from, int dx, int dy) {
+            if (this.table != null) {
+                int steps = this.table.getSteps(from, dx > 0 ? 0 : dy > 0 ? 2 : dx < 0 ? 4 : 6);
+                // The goal is always accessible, so it lies before a blocked cell or on the jump point
+                int x = from % this.xMax;
+                int y = from / this.xMax;
+                int toGoal = dx == 0 ? (x == this.goalX ? (this.goalY - y) * dy : 0) : (y == this.goalY ? (this.goalX - x) * dx : 0);
+                if (toGoal > 0 && toGoal <= Math.abs(steps)) return this.goal;
+                return steps > 0 ? from + steps * (dy * this.xMax + dx) : -1;
+            }
+
+            int x = from % this.xMax;
+            int y = from / this.xMax;
+            while (true) {
+                x += dx;
+                y += dy;
+                if (x < 0 || y < 0 || x >= this.xMax || y >= this.yMax) return -1;
+
+                int index = y * this.xMax + x;
+                if ((this.accessibleMask & (1 << this.terrain.getOrdinal(index))) == 0) return -1;
+                if (index == this.goal || !this.isInterior(index)) return index;
+            }
+        }
+    }
+}
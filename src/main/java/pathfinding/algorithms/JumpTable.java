@@ -0,0 +1,85 @@
+package pathfinding.algorithms;
+
+import pathfinding.TerrainGrid;
+
+/**
+ * Precomputed straight jumps of JumpPointSearch for one accessibility mask (JPS+)
+ * For every cell and each of the four straight directions it holds how many steps away the first cell is that
+ * stops a straight jump, positive if that cell is a jump point and negative if it is blocked or outside the map
+ * A cell is interior when it is accessible and all eight neighbours lie on the map with the same field, only
+ * interior cells can be jumped over
+ */
+public class JumpTable {
+
+    private final int accessibleMask;
+    private final boolean[] interior;
+    // Indexed by straight direction / 2, the order of AStar#NEIGHBOUR_COORDS
+    private final int[][] steps;
+
+    private JumpTable(int accessibleMask, boolean[] interior, int[][] steps) {
+        this.accessibleMask = accessibleMask;
+        this.interior = interior;
+        this.steps = steps;
+    }
+
+    public static JumpTable build(TerrainGrid terrain, int xMax, int yMax, int accessibleMask) {
+        boolean[] interior = new boolean[terrain.size()];
+        for (int i = 0; i < terrain.size(); i++) {
+            interior[i] = isInterior(terrain, xMax, yMax, accessibleMask, i);
+        }
+
+        int[][] steps = new int[4][terrain.size()];
+        for (int d = 0; d < 4; d++) {
+            int[] xy = AStar.NEIGHBOUR_COORDS[d * 2];
+            int[] table = steps[d];
+            // Walk against the direction, so the next cell of every ray is done before the cell itself
+            int yFrom = xy[1] > 0 ? yMax - 1 : 0, yStep = xy[1] > 0 ? -1 : 1;
+            int xFrom = xy[0] > 0 ? xMax - 1 : 0, xStep = xy[0] > 0 ? -1 : 1;
+            for (int y = yFrom; y >= 0 && y < yMax; y += yStep) {
+                for (int x = xFrom; x >= 0 && x < xMax; x += xStep) {
+                    int nx = x + xy[0];
+                    int ny = y + xy[1];
+                    int next = ny * xMax + nx;
+                    if (nx < 0 || ny < 0 || nx >= xMax || ny >= yMax || (accessibleMask & (1 << terrain.getOrdinal(next))) == 0) {
+                        table[y * xMax + x] = -1;
+                    } else if (!interior[next]) {
+                        table[y * xMax + x] = 1;
+                    } else {
+                        int after = table[next];
+                        table[y * xMax + x] = after > 0 ? after + 1 : after - 1;
+                    }
+                }
+            }
+        }
+        return new JumpTable(accessibleMask, interior, steps);
+    }
+
+    static boolean isInterior(TerrainGrid terrain, int xMax, int yMax, int accessibleMask, int index) {
+        int field = terrain.getOrdinal(index);
+        if ((accessibleMask & (1 << field)) == 0) return false;
+
+        int x = index % xMax;
+        int y = index / xMax;
+        if (x == 0 || y == 0 || x == xMax - 1 || y == yMax - 1) return false;
+        for (int[] xy : AStar.NEIGHBOUR_COORDS) {
+            if (terrain.getOrdinal(index + xy[1] * xMax + xy[0]) != field) return false;
+        }
+        return true;
+    }
+
+    public int getAccessibleMask() {
+        return this.accessibleMask;
+    }
+
+    public boolean isInterior(int index) {
+        return this.interior[index];
+    }
+
+    /**
+     * Steps from the cell in a straight direction of AStar#NEIGHBOUR_COORDS, positive up to a jump point
+     * and negative up to the first blocked cell
+     */
+    public int getSteps(int index, int direction) {
+        return this.steps[direction >> 1][index];
+    }
+}
@@ -0,0 +1,186 @@
+package pathfinding.algorithms;
+
+import pathfinding.TerrainGrid;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Exact distances between every cell and a few landmarks, the base of the ALT heuristics
+ * By the triangle inequality d(v, t) is at least d(L, t) - d(L, v) and d(v, L) - d(t, L) for every landmark L,
+ * which on weighted terrain is a much tighter bound than the distance at the cost of the cheapest field
+ * Steps cost the weight of the field they enter, so distances from and to a landmark differ and both are kept
+ */
+public class Landmarks {
+
+    private final int accessibleMask;
+    private final boolean diagonal;
+    private final int requestedCount;
+
+    private final int[] cells;
+    // Distances of cell v are at v * count until v * count + count, infinite if there is no path
+    private final float[] fromLandmark;
+    private final float[] toLandmark;
+
+    private Landmarks(int accessibleMask, boolean diagonal, int requestedCount, int[] cells, float[] fromLandmark, float[] toLandmark) {
+        this.accessibleMask = accessibleMask;
+        this.diagonal = diagonal;
+        this.requestedCount = requestedCount;
+        this.cells = cells;
+        this.fromLandmark = fromLandmark;
+        this.toLandmark = toLandmark;
+    }
+
+    /**
+     * Spreads the landmarks around the border of the largest region and searches from and to each of them in parallel
+     * Small regions can end up with fewer landmarks than requested
+     */
+    public static Landmarks build(TerrainGrid terrain, int xMax, int yMax, ComponentIndex components,
+                                  int accessibleMask, boolean diagonal, int count) {
+        int[] cells = select(terrain, xMax, yMax, components, count);
+        int k = cells.length;
+
+        // Searches 0 until k run from the landmarks, k until 2k towards them
+        float[][] columns = IntStream.range(0, 2 * k).parallel()
+                .mapToObj(i -> distances(terrain, xMax, yMax, accessibleMask, diagonal, cells[i % k], i >= k))
+                .toArray(float[][]::new);
+
+        // Interleaved, so one estimate reads all landmarks of a cell from the same cache lines
+        int n = terrain.size();
+        float[] fromLandmark = new float[n * k];
+        float[] toLandmark = new float[n * k];
+        IntStream.range(0, n).parallel().forEach(v -> {
+            for (int i = 0; i < k; i++) {
+                fromLandmark[v * k + i] = columns[i][v];
+                toLandmark[v * k + i] = columns[k + i][v];
+            }
+        });
+        return new Landmarks(accessibleMask, diagonal, count, cells, fromLandmark, toLandmark);
+    }
+
+    public int getCount() {
+        return this.cells.length;
+    }
+
+    public int[] getLandmarkCells() {
+        return this.cells.clone();
+    }
+
+    /**
+     * Whether these landmarks were built for the accessibility mask, movement type and landmark count of the options
+     */
+    public boolean matches(QueryOptions options) {
+        return this.accessibleMask == options.getAccessibleMask() && this.diagonal == options.isDiagonal()
+                && this.requestedCount == options.getLandmarkCount();
+    }
+
+    /**
+     * Lower bound for the cost of a path from index to goal, 0 when no landmark knows both cells
+     */
+    public double estimate(int index, int goal) {
+        int k = this.cells.length;
+        int a = index * k;
+        int b = goal * k;
+        float best = 0;
+        for (int i = 0; i < k; i++) {
+            float lv = this.fromLandmark[a + i];
+            float lt = this.fromLandmark[b + i];
+            if (lv != Float.POSITIVE_INFINITY && lt != Float.POSITIVE_INFINITY) {
+                best = Math.max(best, lt - lv);
+            }
+            float vl = this.toLandmark[a + i];
+            float tl = this.toLandmark[b + i];
+            if (vl != Float.POSITIVE_INFINITY && tl != Float.POSITIVE_INFINITY) {
+                best = Math.max(best, vl - tl);
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Splits the map into equal angles around its centre and takes the cell of the largest region
+     * that lies furthest out in each of them
+     */
+    private static int[] select(TerrainGrid terrain, int xMax, int yMax, ComponentIndex components, int count) {
+        int[] sizes = new int[components.getComponentCount() + 1];
+        for (int i = 0; i < terrain.size(); i++) {
+            sizes[components.getLabel(i)]++;
+        }
+        int largest = 0;
+        for (int label = 1; label < sizes.length; label++) {
+            if (largest == 0 || sizes[label] > sizes[largest]) {
+                largest = label;
+            }
+        }
+        if (largest == 0) return new int[0];
+
+        double centerX = (xMax - 1) / 2.0;
+        double centerY = (yMax - 1) / 2.0;
+        int[] cells = new int[count];
+        double[] best = new double[count];
+        Arrays.fill(cells, -1);
+        for (int i = 0; i < terrain.size(); i++) {
+            if (components.getLabel(i) != largest) continue;
+
+            double dx = i % xMax - centerX;
+            double dy = i / xMax - centerY;
+            int sector = (int) ((Math.atan2(dy, dx) + Math.PI) / (2 * Math.PI) * count) % count;
+            double distance = dx * dx + dy * dy;
+            if (cells[sector] == -1 || distance > best[sector]) {
+                cells[sector] = i;
+                best[sector] = distance;
+            }
+        }
+        return Arrays.stream(cells).filter(cell -> cell != -1).toArray();
+    }
+
+    /**
+     * Dijkstra over the whole map from the landmark, in reverse the distances of every cell to it
+     */
+    private static float[] distances(TerrainGrid terrain, int xMax, int yMax, int accessibleMask, boolean diagonal,
+                                     int landmark, boolean reverse) {
+        double[] dist = new double[terrain.size()];
+        Arrays.fill(dist, Double.POSITIVE_INFINITY);
+        BucketQueue queue = new BucketQueue(terrain.size());
+        dist[landmark] = 0;
+        queue.add(landmark, 0);
+
+        while (!queue.isEmpty()) {
+            int index = queue.poll();
+            // Nothing steps onto an inaccessible cell, so there is no way to it that could be extended
+            if (reverse && !isAccessible(terrain.getOrdinal(index), accessibleMask)) continue;
+
+            int x = index % xMax;
+            int y = index / xMax;
+            for (int[] xy : AStar.NEIGHBOUR_COORDS) {
+                boolean diagonalStep = xy[0] != 0 && xy[1] != 0;
+                if (diagonalStep && !diagonal) continue;
+
+                int nx = x + xy[0];
+                int ny = y + xy[1];
+                if (nx < 0 || ny < 0 || nx >= xMax || ny >= yMax) continue;
+
+                int neighbour = (ny * xMax) + nx;
+                if (!reverse && !isAccessible(terrain.getOrdinal(neighbour), accessibleMask)) continue;
+
+                // A step always costs the weight of the field it enters
+                double step = terrain.getField(reverse ? index : neighbour).getWeight() + (diagonalStep ? 0.5 : 0);
+                double g = dist[index] + step;
+                if (g < dist[neighbour]) {
+                    dist[neighbour] = g;
+                    queue.add(neighbour, g);
+                }
+            }
+        }
+
+        float[] column = new float[dist.length];
+        for (int i = 0; i < dist.length; i++) {
+            column[i] = (float) dist[i];
+        }
+        return column;
+    }
+
+    private static boolean isAccessible(int ordinal, int accessibleMask) {
+        return (accessibleMask & (1 << ordinal)) != 0;
+    }
+}
@@ -0,0 +1,105 @@
+package pathfinding.algorithms;
+
+import pathfinding.TerrainGrid;
+
+/**
+ * Passable neighbours of every cell for one accessibility mask and movement type
+ * Bit d of a cell's mask is set when the neighbour in direction d of AStar#NEIGHBOUR_COORDS lies on the map and
+ * can be entered, so the search visits neighbours by scanning the set bits and adding a fixed offset to the index,
+ * without bounds or accessibility checks. Odd directions are the diagonal ones
+ */
+public class NeighbourMasks {
+
+    // Cells per tile, an update copies only the tiles around its cells
+    private static final int TILE_SHIFT = 12;
+    private static final int TILE_MASK = (1 << TILE_SHIFT) - 1;
+
+    private final int accessibleMask;
+    private final boolean diagonal;
+    private final byte[][] tiles;
+    // Index offset of every direction
+    private final int[] offsets;
+
+    private NeighbourMasks(int accessibleMask, boolean diagonal, byte[][] tiles, int[] offsets) {
+        this.accessibleMask = accessibleMask;
+        this.diagonal = diagonal;
+        this.tiles = tiles;
+        this.offsets = offsets;
+    }
+
+    public static NeighbourMasks build(TerrainGrid terrain, int xMax, int yMax, int accessibleMask, boolean diagonal) {
+        int[] offsets = new int[AStar.NEIGHBOUR_COORDS.length];
+        for (int d = 0; d < offsets.length; d++) {
+            offsets[d] = AStar.NEIGHBOUR_COORDS[d][1] * xMax + AStar.NEIGHBOUR_COORDS[d][0];
+        }
+
+        byte[][] tiles = new byte[(terrain.size() + TILE_MASK) >>> TILE_SHIFT][];
+        for (int t = 0; t < tiles.length; t++) {
+            int first = t << TILE_SHIFT;
+            tiles[t] = new byte[Math.min(TILE_MASK + 1, terrain.size() - first)];
+            for (int i = 0; i < tiles[t].length; i++) {
+                tiles[t][i] = mask(terrain, xMax, yMax, accessibleMask, diagonal, first + i);
+            }
+        }
+        return new NeighbourMasks(accessibleMask, diagonal, tiles, offsets);
+    }
+
+    /**
+     * Masks after the given cells of the map changed, only the changed cells and their neighbours are looked at again
+     * Patches a copy sharing the untouched tiles, so searches that are still running keep the masks they started with
+     */
+    public NeighbourMasks update(TerrainGrid terrain, int xMax, int yMax, int... cells) {
+        byte[][] tiles = this.tiles.clone();
+        for (int cell : cells) {
+            int x = cell % xMax;
+            int y = cell / xMax;
+            for (int ny = Math.max(y - 1, 0); ny <= Math.min(y + 1, yMax - 1); ny++) {
+                for (int nx = Math.max(x - 1, 0); nx <= Math.min(x + 1, xMax - 1); nx++) {
+                    int index = ny * xMax + nx;
+                    int tile = index >>> TILE_SHIFT;
+                    // Copied on the first write so these masks stay as they are
+                    if (tiles[tile] == this.tiles[tile]) {
+                        tiles[tile] = this.tiles[tile].clone();
+                    }
+                    tiles[tile][index & TILE_MASK] = mask(terrain, xMax, yMax, this.accessibleMask, this.diagonal, index);
+                }
+            }
+        }
+        return new NeighbourMasks(this.accessibleMask, this.diagonal, tiles, this.offsets);
+    }
+
+    private static byte mask(TerrainGrid terrain, int xMax, int yMax, int accessibleMask, boolean diagonal, int index) {
+        int x = index % xMax;
+        int y = index / xMax;
+        int mask = 0;
+        for (int d = 0; d < AStar.NEIGHBOUR_COORDS.length; d++) {
+            if (!diagonal && (d & 1) != 0) continue;
+
+            int nx = x + AStar.NEIGHBOUR_COORDS[d][0];
+            int ny = y + AStar.NEIGHBOUR_COORDS[d][1];
+            if (nx < 0 || ny < 0 || nx >= xMax || ny >= yMax) continue;
+            if ((accessibleMask & (1 << terrain.getOrdinal(ny * xMax + nx))) != 0) {
+                mask |= 1 << d;
+            }
+        }
+        return (byte) mask;
+    }
+
+    public boolean matches(QueryOptions options) {
+        return this.accessibleMask == options.getAccessibleMask() && this.diagonal == options.isDiagonal();
+    }
+
+    /**
+     * Directions of the passable neighbours as bits, scan them with Integer#numberOfTrailingZeros
+     */
+    public int getMask(int index) {
+        return this.tiles[index >>> TILE_SHIFT][index & TILE_MASK] & 0xFF;
+    }
+
+    /**
+     * Added to a cell index to get its neighbour in the direction
+     */
+    public int getOffset(int direction) {
+        return this.offsets[direction];
+    }
+}
@@ -0,0 +1,147 @@
+package pathfinding.algorithms;
+
+import java.util.Arrays;
+
+/**
+ * Open list of the search, an indexed 4-ary min-heap keyed by cell index
+ * Every cell remembers its position inside the heap, so contains is a single array read
+ * and decreasing the key of a queued cell only sifts it up instead of removing and re-adding it
+ */
+public class OpenList implements OpenSet {
+
+    private static final int ARITY = 4;
+
+    private int[] heap;
+    private double[] keys;
+    private final int[] positions;
+    private int size;
+
+    public OpenList(int capacity) {
+        this.heap = new int[16];
+        this.keys = new double[16];
+        this.positions = new int[capacity];
+        Arrays.fill(this.positions, -1);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public boolean contains(int index) {
+        return this.positions[index] != -1;
+    }
+
+    public double getKey(int index) {
+        return this.keys[this.positions[index]];
+    }
+
+    @Override
+    public void add(int index, double key) {
+        int pos = this.positions[index];
+        if (pos == -1) {
+            if (this.size == this.heap.length) {
+                this.heap = Arrays.copyOf(this.heap, this.size * 2);
+                this.keys = Arrays.copyOf(this.keys, this.size * 2);
+            }
+            this.siftUp(this.size++, index, key);
+        } else if (key < this.keys[pos]) {
+            this.siftUp(pos, index, key);
+        } else {
+            this.siftDown(pos, index, key);
+        }
+    }
+
+    /**
+     * Cell at a position of the heap, 0 until size, for looking at every queued cell without polling
+     */
+    public int cellAt(int position) {
+        return this.heap[position];
+    }
+
+    public int peek() {
+        return this.heap[0];
+    }
+
+    public double peekKey() {
+        return this.keys[0];
+    }
+
+    @Override
+    public int poll() {
+        int index = this.heap[0];
+        this.positions[index] = -1;
+        if (--this.size > 0) {
+            this.siftDown(0, this.heap[this.size], this.keys[this.size]);
+        }
+        return index;
+    }
+
+    public void remove(int index) {
+        int pos = this.positions[index];
+        if (pos == -1) return;
+
+        this.positions[index] = -1;
+        if (--this.size > pos) {
+            int last = this.heap[this.size];
+            double lastKey = this.keys[this.size];
+            if (lastKey < this.keys[pos]) {
+                this.siftUp(pos, last, lastKey);
+            } else {
+                this.siftDown(pos, last, lastKey);
+            }
+        }
+    }
+
+    /**
+     * Empties the heap, only touches the cells that are still queued
+     */
+    @Override
+    public void clear() {
+        for (int i = 0; i < this.size; i++) {
+            this.positions[this.heap[i]] = -1;
+        }
+        this.size = 0;
+    }
+
+    private void siftUp(int pos, int index, double key) {
+        while (pos > 0) {
+            int parent = (pos - 1) / ARITY;
+            if (this.keys[parent] <= key) break;
+            this.move(this.heap[parent], this.keys[parent], pos);
+            pos = parent;
+        }
+        this.move(index, key, pos);
+    }
+
+    private void siftDown(int pos, int index, double key) {
+        while (true) {
+            int first = pos * ARITY + 1;
+            if (first >= this.size) break;
+
+            int min = first;
+            int last = Math.min(first + ARITY, this.size);
+            for (int child = first + 1; child < last; child++) {
+                if (this.keys[child] < this.keys[min]) {
+                    min = child;
+                }
+            }
+            if (this.keys[min] >= key) break;
+            this.move(this.heap[min], this.keys[min], pos);
+            pos = min;
+        }
+        this.move(index, key, pos);
+    }
+
+    private void move(int index, double key, int pos) {
+        this.heap[pos] = index;
+        this.keys[pos] = key;
+        this.positions[index] = pos;
+    }
+}
@@ -0,0 +1,25 @@
+package pathfinding.algorithms;
+
+/**
+ * Priority queue of cell indices the search takes the next cell to expand from
+ */
+public interface OpenSet {
+
+    boolean isEmpty();
+
+    int size();
+
+    boolean contains(int index);
+
+    /**
+     * Adds the cell or moves it to its new place if it is already queued
+     */
+    void add(int index, double key);
+
+    /**
+     * Removes and returns the cell with the smallest key
+     */
+    int poll();
+
+    void clear();
+}
@@ -0,0 +1,136 @@
+package pathfinding.algorithms;
+
+import java.awt.Point;
+import java.util.AbstractList;
+import java.util.List;
+
+/**
+ * Immutable outcome of a single query
+ * Cells are stored as indices, the Point views are created on access
+ */
+public final class PathResult {
+
+    public enum Status {
+        FOUND,
+        NO_PATH,
+        /**
+         * Stopped after the expansion budget, the path leads to the closest cell reached
+         */
+        EXPANSION_LIMIT,
+        /**
+         * Stopped after the time budget, the path leads to the closest cell reached
+         */
+        TIME_LIMIT,
+        /**
+         * Stopped by the cancellation token, the path leads to the closest cell reached
+         */
+        CANCELLED
+    }
+
+    private static final int[] EMPTY = new int[0];
+
+    private final Status status;
+    private final int xMax;
+    private final int[] path;
+    private final int[] expanded;
+    private final double cost;
+    private final int expansions;
+    private final long nanos;
+
+    PathResult(Status status, int xMax, int[] path, int[] expanded, double cost, int expansions, long nanos) {
+        this.status = status;
+        this.xMax = xMax;
+        this.path = path;
+        this.expanded = expanded;
+        this.cost = cost;
+        this.expansions = expansions;
+        this.nanos = nanos;
+    }
+
+    static PathResult noPath(int xMax, int[] expanded, int expansions, long nanos) {
+        return new PathResult(Status.NO_PATH, xMax, EMPTY, expanded, Double.POSITIVE_INFINITY, expansions, nanos);
+    }
+
+    public Status getStatus() {
+        return this.status;
+    }
+
+    public boolean isFound() {
+        return this.status == Status.FOUND;
+    }
+
+    /**
+     * Whether the search was stopped early and the path ends short of the goal
+     */
+    public boolean isPartial() {
+        return this.status != Status.FOUND && this.status != Status.NO_PATH;
+    }
+
+    /**
+     * Total weight of the path, infinite if there is none, of the partial path if the search was stopped early
+     */
+    public double getCost() {
+        return this.cost;
+    }
+
+    /**
+     * Number of cells taken out of the open list, including the goal
+     */
+    public int getExpansions() {
+        return this.expansions;
+    }
+
+    public long getNanos() {
+        return this.nanos;
+    }
+
+    /**
+     * Number of cells on the path, including start and goal
+     */
+    public int getPathLength() {
+        return this.path.length;
+    }
+
+    public int getPathIndex(int i) {
+        return this.path[i];
+    }
+
+    public int[] getPathIndices() {
+        return this.path.clone();
+    }
+
+    /**
+     * Cells on the path from start to goal, both included
+     */
+    public List<Point> getPath() {
+        return this.pointView(this.path);
+    }
+
+    /**
+     * Cells in the order they were expanded, only filled when QueryOptions#isRecordExpanded was set
+     */
+    public List<Point> getExpanded() {
+        return this.pointView(this.expanded);
+    }
+
+    private List<Point> pointView(int[] indices) {
+        return new AbstractList<>() {
+            @Override
+            public Point get(int i) {
+                int index = indices[i];
+                return new Point(index % xMax, index / xMax);
+            }
+
+            @Override
+            public int size() {
+                return indices.length;
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        return "PathResult[status=%s, cost=%s, length=%s, expansions=%s, nanos=%s]"
+                .formatted(this.status, this.cost, this.path.length, this.expansions, this.nanos);
+    }
+}
@@ -0,0 +1,277 @@
+package pathfinding.algorithms;
+
+import pathfinding.MapField;
+
+/**
+ * Immutable snapshot of the settings a single query runs with
+ * Every with* method returns a modified copy, so one instance can be shared between threads
+ */
+public final class QueryOptions {
+
+    public enum QueueMode {
+        /**
+         * Indexed d-ary heap, works with any key
+         */
+        HEAP,
+        /**
+         * Dial's bucket queue over half-step costs, only for Dijkstra
+         */
+        BUCKET
+    }
+
+    public enum HeuristicMode {
+        /**
+         * Octile or Manhattan distance at the cost of the cheapest field
+         */
+        DISTANCE,
+        /**
+         * Distance combined with the triangle inequality over precomputed landmark distances (ALT)
+         */
+        LANDMARKS
+    }
+
+    public enum CostMode {
+        /**
+         * Costs and keys as doubles
+         */
+        DOUBLE,
+        /**
+         * Costs as ints in 1/AStar#FIXED_POINT_SCALE steps with an int heap, heuristics rounded down to the same
+         * steps so it stays admissible. Weights are multiples of 0.5, so path costs are exactly the same
+         */
+        FIXED_POINT
+    }
+
+    public static final int ALL_ACCESSIBLE = (1 << MapField.values().length) - 1;
+    public static final int DEFAULT_LANDMARK_COUNT = 8;
+
+    /**
+     * Orthogonal movement, heuristics weight of 1 and every field accessible
+     */
+    public static final QueryOptions DEFAULT = new QueryOptions(false, 1, false, ALL_ACCESSIBLE, false, QueueMode.HEAP,
+            HeuristicMode.DISTANCE, CostMode.DOUBLE, DEFAULT_LANDMARK_COUNT, Integer.MAX_VALUE, Long.MAX_VALUE, null, null);
+
+    // Final, so a query handed to another thread always sees every setting
+    private final boolean diagonal;
+    private final double heuristicWeight;
+    private final boolean tieBreak;
+    private final int accessibleMask;
+    private final boolean recordExpanded;
+    private final QueueMode queueMode;
+    private final HeuristicMode heuristicMode;
+    private final CostMode costMode;
+    private final int landmarkCount;
+    private final int maxExpansions;
+    private final long maxNanos;
+    private final CancellationToken cancellationToken;
+    private final ExpansionListener expansionListener;
+
+    private QueryOptions(boolean diagonal, double heuristicWeight, boolean tieBreak, int accessibleMask,
+                         boolean recordExpanded, QueueMode queueMode, HeuristicMode heuristicMode, CostMode costMode,
+                         int landmarkCount, int maxExpansions, long maxNanos, CancellationToken cancellationToken,
+                         ExpansionListener expansionListener) {
+        this.diagonal = diagonal;
+        this.heuristicWeight = heuristicWeight;
+        this.tieBreak = tieBreak;
+        this.accessibleMask = accessibleMask;
+        this.recordExpanded = recordExpanded;
+        this.queueMode = queueMode;
+        this.heuristicMode = heuristicMode;
+        this.costMode = costMode;
+        this.landmarkCount = landmarkCount;
+        this.maxExpansions = maxExpansions;
+        this.maxNanos = maxNanos;
+        this.cancellationToken = cancellationToken;
+        this.expansionListener = expansionListener;
+    }
+
+    public boolean isDiagonal() {
+        return this.diagonal;
+    }
+
+    public double getHeuristicWeight() {
+        return this.heuristicWeight;
+    }
+
+    public boolean isTieBreak() {
+        return this.tieBreak;
+    }
+
+    /**
+     * Bit n is set when the field with ordinal n can be walked on
+     */
+    public int getAccessibleMask() {
+        return this.accessibleMask;
+    }
+
+    public boolean isAccessible(MapField field) {
+        return (this.accessibleMask & (1 << field.ordinal())) != 0;
+    }
+
+    /**
+     * Whether the result should contain every expanded cell in order, only needed for displaying the search
+     */
+    public boolean isRecordExpanded() {
+        return this.recordExpanded;
+    }
+
+    public QueueMode getQueueMode() {
+        return this.queueMode;
+    }
+
+    public HeuristicMode getHeuristicMode() {
+        return this.heuristicMode;
+    }
+
+    public CostMode getCostMode() {
+        return this.costMode;
+    }
+
+    /**
+     * Landmarks used by HeuristicMode.LANDMARKS, each one costs two floats per cell
+     */
+    public int getLandmarkCount() {
+        return this.landmarkCount;
+    }
+
+    /**
+     * Expansions after which the search gives up and returns a partial path
+     */
+    public int getMaxExpansions() {
+        return this.maxExpansions;
+    }
+
+    /**
+     * Nanoseconds after which the search gives up and returns a partial path
+     */
+    public long getMaxNanos() {
+        return this.maxNanos;
+    }
+
+    /**
+     * Token the search stops at once it is cancelled, null if the query cannot be cancelled
+     */
+    public CancellationToken getCancellationToken() {
+        return this.cancellationToken;
+    }
+
+    /**
+     * Gets the closed cells in chunks while the search runs, null if nobody watches
+     * AStar#findeWeg and its subclasses report to it, as do jump point, bounded, anytime and bidirectional search
+     */
+    public ExpansionListener getExpansionListener() {
+        return this.expansionListener;
+    }
+
+    /**
+     * Whether the search has to keep track of a partial path in case it is stopped early
+     */
+    public boolean hasBudget() {
+        return this.maxExpansions != Integer.MAX_VALUE || this.maxNanos != Long.MAX_VALUE || this.cancellationToken != null;
+    }
+
+    /**
+     * Factor the raw distance estimate is multiplied with, heuristics weight combined with the tie-break
+     */
+    public double getHeuristicScale() {
+        return this.tieBreak ? this.heuristicWeight * (1.0 + (1.0 / 500.0)) : this.heuristicWeight;
+    }
+
+    public QueryOptions withDiagonal(boolean diagonal) {
+        return new QueryOptions(diagonal, this.heuristicWeight, this.tieBreak, this.accessibleMask,
+                this.recordExpanded, this.queueMode, this.heuristicMode, this.costMode, this.landmarkCount,
+                this.maxExpansions, this.maxNanos, this.cancellationToken, this.expansionListener);
+    }
+
+    public QueryOptions withHeuristicWeight(double heuristicWeight) {
+        if (!(heuristicWeight >= 0)) {
+            throw new IllegalArgumentException("Heuristics weight must be a non-negative number: " + heuristicWeight);
+        }
+        return new QueryOptions(this.diagonal, heuristicWeight, this.tieBreak, this.accessibleMask,
+                this.recordExpanded, this.queueMode, this.heuristicMode, this.costMode, this.landmarkCount,
+                this.maxExpansions, this.maxNanos, this.cancellationToken, this.expansionListener);
+    }
+
+    public QueryOptions withTieBreak(boolean tieBreak) {
+        return new QueryOptions(this.diagonal, this.heuristicWeight, tieBreak, this.accessibleMask,
+                this.recordExpanded, this.queueMode, this.heuristicMode, this.costMode, this.landmarkCount,
+                this.maxExpansions, this.maxNanos, this.cancellationToken, this.expansionListener);
+    }
+
+    public QueryOptions withAccessibleMask(int accessibleMask) {
+        return new QueryOptions(this.diagonal, this.heuristicWeight, this.tieBreak, accessibleMask & ALL_ACCESSIBLE,
+                this.recordExpanded, this.queueMode, this.heuristicMode, this.costMode, this.landmarkCount,
+                this.maxExpansions, this.maxNanos, this.cancellationToken, this.expansionListener);
+    }
+
+    public QueryOptions withRecordExpanded(boolean recordExpanded) {
+        return new QueryOptions(this.diagonal, this.heuristicWeight, this.tieBreak, this.accessibleMask,
+                recordExpanded, this.queueMode, this.heuristicMode, this.costMode, this.landmarkCount,
+                this.maxExpansions, this.maxNanos, this.cancellationToken, this.expansionListener);
+    }
+
+    public QueryOptions withQueueMode(QueueMode queueMode) {
+        return new QueryOptions(this.diagonal, this.heuristicWeight, this.tieBreak, this.accessibleMask,
+                this.recordExpanded, queueMode, this.heuristicMode, this.costMode, this.landmarkCount,
+                this.maxExpansions, this.maxNanos, this.cancellationToken, this.expansionListener);
+    }
+
+    public QueryOptions withHeuristicMode(HeuristicMode heuristicMode) {
+        return new QueryOptions(this.diagonal, this.heuristicWeight, this.tieBreak, this.accessibleMask,
+                this.recordExpanded, this.queueMode, heuristicMode, this.costMode, this.landmarkCount,
+                this.maxExpansions, this.maxNanos, this.cancellationToken, this.expansionListener);
+    }
+
+    public QueryOptions withCostMode(CostMode costMode) {
+        return new QueryOptions(this.diagonal, this.heuristicWeight, this.tieBreak, this.accessibleMask,
+                this.recordExpanded, this.queueMode, this.heuristicMode, costMode, this.landmarkCount,
+                this.maxExpansions, this.maxNanos, this.cancellationToken, this.expansionListener);
+    }
+
+    public QueryOptions withLandmarkCount(int landmarkCount) {
+        if (landmarkCount < 1) {
+            throw new IllegalArgumentException("Landmark count must be at least 1: " + landmarkCount);
+        }
+        return new QueryOptions(this.diagonal, this.heuristicWeight, this.tieBreak, this.accessibleMask,
+                this.recordExpanded, this.queueMode, this.heuristicMode, this.costMode, landmarkCount,
+                this.maxExpansions, this.maxNanos, this.cancellationToken, this.expansionListener);
+    }
+
+    public QueryOptions withMaxExpansions(int maxExpansions) {
+        if (maxExpansions < 1) {
+            throw new IllegalArgumentException("Expansion budget must be at least 1: " + maxExpansions);
+        }
+        return new QueryOptions(this.diagonal, this.heuristicWeight, this.tieBreak, this.accessibleMask,
+                this.recordExpanded, this.queueMode, this.heuristicMode, this.costMode, this.landmarkCount,
+                maxExpansions, this.maxNanos, this.cancellationToken, this.expansionListener);
+    }
+
+    public QueryOptions withMaxNanos(long maxNanos) {
+        if (maxNanos < 1) {
+            throw new IllegalArgumentException("Time budget must be positive: " + maxNanos);
+        }
+        return new QueryOptions(this.diagonal, this.heuristicWeight, this.tieBreak, this.accessibleMask,
+                this.recordExpanded, this.queueMode, this.heuristicMode, this.costMode, this.landmarkCount,
+                this.maxExpansions, maxNanos, this.cancellationToken, this.expansionListener);
+    }
+
+    public QueryOptions withCancellationToken(CancellationToken cancellationToken) {
+        return new QueryOptions(this.diagonal, this.heuristicWeight, this.tieBreak, this.accessibleMask,
+                this.recordExpanded, this.queueMode, this.heuristicMode, this.costMode, this.landmarkCount,
+                this.maxExpansions, this.maxNanos, cancellationToken, this.expansionListener);
+    }
+
+    public QueryOptions withExpansionListener(ExpansionListener expansionListener) {
+        return new QueryOptions(this.diagonal, this.heuristicWeight, this.tieBreak, this.accessibleMask,
+                this.recordExpanded, this.queueMode, this.heuristicMode, this.costMode, this.landmarkCount,
+                this.maxExpansions, this.maxNanos, this.cancellationToken, expansionListener);
+    }
+
+    public static int accessibleMask(MapField... fields) {
+        int mask = 0;
+        for (MapField field : fields) {
+            mask |= 1 << field.ordinal();
+        }
+        return mask;
+    }
+}
@@ -0,0 +1,141 @@
+package pathfinding.algorithms;
+
+import java.util.Arrays;
+
+/**
+ * Search state of every cell kept in primitive arrays indexed by cell index
+ * The arrays are kept between queries, instead of clearing them every cell is stamped with the
+ * generation of the query that last touched it and older stamps are read as unvisited,
+ * so preparing a new query only costs as much as the previous one explored
+ * The f cost is not stored here, it only lives as the key in the OpenList
+ */
+public class SearchContext {
+
+    final OpenList openList;
+    private BucketQueue bucketQueue;
+    private IntOpenList intOpenList;
+
+    private final double[] gCost;
+    // g cost of the fixed-point search in 1/AStar#FIXED_POINT_SCALE steps, created with the int heap
+    private int[] fixedCost;
+    private final int[] parents;
+    // Generation of the query that last visited the cell shifted by one, lowest bit marks it as closed
+    private final int[] stamps;
+    private int generation;
+
+    // Cells in the order they were closed for the first time
+    private int[] expanded;
+    private int expandedCount;
+
+    public SearchContext(int size) {
+        this.openList = new OpenList(size);
+        this.gCost = new double[size];
+        this.parents = new int[size];
+        this.stamps = new int[size];
+        this.expanded = new int[64];
+    }
+
+    /**
+     * Prepares the context for the next query, everything visited before is treated as unvisited
+     */
+    public void reset() {
+        this.openList.clear();
+        if (this.bucketQueue != null) {
+            this.bucketQueue.clear();
+        }
+        if (this.intOpenList != null) {
+            this.intOpenList.clear();
+        }
+        this.expandedCount = 0;
+        if (++this.generation == (1 << 30)) {
+            // Stamps would overflow, start over with actually cleared arrays
+            Arrays.fill(this.stamps, 0);
+            this.generation = 1;
+        }
+    }
+
+    /**
+     * Created on first use, most queries never need it
+     */
+    BucketQueue bucketQueue() {
+        if (this.bucketQueue == null) {
+            this.bucketQueue = new BucketQueue(this.size());
+        }
+        return this.bucketQueue;
+    }
+
+    /**
+     * Open list of the fixed-point search, created on first use together with its cost array
+     */
+    IntOpenList intOpenList() {
+        if (this.intOpenList == null) {
+            this.intOpenList = new IntOpenList(this.size());
+            this.fixedCost = new int[this.size()];
+        }
+        return this.intOpenList;
+    }
+
+    public int size() {
+        return this.stamps.length;
+    }
+
+    public boolean isVisited(int index) {
+        return (this.stamps[index] >>> 1) == this.generation;
+    }
+
+    public double getGCost(int index) {
+        return this.isVisited(index) ? this.gCost[index] : Double.MAX_VALUE;
+    }
+
+    public int getParent(int index) {
+        return this.isVisited(index) ? this.parents[index] : -2;
+    }
+
+    public void setNode(int index, double gCost, int parent) {
+        if (!this.isVisited(index)) {
+            this.stamps[index] = this.generation << 1;
+        }
+        this.gCost[index] = gCost;
+        this.parents[index] = parent;
+    }
+
+    /**
+     * Fixed-point g cost, only valid during a query that got the int heap from intOpenList
+     */
+    public int getFixedCost(int index) {
+        return this.isVisited(index) ? this.fixedCost[index] : Integer.MAX_VALUE;
+    }
+
+    public void setFixedNode(int index, int cost, int parent) {
+        if (!this.isVisited(index)) {
+            this.stamps[index] = this.generation << 1;
+        }
+        this.fixedCost[index] = cost;
+        this.parents[index] = parent;
+    }
+
+    public boolean isClosed(int index) {
+        return this.stamps[index] == ((this.generation << 1) | 1);
+    }
+
+    /**
+     * Marks the cell as closed, must have been visited by this query before
+     */
+    public void close(int index) {
+        if (this.isClosed(index)) return;
+
+        this.stamps[index] |= 1;
+        if (this.expandedCount == this.expanded.length) {
+            this.expanded = Arrays.copyOf(this.expanded, this.expandedCount * 2);
+        }
+        this.expanded[this.expandedCount++] = index;
+    }
+
+    public int getExpandedCount() {
+        return this.expandedCount;
+    }
+
+    public int getExpanded(int i) {
+        return this.expanded[i];
+    }
+}